@@ -1,5 +1,11 @@
 package core.framework.module;
 
+import core.framework.async.Executor;
+import core.framework.internal.cache.CacheImpl;
+import core.framework.test.async.MockExecutor;
+
+import java.time.Duration;
+
 /**
  * @author neo
  */
@@ -8,4 +14,17 @@ public class TestCacheConfig extends CacheConfig {
     void configureRedis(String host, String password) {
         local();
     }
+
+    @Override
+    void configureClientTracking() {
+    }
+
+    @Override
+    void configureDistributedLoad(CacheImpl<?> cache, Duration maxWaitTime) {
+    }
+
+    @Override
+    Executor createRefreshExecutor() {
+        return new MockExecutor();
+    }
 }
@@ -11,6 +11,14 @@ public class TestDBConfig extends DBConfig {
         return Strings.format("jdbc:hsqldb:mem:{};sql.syntax_mys=true", name == null ? "." : name);
     }
 
+    @Override
+    void setReplicas(String... urls) {      // all reads go to in memory hsqldb in test
+    }
+
+    @Override
+    public void replicaPoolSize(int minSize, int maxSize) {
+    }
+
     @Override
     public void user(String user) {
     }
@@ -1,5 +1,8 @@
 package core.framework.module;
 
+import core.framework.internal.redis.RedisListListener;
+import core.framework.internal.redis.RedisStreamListener;
+import core.framework.redis.ReadPolicy;
 import core.framework.redis.Redis;
 import core.framework.test.redis.MockRedis;
 
@@ -18,6 +21,28 @@ public class TestRedisConfig extends RedisConfig {
     void setHost(String host) {
     }
 
+    @Override
+    void setCluster(String... hosts) {
+    }
+
+    @Override
+    void setReplicas(String... hosts) {
+    }
+
+    @Override
+    RedisStreamListener createStreamListener() {
+        return new RedisStreamListener(null, null, null, 0);
+    }
+
+    @Override
+    RedisListListener createListListener() {
+        return new RedisListListener(null, null, null, 0);
+    }
+
+    @Override
+    public void readPolicy(ReadPolicy policy) {
+    }
+
     @Override
     public void password(String password) {
     }
@@ -26,6 +51,10 @@ public class TestRedisConfig extends RedisConfig {
     public void poolSize(int minSize, int maxSize) {
     }
 
+    @Override
+    public void multiplex(int connections) {
+    }
+
     @Override
     public void slowOperationThreshold(Duration threshold) {
     }
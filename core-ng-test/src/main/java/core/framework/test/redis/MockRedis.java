@@ -5,8 +5,11 @@ import core.framework.redis.RedisAdmin;
 import core.framework.redis.RedisHash;
 import core.framework.redis.RedisHyperLogLog;
 import core.framework.redis.RedisList;
+import core.framework.redis.RedisPipeline;
+import core.framework.redis.RedisScript;
 import core.framework.redis.RedisSet;
 import core.framework.redis.RedisSortedSet;
+import core.framework.redis.RedisStream;
 import core.framework.util.Maps;
 
 import java.time.Duration;
@@ -26,6 +29,8 @@ public final class MockRedis implements Redis {
     private final MockRedisSortedSet sortedSet = new MockRedisSortedSet(store);
     private final MockRedisAdmin admin = new MockRedisAdmin();
     private final MockRedisHyperLogLog hyperLogLog = new MockRedisHyperLogLog(store);
+    private final MockRedisStream stream = new MockRedisStream(store);
+    final Map<String, MockRedisScript.Handler> scripts = Maps.newConcurrentHashMap();
 
     @Override
     public String get(String key) {
@@ -121,6 +126,27 @@ public final class MockRedis implements Redis {
         return hyperLogLog;
     }
 
+    @Override
+    public RedisStream stream() {
+        return stream;
+    }
+
+    @Override
+    public RedisPipeline pipeline() {
+        return new MockRedisPipeline(this);
+    }
+
+    @Override
+    public RedisScript script(String script) {
+        assertThat(script).isNotNull();
+        return new MockRedisScript(this, script);
+    }
+
+    // stub result of lua script, e.g. script(lua, (keys, arguments) -> 1L), result is String, Long or List<String> by eval method
+    public void script(String script, MockRedisScript.Handler handler) {
+        scripts.put(script, handler);
+    }
+
     @Override
     public RedisList list() {
         return list;
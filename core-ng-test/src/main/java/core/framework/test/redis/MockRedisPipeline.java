@@ -0,0 +1,123 @@
+package core.framework.test.redis;
+
+import core.framework.redis.RedisPipeline;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author neo
+ */
+public final class MockRedisPipeline implements RedisPipeline {
+    private final MockRedis redis;
+    private final List<Result<?>> commands = new ArrayList<>();
+
+    MockRedisPipeline(MockRedis redis) {
+        this.redis = redis;
+    }
+
+    @Override
+    public Supplier<String> get(String key) {
+        return add(() -> redis.get(key));
+    }
+
+    @Override
+    public Supplier<Boolean> set(String key, String value, Duration expiration, boolean onlyIfAbsent) {
+        return add(() -> redis.set(key, value, expiration, onlyIfAbsent));
+    }
+
+    @Override
+    public void expire(String key, Duration duration) {
+        add(() -> {
+            redis.expire(key, duration);
+            return null;
+        });
+    }
+
+    @Override
+    public Supplier<Long> del(String... keys) {
+        return add(() -> redis.del(keys));
+    }
+
+    @Override
+    public Supplier<Long> increaseBy(String key, long increment) {
+        return add(() -> redis.increaseBy(key, increment));
+    }
+
+    @Override
+    public Supplier<String> hashGet(String key, String field) {
+        return add(() -> redis.hash().get(key, field));
+    }
+
+    @Override
+    public Supplier<Map<String, String>> hashGetAll(String key) {
+        return add(() -> redis.hash().getAll(key));
+    }
+
+    @Override
+    public void hashSet(String key, String field, String value) {
+        add(() -> {
+            redis.hash().set(key, field, value);
+            return null;
+        });
+    }
+
+    @Override
+    public void hashMultiSet(String key, Map<String, String> values) {
+        add(() -> {
+            redis.hash().multiSet(key, values);
+            return null;
+        });
+    }
+
+    @Override
+    public Supplier<Integer> sortedSetAdd(String key, Map<String, Long> values, boolean onlyIfAbsent) {
+        return add(() -> redis.sortedSet().add(key, values, onlyIfAbsent));
+    }
+
+    @Override
+    public Supplier<Map<String, Long>> sortedSetRange(String key, long start, long stop) {
+        return add(() -> redis.sortedSet().range(key, start, stop));
+    }
+
+    @Override
+    public void execute() {
+        assertThat(commands).isNotEmpty();
+        for (Result<?> command : commands) {
+            command.execute();
+        }
+        commands.clear();
+    }
+
+    private <T> Supplier<T> add(Supplier<T> command) {
+        var result = new Result<>(command);
+        commands.add(result);
+        return result;
+    }
+
+    static final class Result<T> implements Supplier<T> {
+        private final Supplier<T> command;
+        private boolean completed;
+        private T value;
+
+        Result(Supplier<T> command) {
+            this.command = command;
+        }
+
+        void execute() {
+            value = command.get();
+            completed = true;
+        }
+
+        @Override
+        public T get() {
+            assertThat(completed).as("pipeline must be executed before reading result").isTrue();
+            return value;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package core.framework.test.redis;
+
+import core.framework.redis.RedisScript;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * lua is not interpreted by mock redis, compare and delete script used by framework is built in,
+ * other scripts must be stubbed by MockRedis.script(script, handler), or use real redis to test script
+ *
+ * @author neo
+ */
+public final class MockRedisScript implements RedisScript {
+    // used by RedisCacheStore to release lease
+    static final String COMPARE_AND_DELETE = "if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end";
+
+    private final MockRedis redis;
+    private final String script;
+
+    MockRedisScript(MockRedis redis, String script) {
+        this.redis = redis;
+        this.script = script;
+    }
+
+    @Override
+    public String evalString(List<String> keys, String... arguments) {
+        Object result = eval(keys, arguments);
+        if (result == null) return null;
+        assertThat(result).isInstanceOf(String.class);
+        return (String) result;
+    }
+
+    @Override
+    public Long evalLong(List<String> keys, String... arguments) {
+        Object result = eval(keys, arguments);
+        if (result == null) return null;
+        assertThat(result).isInstanceOf(Long.class);
+        return (Long) result;
+    }
+
+    @Override
+    public List<String> evalList(List<String> keys, String... arguments) {
+        Object result = eval(keys, arguments);
+        if (result == null) return null;
+        assertThat(result).isInstanceOf(List.class);
+        List<?> values = (List<?>) result;
+        List<String> results = new ArrayList<>(values.size());
+        for (Object value : values) {
+            results.add((String) value);
+        }
+        return results;
+    }
+
+    private Object eval(List<String> keys, String... arguments) {
+        Handler handler = redis.scripts.get(script);
+        if (handler != null) return handler.eval(keys, arguments);
+        if (COMPARE_AND_DELETE.equals(script)) {
+            String key = keys.get(0);
+            return arguments[0].equals(redis.get(key)) ? redis.del(key) : 0L;
+        }
+        throw new Error("script is not supported by mock redis, please stub by MockRedis.script(script, handler), script=" + script);
+    }
+
+    @FunctionalInterface
+    public interface Handler {
+        Object eval(List<String> keys, String... arguments);
+    }
+}
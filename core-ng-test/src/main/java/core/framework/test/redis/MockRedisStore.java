@@ -1,10 +1,13 @@
 package core.framework.test.redis;
 
+import core.framework.redis.StreamEntry;
 import core.framework.util.Maps;
 
 import java.io.Serial;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -67,6 +70,11 @@ class MockRedisStore {
             return (SortedSet) value;
         }
 
+        Stream stream() {
+            assertThat(value).isInstanceOf(Stream.class);
+            return (Stream) value;
+        }
+
         HyperLogLog hyperLogLog() {
             assertThat(value).isInstanceOf(HyperLogLog.class);
             return (HyperLogLog) value;
@@ -88,4 +96,32 @@ class MockRedisStore {
         @Serial
         private static final long serialVersionUID = -4584074052672348286L;
     }
+
+    static class Stream {
+        final List<StreamEntry> entries = new ArrayList<>();
+        final Map<String, Group> groups = new HashMap<>();
+        long lastTimestamp;
+        long lastSequence;
+    }
+
+    static class Group {
+        final Map<String, Pending> pending = new LinkedHashMap<>();  // id -> pending
+        int nextIndex;  // index of next entry to deliver
+
+        Group(int nextIndex) {
+            this.nextIndex = nextIndex;
+        }
+    }
+
+    static class Pending {
+        final StreamEntry entry;
+        String consumer;
+        long deliveryTime;
+
+        Pending(StreamEntry entry, String consumer, long deliveryTime) {
+            this.entry = entry;
+            this.consumer = consumer;
+            this.deliveryTime = deliveryTime;
+        }
+    }
 }
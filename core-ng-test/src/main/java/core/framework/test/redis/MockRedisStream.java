@@ -0,0 +1,115 @@
+package core.framework.test.redis;
+
+import core.framework.redis.RedisStream;
+import core.framework.redis.StreamEntry;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author neo
+ */
+public final class MockRedisStream implements RedisStream {
+    private final MockRedisStore store;
+
+    MockRedisStream(MockRedisStore store) {
+        this.store = store;
+    }
+
+    @Override
+    public String add(String stream, Map<String, String> fields, long maxLength) {
+        assertThat(fields).isNotEmpty();
+        MockRedisStore.Stream value = store.putIfAbsent(stream, new MockRedisStore.Stream()).stream();
+        synchronized (value) {
+            long now = System.currentTimeMillis();
+            if (now > value.lastTimestamp) {
+                value.lastTimestamp = now;
+                value.lastSequence = 0;
+            } else {
+                value.lastSequence++;
+            }
+            String id = value.lastTimestamp + "-" + value.lastSequence;
+            value.entries.add(new StreamEntry(id, Map.copyOf(fields)));
+            if (maxLength > 0 && value.entries.size() > maxLength) {
+                int removed = value.entries.size() - (int) maxLength;
+                value.entries.subList(0, removed).clear();
+                for (MockRedisStore.Group group : value.groups.values()) {
+                    group.nextIndex = Math.max(0, group.nextIndex - removed);
+                }
+            }
+            return id;
+        }
+    }
+
+    @Override
+    public void createGroup(String stream, String group) {
+        MockRedisStore.Stream value = store.putIfAbsent(stream, new MockRedisStore.Stream()).stream();
+        synchronized (value) {
+            value.groups.putIfAbsent(group, new MockRedisStore.Group(value.entries.size()));
+        }
+    }
+
+    @Override
+    public List<StreamEntry> readGroup(String stream, String group, String consumer, int count) {
+        MockRedisStore.Stream value = stream(stream);
+        synchronized (value) {
+            MockRedisStore.Group streamGroup = group(value, group);
+            List<StreamEntry> entries = new ArrayList<>(count);
+            long now = System.currentTimeMillis();
+            while (entries.size() < count && streamGroup.nextIndex < value.entries.size()) {
+                StreamEntry entry = value.entries.get(streamGroup.nextIndex++);
+                streamGroup.pending.put(entry.id, new MockRedisStore.Pending(entry, consumer, now));
+                entries.add(entry);
+            }
+            return entries;
+        }
+    }
+
+    @Override
+    public long ack(String stream, String group, String... ids) {
+        assertThat(ids).isNotEmpty();
+        MockRedisStore.Stream value = stream(stream);
+        synchronized (value) {
+            MockRedisStore.Group streamGroup = group(value, group);
+            long acked = 0;
+            for (String id : ids) {
+                if (streamGroup.pending.remove(id) != null) acked++;
+            }
+            return acked;
+        }
+    }
+
+    @Override
+    public List<StreamEntry> autoClaim(String stream, String group, String consumer, Duration minIdleTime, int count) {
+        MockRedisStore.Stream value = stream(stream);
+        synchronized (value) {
+            MockRedisStore.Group streamGroup = group(value, group);
+            List<StreamEntry> entries = new ArrayList<>(count);
+            long now = System.currentTimeMillis();
+            for (MockRedisStore.Pending pending : streamGroup.pending.values()) {
+                if (entries.size() >= count) break;
+                if (now - pending.deliveryTime < minIdleTime.toMillis()) continue;
+                pending.consumer = consumer;
+                pending.deliveryTime = now;
+                entries.add(pending.entry);
+            }
+            return entries;
+        }
+    }
+
+    private MockRedisStore.Stream stream(String stream) {
+        var value = store.get(stream);
+        assertThat(value).as("stream must exist, stream=%s", stream).isNotNull();
+        return value.stream();
+    }
+
+    private MockRedisStore.Group group(MockRedisStore.Stream stream, String group) {
+        MockRedisStore.Group value = stream.groups.get(group);
+        assertThat(value).as("group must exist, group=%s", group).isNotNull();
+        return value;
+    }
+}
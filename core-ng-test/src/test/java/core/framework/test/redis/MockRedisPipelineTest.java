@@ -0,0 +1,50 @@
+package core.framework.test.redis;
+
+import core.framework.redis.RedisPipeline;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * @author neo
+ */
+class MockRedisPipelineTest {
+    private MockRedis redis;
+
+    @BeforeEach
+    void createMockRedis() {
+        redis = new MockRedis();
+    }
+
+    @Test
+    void execute() {
+        redis.set("key1", "value1");
+
+        RedisPipeline pipeline = redis.pipeline();
+        Supplier<String> value = pipeline.get("key1");
+        pipeline.hashSet("key2", "field1", "value1");
+        Supplier<Map<String, String>> hash = pipeline.hashGetAll("key2");
+        Supplier<Long> deleted = pipeline.del("key1");
+        pipeline.execute();
+
+        assertThat(value.get()).isEqualTo("value1");
+        assertThat(hash.get()).containsExactly(entry("field1", "value1"));
+        assertThat(deleted.get()).isEqualTo(1);
+        assertThat(redis.get("key1")).isNull();
+    }
+
+    @Test
+    void readBeforeExecute() {
+        Supplier<String> value = redis.pipeline().get("key1");
+
+        assertThatThrownBy(value::get)
+            .isInstanceOf(AssertionError.class)
+            .hasMessageContaining("pipeline must be executed");
+    }
+}
@@ -0,0 +1,74 @@
+package core.framework.test.redis;
+
+import core.framework.redis.StreamEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author neo
+ */
+class MockRedisStreamTest {
+    private MockRedis redis;
+
+    @BeforeEach
+    void createMockRedis() {
+        redis = new MockRedis();
+    }
+
+    @Test
+    void readGroup() {
+        redis.stream().createGroup("stream", "group");
+        String id1 = redis.stream().add("stream", Map.of("f1", "v1"));
+        String id2 = redis.stream().add("stream", Map.of("f1", "v2"));
+
+        List<StreamEntry> entries = redis.stream().readGroup("stream", "group", "consumer1", 1);
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).id).isEqualTo(id1);
+        assertThat(entries.get(0).fields).containsEntry("f1", "v1");
+
+        entries = redis.stream().readGroup("stream", "group", "consumer2", 10);
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).id).isEqualTo(id2);
+
+        assertThat(redis.stream().readGroup("stream", "group", "consumer1", 10)).isEmpty();
+    }
+
+    @Test
+    void createGroupAfterAdd() {
+        redis.stream().add("stream", Map.of("f1", "v1"));
+        redis.stream().createGroup("stream", "group");
+
+        assertThat(redis.stream().readGroup("stream", "group", "consumer", 10)).isEmpty();
+    }
+
+    @Test
+    void autoClaim() {
+        redis.stream().createGroup("stream", "group");
+        String id = redis.stream().add("stream", Map.of("f1", "v1"));
+        redis.stream().readGroup("stream", "group", "consumer1", 10);
+
+        List<StreamEntry> entries = redis.stream().autoClaim("stream", "group", "consumer2", Duration.ZERO, 10);
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).id).isEqualTo(id);
+
+        assertThat(redis.stream().ack("stream", "group", id)).isEqualTo(1);
+        assertThat(redis.stream().autoClaim("stream", "group", "consumer2", Duration.ZERO, 10)).isEmpty();
+    }
+
+    @Test
+    void addWithMaxLength() {
+        redis.stream().createGroup("stream", "group");
+        redis.stream().add("stream", Map.of("f1", "v1"), 1);
+        redis.stream().add("stream", Map.of("f1", "v2"), 1);
+
+        List<StreamEntry> entries = redis.stream().readGroup("stream", "group", "consumer", 10);
+        assertThat(entries).hasSize(1);
+        assertThat(entries.get(0).fields).containsEntry("f1", "v2");
+    }
+}
@@ -4,10 +4,12 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.Duration;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.api.Assertions.entry;
 
 /**
@@ -103,4 +105,27 @@ class MockRedisTest {
         assertThat(redis.get("key7")).isEqualTo("value7");
         assertThat(redis.get("key8")).isEqualTo("value8");
     }
+
+    @Test
+    void compareAndDeleteScript() {
+        redis.set("key10", "token1");
+        var script = redis.script(MockRedisScript.COMPARE_AND_DELETE);
+
+        assertThat(script.evalLong(List.of("key10"), "token2")).isEqualTo(0);
+        assertThat(redis.get("key10")).isEqualTo("token1");
+        assertThat(script.evalLong(List.of("key10"), "token1")).isEqualTo(1);
+        assertThat(redis.get("key10")).isNull();
+    }
+
+    @Test
+    void script() {
+        var script = redis.script("return redis.call('GET', KEYS[1])");
+        assertThatThrownBy(() -> script.evalString(List.of("key11")))
+                .isInstanceOf(Error.class)
+                .hasMessageContaining("script is not supported by mock redis");
+
+        redis.script("return redis.call('GET', KEYS[1])", (keys, arguments) -> redis.get(keys.get(0)));
+        redis.set("key11", "value11");
+        assertThat(script.evalString(List.of("key11"))).isEqualTo("value11");
+    }
 }
@@ -1,6 +1,7 @@
 package core.framework.cache;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Function;
 
@@ -14,6 +15,9 @@ public interface Cache<T> {
 
     Map<String, T> getAll(Collection<String> keys, Function<String, T> loader);
 
+    // pass all missing keys to one loader call, e.g. query with "id IN (...)", loader must return values of all given keys
+    Map<String, T> bulkGetAll(Collection<String> keys, Function<List<String>, Map<String, T>> loader);
+
     void put(String key, T value);
 
     void putAll(Map<String, T> values);
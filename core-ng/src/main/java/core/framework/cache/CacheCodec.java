@@ -0,0 +1,14 @@
+package core.framework.cache;
+
+import java.io.IOException;
+
+/**
+ * @author neo
+ */
+public interface CacheCodec<T> {
+    byte[] encode(T value);
+
+    // value decoded by codec is not validated, so codec must guarantee the shape,
+    // throw IOException if bytes can not be decoded (e.g. written by other version of codec), then value will be reloaded
+    T decode(byte[] bytes, int offset, int length) throws IOException;
+}
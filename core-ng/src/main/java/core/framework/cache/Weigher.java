@@ -0,0 +1,10 @@
+package core.framework.cache;
+
+/**
+ * @author neo
+ */
+@FunctionalInterface
+public interface Weigher<T> {
+    // estimated heap size of cache value in bytes, used by local cache store to evict by weight
+    int weigh(T value);
+}
@@ -5,6 +5,7 @@ import core.framework.internal.log.LogManager;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * @author neo
@@ -30,10 +31,33 @@ public interface Database {
         }
     }
 
+    /**
+     * for read only action which tolerates replication lag, e.g. search or report api, route reads to replicas configured by db().replicas(),
+     * includes select/selectOne/forEach and repository get/select/count, reads within transaction always go to primary,
+     * it takes effect for current action only<p>
+     * e.g.
+     * <blockquote><pre>
+     * Database.readFromReplica(true);
+     * List&lt;Order&gt; orders = orderRepository.select("customer_id = ?", customerId);
+     * </pre></blockquote>
+     *
+     * @param replica whether read from replica
+     */
+    static void readFromReplica(boolean replica) {
+        ActionLog actionLog = LogManager.CURRENT_ACTION_LOG.get();
+        if (actionLog != null) {
+            actionLog.readFromReplica = replica;
+        }
+    }
+
     <T> List<T> select(String sql, Class<T> viewClass, Object... params);
 
     <T> Optional<T> selectOne(String sql, Class<T> viewClass, Object... params);
 
+    // stream rows to consumer one by one without loading all into memory, e.g. export or sync large table,
+    // with mysql, connection is occupied until all rows consumed, consumer must not query db within same transaction
+    <T> void forEach(String sql, Class<T> viewClass, Consumer<T> consumer, Object... params);
+
     int execute(String sql, Object... params);
 
     // for bulk update operations, you may want to enclose it with Transaction to improve performance
@@ -2,6 +2,7 @@ package core.framework.db;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * @author neo
@@ -21,6 +22,20 @@ public interface Query<T> {
 
     Optional<T> fetchOne();
 
+    // stream results to consumer one by one, refer to Database.forEach()
+    void forEach(Consumer<T> consumer);
+
+    // keyset pagination orders rows by primary keys, or by (column, primary keys) if keyset column is specified, the column must be covered by index and not null
+    // it must not be used with orderBy or skip, e.g. query.keyset("updated_time"); query.after(lastRow.updatedTime, lastRow.id); query.limit(100);
+    void keyset(String column);
+
+    // only fetch rows after lastKey, which is keyset values of last row of previous page, each page costs one index seek instead of scanning skipped rows
+    void after(Object... lastKey);
+
+    // iterate matched rows in keyset order chunk by chunk, each chunk is fetched by one query seeking after last row of previous chunk,
+    // e.g. for (List<T> rows : query.chunks(1000)) { ... }
+    Iterable<List<T>> chunks(int size);
+
     <P> Optional<P> project(String projection, Class<P> viewClass);
 
     // refer to https://dev.mysql.com/doc/refman/8.0/en/group-by-functions.html#function_count, count function return BIGINT
@@ -1,10 +1,15 @@
 package core.framework.internal.cache;
 
+import core.framework.cache.CacheCodec;
+import core.framework.cache.Weigher;
 import core.framework.internal.json.JSONMapper;
 import core.framework.internal.json.JSONReader;
 import core.framework.internal.json.JSONWriter;
 import core.framework.internal.validate.Validator;
 
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
 /**
  * @author neo
  */
@@ -14,10 +19,24 @@ public class CacheContext<T> {
     // only validate when retrieve cache from store, in case data in cache store is stale, e.g. the class structure is changed but still got old data from cache
     // it's opposite as DB, which only validate on save
     final Validator<T> validator;
+    final CacheStats stats = new CacheStats();
+    Duration duration;          // expiration in cache store, includes max stale time, local copy of redis value lives at most this duration if it's not invalidated by redis
+    Weigher<T> weigher;         // estimate heap size of local cache value, default to json length
+    long maxLocalWeight;        // max weight in bytes of this cache in local cache store, 0 means no limit
+    final AtomicLong localWeight = new AtomicLong();     // updated under local cache store lock, read by metrics without lock
+    final LocalCacheStore.CacheQueue localQueue = new LocalCacheStore.CacheQueue();     // items of this cache in access order, guarded by local cache store lock
+    CacheCodec<T> codec;        // encode value in redis or off heap store, null means json
+    int compressionThreshold;   // compress value in redis if encoded size is larger than threshold, 0 means no compression
 
-    CacheContext(Class<T> cacheClass) {
+    CacheContext(Class<T> cacheClass, Duration duration) {
+        this.duration = duration;
         reader = JSONMapper.reader(cacheClass);
         writer = JSONMapper.writer(cacheClass);
         validator = Validator.of(cacheClass);
     }
+
+    int weigh(T value) {
+        if (weigher != null) return weigher.weigh(value);
+        return writer.toJSON(value).length;     // json is more compact than object graph in heap, but it's proportional and no need to traverse by reflection
+    }
 }
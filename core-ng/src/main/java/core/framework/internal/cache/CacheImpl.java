@@ -1,59 +1,163 @@
 package core.framework.internal.cache;
 
+import core.framework.async.Executor;
 import core.framework.cache.Cache;
+import core.framework.cache.CacheCodec;
+import core.framework.cache.Weigher;
 import core.framework.internal.log.ActionLog;
 import core.framework.internal.log.LogManager;
 import core.framework.util.Maps;
+import core.framework.util.StopWatch;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.annotation.Nullable;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.function.Function;
 
+import static core.framework.log.Markers.errorCode;
+
 /**
  * @author neo
  */
 public class CacheImpl<T> implements Cache<T> {
+    private static final long LEASE_POLL_INTERVAL_IN_MS = 20;
+
     public final String name;
     public final Class<T> cacheClass;
     public final Duration duration;
 
     final CacheContext<T> context;
+    final Map<String, CompletableFuture<T>> loadings = new ConcurrentHashMap<>();    // cacheKey -> in flight loading, to load same key only once within jvm
+    final Set<String> refreshings = ConcurrentHashMap.newKeySet();                  // cacheKeys being refreshed in background
     private final Logger logger = LoggerFactory.getLogger(CacheImpl.class);
 
     public CacheStore cacheStore;
+    public Duration maxLoadWaitTime = Duration.ofSeconds(15);    // load by itself after wait time, not to block all callers of same key by hanging loader, default is same as db query timeout
+    long refreshAheadTimeInMs;          // reload in background if value is read within this time before expiration, 0 means disabled
+    long maxStaleTimeInMs;              // expired value is kept this long to serve if loader fails, 0 means disabled
+    Executor refreshExecutor;
+    RedisCacheStore leaseStore;         // only one node loads missing key if not null, others wait for value put by lease holder
+    Duration leaseTime;
 
     public CacheImpl(String name, Class<T> cacheClass, Duration duration) {
         this.name = name;
         this.cacheClass = cacheClass;
         this.duration = duration;
-        context = new CacheContext<>(cacheClass);
+        context = new CacheContext<>(cacheClass, duration);
+    }
+
+    public void weigher(Weigher<T> weigher) {
+        context.weigher = weigher;
+    }
+
+    public void maxLocalWeight(long maxLocalWeight) {
+        if (maxLocalWeight <= 0) throw new Error("max local weight must be greater than 0, value=" + maxLocalWeight);
+        context.maxLocalWeight = maxLocalWeight;
+    }
+
+    public long localWeight() {
+        return context.localWeight.get();
+    }
+
+    public CacheStats stats() {
+        return context.stats;
+    }
+
+    public void codec(CacheCodec<T> codec) {
+        context.codec = codec;
+    }
+
+    public void compress(int threshold) {
+        if (threshold <= 0) throw new Error("compression threshold must be greater than 0, value=" + threshold);
+        context.compressionThreshold = threshold;
+    }
+
+    public void refreshAhead(double ratio, Executor executor) {
+        if (ratio <= 0 || ratio >= 1) throw new Error("refresh ahead ratio must be between 0 and 1, value=" + ratio);
+        refreshAheadTimeInMs = (long) (duration.toMillis() * ratio);
+        refreshExecutor = executor;
+    }
+
+    public void staleOnError(Duration maxStaleTime) {
+        maxStaleTimeInMs = maxStaleTime.toMillis();
+        context.duration = duration.plus(maxStaleTime);     // keep value in store after expiration
+    }
+
+    public void distributedLoad(RedisCacheStore leaseStore, Duration maxWaitTime) {
+        if (maxWaitTime.toMillis() <= 0) throw new Error("max wait time must be greater than 0, value=" + maxWaitTime);
+        this.leaseStore = leaseStore;
+        leaseTime = maxWaitTime;
     }
 
     @Override
     public T get(String key, Function<String, T> loader) {
         String cacheKey = cacheKey(key);
         T cacheValue = cacheStore.get(cacheKey, context);
+        T staleValue = null;
         if (cacheValue != null) {
-            stat("cache_hits", 1);
-            return cacheValue;
+            if (!checkExpiration() || fresh(key, cacheKey, cacheStore.expirationTime(cacheKey)[0], loader)) {
+                stat("cache_hits", 1);
+                context.stats.hits.increment();
+                return cacheValue;
+            }
+            staleValue = cacheValue;
         }
 
-        logger.debug("load value, key={}", key);
-        T value = load(loader, key);
-        cacheStore.put(cacheKey, value, duration, context);
-        stat("cache_misses", 1);
-        return value;
+        var loading = new Loading<T>();
+        CompletableFuture<T> previous = loadings.putIfAbsent(cacheKey, loading);
+        if (previous != null) {
+            T value = await(key, previous);
+            if (value != null) return value;
+        }
+
+        String leaseToken = null;
+        try {
+            T value = null;
+            if (leaseStore != null) {
+                leaseToken = leaseStore.acquireLease(cacheKey, leaseTime);
+                if (leaseToken == null) value = awaitLease(key, cacheKey);
+            }
+            if (value == null) {
+                logger.debug("load value, key={}", key);
+                value = load(loader, key);
+                cacheStore.put(cacheKey, value, context.duration, context);
+                stat("cache_misses", 1);
+                context.stats.misses.increment();
+            }
+            loading.complete(value);
+            return value;
+        } catch (Throwable e) {
+            if (staleValue != null) {
+                loading.complete(staleValue);
+                return stale(key, staleValue, e);
+            }
+            loading.completeExceptionally(e);
+            throw e;
+        } finally {
+            if (leaseToken != null) leaseStore.releaseLease(cacheKey, leaseToken);
+            if (previous == null) loadings.remove(cacheKey, loading);
+        }
     }
 
     public Optional<T> get(String key) {
-        T result = cacheStore.get(cacheKey(key), context);
+        String cacheKey = cacheKey(key);
+        T result = cacheStore.get(cacheKey, context);
         if (result == null) return Optional.empty();
+        if (maxStaleTimeInMs > 0 && !fresh(cacheStore.expirationTime(cacheKey)[0])) return Optional.empty();   // stale value is only served if loader failed
         return Optional.of(result);
     }
 
@@ -64,29 +168,179 @@ public class CacheImpl<T> implements Cache<T> {
         String[] cacheKeys = cacheKeys(keys);
         Map<String, T> values = Maps.newHashMapWithExpectedSize(size);
         List<CacheStore.Entry<T>> newValues = new ArrayList<>(size);
+        Map<String, CompletableFuture<T>> ownLoadings = new HashMap<>();     // cacheKey -> loading
+        Map<String, CompletableFuture<T>> otherLoadings = null;             // key -> loading by other thread
         Map<String, T> cacheValues = cacheStore.getAll(cacheKeys, context);
-        stat("cache_hits", cacheValues.size());
-        for (String key : keys) {
-            String cacheKey = cacheKeys[index];
-            T result = cacheValues.get(cacheKey);
+        long[] expirationTimes = !cacheValues.isEmpty() && checkExpiration() ? cacheStore.expirationTime(cacheKeys) : null;
+        int hits = 0;
+        try {
+            for (String key : keys) {
+                String cacheKey = cacheKeys[index];
+                T result = cacheValues.get(cacheKey);
+                T staleValue = null;
+                if (result != null && expirationTimes != null && !fresh(key, cacheKey, expirationTimes[index], loader)) {
+                    staleValue = result;
+                    result = null;
+                }
+                index++;
+                if (result != null) {
+                    hits++;
+                } else {
+                    var loading = new Loading<T>();
+                    CompletableFuture<T> previous = loadings.putIfAbsent(cacheKey, loading);
+                    if (previous == null) {
+                        ownLoadings.put(cacheKey, loading);
+                    } else if (!ownLoadings.containsKey(cacheKey)) {    // keys may contain duplicates
+                        if (otherLoadings == null) otherLoadings = new HashMap<>();
+                        otherLoadings.put(key, previous);
+                        continue;
+                    }
+                    logger.debug("load value, key={}", key);
+                    try {
+                        result = load(loader, key);
+                        newValues.add(new CacheStore.Entry<>(cacheKey, result));
+                    } catch (Throwable e) {
+                        if (staleValue == null) throw e;
+                        result = stale(key, staleValue, e);
+                        ownLoadings.get(cacheKey).complete(result);
+                    }
+                }
+                values.put(key, result);
+            }
+            stat("cache_hits", hits);
+            context.stats.hits.add(hits);
+            if (!newValues.isEmpty()) {
+                cacheStore.putAll(newValues, context.duration, context);
+                stat("cache_misses", newValues.size());
+                context.stats.misses.add(newValues.size());
+                for (CacheStore.Entry<T> entry : newValues) {
+                    ownLoadings.get(entry.key).complete(entry.value);
+                }
+            }
+        } catch (Throwable e) {
+            for (CompletableFuture<T> loading : ownLoadings.values()) {
+                loading.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            for (Map.Entry<String, CompletableFuture<T>> entry : ownLoadings.entrySet()) {
+                loadings.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        if (otherLoadings != null) awaitAll(otherLoadings, loader, values);
+        return values;
+    }
+
+    @Override
+    public Map<String, T> bulkGetAll(Collection<String> keys, Function<List<String>, Map<String, T>> loader) {
+        Function<String, T> singleLoader = key -> bulkLoad(loader, List.of(key)).get(key);     // for background refresh and timed out waiting
+        int index = 0;
+        String[] cacheKeys = cacheKeys(keys);
+        Map<String, T> values = Maps.newHashMapWithExpectedSize(keys.size());
+        Map<String, String> missingKeys = new LinkedHashMap<>();            // key -> cacheKey, to load by own
+        Map<String, CompletableFuture<T>> ownLoadings = new HashMap<>();     // cacheKey -> loading
+        Map<String, CompletableFuture<T>> otherLoadings = null;             // key -> loading by other thread
+        Map<String, T> staleValues = null;
+        Map<String, T> cacheValues = cacheStore.getAll(cacheKeys, context);
+        long[] expirationTimes = !cacheValues.isEmpty() && checkExpiration() ? cacheStore.expirationTime(cacheKeys) : null;
+        int hits = 0;
+        try {
+            for (String key : keys) {
+                String cacheKey = cacheKeys[index];
+                T result = cacheValues.get(cacheKey);
+                if (result != null && expirationTimes != null && !fresh(key, cacheKey, expirationTimes[index], singleLoader)) {
+                    if (staleValues == null) staleValues = new HashMap<>();
+                    staleValues.put(key, result);
+                    result = null;
+                }
+                index++;
+                if (result != null) {
+                    hits++;
+                    values.put(key, result);
+                } else if (!missingKeys.containsKey(key)) {     // keys may contain duplicates
+                    var loading = new Loading<T>();
+                    CompletableFuture<T> previous = loadings.putIfAbsent(cacheKey, loading);
+                    if (previous == null) {
+                        ownLoadings.put(cacheKey, loading);
+                        missingKeys.put(key, cacheKey);
+                    } else {
+                        if (otherLoadings == null) otherLoadings = new HashMap<>();
+                        otherLoadings.put(key, previous);
+                    }
+                }
+            }
+            stat("cache_hits", hits);
+            context.stats.hits.add(hits);
+            if (!missingKeys.isEmpty()) loadMissingValues(missingKeys, loader, staleValues, ownLoadings, values);
+        } catch (Throwable e) {
+            for (CompletableFuture<T> loading : ownLoadings.values()) {
+                loading.completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            for (Map.Entry<String, CompletableFuture<T>> entry : ownLoadings.entrySet()) {
+                loadings.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        if (otherLoadings != null) awaitAll(otherLoadings, singleLoader, values);
+        return values;
+    }
+
+    private void loadMissingValues(Map<String, String> missingKeys, Function<List<String>, Map<String, T>> loader, Map<String, T> staleValues,
+                                   Map<String, CompletableFuture<T>> ownLoadings, Map<String, T> values) {
+        logger.debug("load values, keys={}", missingKeys.keySet());
+        Map<String, T> loadedValues;
+        try {
+            loadedValues = bulkLoad(loader, new ArrayList<>(missingKeys.keySet()));
+        } catch (Throwable e) {
+            if (staleValues == null || !staleValues.keySet().containsAll(missingKeys.keySet())) throw e;
+            for (Map.Entry<String, String> entry : missingKeys.entrySet()) {
+                T value = stale(entry.getKey(), staleValues.get(entry.getKey()), e);
+                ownLoadings.get(entry.getValue()).complete(value);
+                values.put(entry.getKey(), value);
+            }
+            return;
+        }
+        List<CacheStore.Entry<T>> newValues = new ArrayList<>(missingKeys.size());
+        for (Map.Entry<String, String> entry : missingKeys.entrySet()) {
+            String key = entry.getKey();
+            T value = loadedValues.get(key);
+            if (value == null) throw new Error("value must not be null, key=" + key);
+            newValues.add(new CacheStore.Entry<>(entry.getValue(), value));
+            values.put(key, value);
+        }
+        cacheStore.putAll(newValues, context.duration, context);
+        stat("cache_misses", newValues.size());
+        context.stats.misses.add(newValues.size());
+        for (CacheStore.Entry<T> entry : newValues) {
+            ownLoadings.get(entry.key).complete(entry.value);
+        }
+    }
+
+    // only wait after own loadings are completed, to avoid two threads wait for each other
+    private void awaitAll(Map<String, CompletableFuture<T>> otherLoadings, Function<String, T> loader, Map<String, T> values) {
+        List<CacheStore.Entry<T>> newValues = null;
+        for (Map.Entry<String, CompletableFuture<T>> entry : otherLoadings.entrySet()) {
+            String key = entry.getKey();
+            T result = await(key, entry.getValue());
             if (result == null) {
                 logger.debug("load value, key={}", key);
                 result = load(loader, key);
-                newValues.add(new CacheStore.Entry<>(cacheKey, result));
+                if (newValues == null) newValues = new ArrayList<>();
+                newValues.add(new CacheStore.Entry<>(cacheKey(key), result));
             }
             values.put(key, result);
-            index++;
         }
-        if (!newValues.isEmpty()) {
-            cacheStore.putAll(newValues, duration, context);
+        if (newValues != null) {
+            cacheStore.putAll(newValues, context.duration, context);
             stat("cache_misses", newValues.size());
+            context.stats.misses.add(newValues.size());
         }
-        return values;
     }
 
     @Override
     public void put(String key, T value) {
-        cacheStore.put(cacheKey(key), value, duration, context);
+        cacheStore.put(cacheKey(key), value, context.duration, context);
     }
 
     @Override
@@ -95,7 +349,7 @@ public class CacheImpl<T> implements Cache<T> {
         for (Map.Entry<String, T> entry : values.entrySet()) {
             cacheValues.add(new CacheStore.Entry<>(cacheKey(entry.getKey()), entry.getValue()));
         }
-        cacheStore.putAll(cacheValues, duration, context);
+        cacheStore.putAll(cacheValues, context.duration, context);
     }
 
     @Override
@@ -123,8 +377,111 @@ public class CacheImpl<T> implements Cache<T> {
         return name + ":" + key;
     }
 
+    // return null if timed out
+    @Nullable
+    private T await(String key, CompletableFuture<T> loading) {
+        if (loading instanceof Loading && ((Loading<?>) loading).thread == Thread.currentThread()) {   // waiting for own loading never completes
+            throw new Error("loader must not get same key recursively, key=" + key);
+        }
+        logger.debug("wait for value loaded by other thread, key={}", key);
+        stat("cache_waits", 1);
+        try {
+            return loading.get(maxLoadWaitTime.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            logger.debug("timed out waiting for value loaded by other thread, key={}", key);
+            return null;
+        } catch (ExecutionException e) {    // loader only throws unchecked exception
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw (Error) cause;
+        } catch (InterruptedException e) {
+            throw new Error("interrupted during waiting for value loaded by other thread", e);
+        }
+    }
+
+    // poll value put by lease holder on other node, return null if not loaded within lease time
+    @Nullable
+    private T awaitLease(String key, String cacheKey) {
+        logger.debug("wait for value loaded by other node, key={}", key);
+        stat("cache_lease_waits", 1);
+        long end = System.currentTimeMillis() + leaseTime.toMillis();
+        try {
+            while (true) {
+                Thread.sleep(LEASE_POLL_INTERVAL_IN_MS);
+                T value = cacheStore.get(cacheKey, context);
+                if (value != null && (maxStaleTimeInMs == 0 || fresh(cacheStore.expirationTime(cacheKey)[0]))) return value;     // skip stale value kept for stale on error
+                if (System.currentTimeMillis() >= end) break;
+            }
+        } catch (InterruptedException e) {
+            throw new Error("interrupted during waiting for value loaded by other node", e);
+        }
+        logger.debug("timed out waiting for value loaded by other node, key={}", key);
+        return null;
+    }
+
+    private boolean checkExpiration() {
+        return refreshAheadTimeInMs > 0 || maxStaleTimeInMs > 0;
+    }
+
+    // return false if value is expired and only kept to serve on loader error, trigger background refresh if value is about to expire
+    private boolean fresh(String key, String cacheKey, long expirationTime, Function<String, T> loader) {
+        if (!fresh(expirationTime)) return false;
+        if (expirationTime >= 0 && expirationTime - maxStaleTimeInMs <= refreshAheadTimeInMs) refresh(key, cacheKey, loader);
+        return true;
+    }
+
+    private boolean fresh(long expirationTime) {
+        if (expirationTime < 0) return true;    // key may be deleted after read, or failed to get ttl, treat as fresh
+        return expirationTime - maxStaleTimeInMs > 0;
+    }
+
+    private void refresh(String key, String cacheKey, Function<String, T> loader) {
+        if (!refreshings.add(cacheKey)) return;     // only one background refresh for each key
+        logger.debug("refresh value in background, key={}", key);
+        stat("cache_refreshes", 1);
+        context.stats.refreshes.increment();
+        try {
+            refreshExecutor.submit("cache/refresh/" + name, () -> {
+                try {
+                    T value = load(loader, key);
+                    cacheStore.put(cacheKey, value, context.duration, context);
+                } finally {
+                    refreshings.remove(cacheKey);
+                }
+            });
+        } catch (Throwable e) {
+            refreshings.remove(cacheKey);
+            throw e;
+        }
+    }
+
+    private T stale(String key, T staleValue, Throwable e) {
+        logger.warn(errorCode("CACHE_STALE_VALUE"), "failed to load value, use stale value, key={}, error={}", key, e.getMessage(), e);
+        stat("cache_stales", 1);
+        context.stats.stales.increment();
+        return staleValue;
+    }
+
+    private Map<String, T> bulkLoad(Function<List<String>, Map<String, T>> loader, List<String> keys) {
+        var watch = new StopWatch();
+        Map<String, T> values;
+        try {
+            values = loader.apply(keys);
+        } finally {
+            context.stats.load(watch.elapsed());
+        }
+        if (values == null) throw new Error("values must not be null, keys=" + keys);
+        return values;
+    }
+
     private T load(Function<String, T> loader, String key) {
-        T value = loader.apply(key);
+        var watch = new StopWatch();
+        T value;
+        try {
+            value = loader.apply(key);
+        } finally {
+            context.stats.load(watch.elapsed());
+        }
         if (value == null) throw new Error("value must not be null, key=" + key);
         return value;
     }
@@ -136,4 +493,8 @@ public class CacheImpl<T> implements Cache<T> {
             actionLog.stats.compute(key, (k, oldValue) -> (oldValue == null) ? value : oldValue + value);
         }
     }
+
+    static class Loading<T> extends CompletableFuture<T> {
+        final Thread thread = Thread.currentThread();   // thread which loads value
+    }
 }
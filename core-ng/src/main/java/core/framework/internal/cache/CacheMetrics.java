@@ -0,0 +1,37 @@
+package core.framework.internal.cache;
+
+import core.framework.internal.stat.Metrics;
+import core.framework.internal.stat.Stats;
+
+import java.util.Map;
+
+/**
+ * @author neo
+ */
+public class CacheMetrics implements Metrics {
+    private final Map<String, CacheImpl<?>> caches;
+
+    public CacheMetrics(Map<String, CacheImpl<?>> caches) {
+        this.caches = caches;
+    }
+
+    @Override
+    public void collect(Stats stats) {
+        for (CacheImpl<?> cache : caches.values()) {
+            CacheStats cacheStats = cache.stats();
+            stats.put(statName(cache.name, "hits"), cacheStats.hits.sum());
+            stats.put(statName(cache.name, "misses"), cacheStats.misses.sum());
+            stats.put(statName(cache.name, "local_hits"), cacheStats.localHits.sum());
+            stats.put(statName(cache.name, "loads"), cacheStats.loads.sum());
+            stats.put(statName(cache.name, "load_elapsed"), cacheStats.loadElapsed.sum());
+            stats.put(statName(cache.name, "load_max_elapsed"), cacheStats.maxLoadElapsed());
+            stats.put(statName(cache.name, "refreshes"), cacheStats.refreshes.sum());
+            stats.put(statName(cache.name, "stales"), cacheStats.stales.sum());
+            stats.put(statName(cache.name, "evictions"), cacheStats.evictions.sum());
+        }
+    }
+
+    String statName(String name, String statName) {
+        return "cache_" + name + '_' + statName;
+    }
+}
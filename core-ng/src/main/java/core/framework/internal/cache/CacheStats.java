@@ -0,0 +1,32 @@
+package core.framework.internal.cache;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * cumulative stats of cache since startup
+ *
+ * @author neo
+ */
+public class CacheStats {
+    public final LongAdder hits = new LongAdder();
+    public final LongAdder misses = new LongAdder();
+    public final LongAdder localHits = new LongAdder();      // hits served by local copy of redis().local() cache, others are served by redis
+    public final LongAdder loads = new LongAdder();          // loader calls, includes background refreshes
+    public final LongAdder loadElapsed = new LongAdder();    // total elapsed of loader calls in nanos
+    public final LongAdder refreshes = new LongAdder();
+    public final LongAdder stales = new LongAdder();
+    public final LongAdder evictions = new LongAdder();      // evicted from local cache store by size or weight limit
+    private final AtomicLong maxLoadElapsed = new AtomicLong();
+
+    void load(long elapsed) {
+        loads.increment();
+        loadElapsed.add(elapsed);
+        maxLoadElapsed.accumulateAndGet(elapsed, Math::max);
+    }
+
+    // max elapsed of loader calls since last collect
+    public long maxLoadElapsed() {
+        return maxLoadElapsed.getAndSet(0);
+    }
+}
@@ -18,6 +18,9 @@ public interface CacheStore {   // all keys here are direct cacheKey, not the ke
 
     boolean delete(String... keys);
 
+    // remaining time to live in ms, same as redis PTTL, negative if key does not exist or ttl is unknown
+    long[] expirationTime(String... keys);
+
     class Entry<T> {
         final String key;
         final T value;
@@ -0,0 +1,85 @@
+package core.framework.internal.cache;
+
+/**
+ * count-min sketch with 4-bit counters to estimate access frequency of keys, all counters are halved after every sampleSize increments,
+ * so frequency reflects recent popularity, refer to https://arxiv.org/abs/1512.00727 (TinyLFU)
+ *
+ * not thread safe, caller must synchronize
+ *
+ * @author neo
+ */
+class FrequencySketch {
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final long ONE_MASK = 0x1111111111111111L;
+
+    private final long[] table;     // each long holds 16 counters
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    FrequencySketch(int maxSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, Math.min(maxSize, 1 << 30)) - 1) << 1;   // next power of 2
+        table = new long[capacity];
+        tableMask = capacity - 1;
+        sampleSize = maxSize > Integer.MAX_VALUE / 10 ? Integer.MAX_VALUE : Math.max(10, 10 * maxSize);
+    }
+
+    // frequency is capped at 15
+    int frequency(int hashCode) {
+        int hash = spread(hashCode);
+        int start = (hash & 3) << 2;
+        int frequency = Integer.MAX_VALUE;
+        for (int i = 0; i < 4; i++) {
+            int offset = (start + i) << 2;
+            int count = (int) ((table[indexOf(hash, i)] >>> offset) & 0xFL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    void increment(int hashCode) {
+        int hash = spread(hashCode);
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added) {
+            size++;
+            if (size >= sampleSize) reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int counter) {
+        int offset = counter << 2;
+        long mask = 0xFL << offset;
+        if ((table[index] & mask) != mask) {
+            table[index] += 1L << offset;
+            return true;
+        }
+        return false;
+    }
+
+    // halve all counters, size is adjusted by odd counters which lose 1/2 by truncation
+    void reset() {
+        int odd = 0;
+        for (int i = 0; i < table.length; i++) {
+            odd += Long.bitCount(table[i] & ONE_MASK);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (odd >>> 2);
+    }
+
+    private int indexOf(int hash, int i) {
+        long value = (hash + SEEDS[i]) * SEEDS[i];
+        value += value >>> 32;
+        return (int) value & tableMask;
+    }
+
+    private int spread(int hashCode) {
+        int value = ((hashCode >>> 16) ^ hashCode) * 0x45d9f3b;
+        value = ((value >>> 16) ^ value) * 0x45d9f3b;
+        return (value >>> 16) ^ value;
+    }
+}
@@ -0,0 +1,136 @@
+package core.framework.internal.cache;
+
+import core.framework.internal.json.JSONWriter;
+import core.framework.internal.redis.RedisException;
+import core.framework.internal.redis.RedisImpl;
+import core.framework.util.Network;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static core.framework.log.Markers.errorCode;
+
+/**
+ * coalesce invalidated keys within short window into one message, and publish in background,
+ * e.g. batch job updates massive keys will not publish and handle one message per key on every node
+ *
+ * @author neo
+ */
+public class InvalidateLocalCacheMessagePublisher extends Thread {
+    static final int MAX_KEYS_PER_MESSAGE = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(InvalidateLocalCacheMessagePublisher.class);
+    private final JSONWriter<InvalidateLocalCacheMessage> writer = new JSONWriter<>(InvalidateLocalCacheMessage.class);
+    private final RedisImpl redis;
+    private final long windowInNanos;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition keysAdded = lock.newCondition();
+    private Set<String> keys = new LinkedHashSet<>();     // guarded by lock
+    private volatile boolean stop;
+
+    public InvalidateLocalCacheMessagePublisher(RedisImpl redis, Duration window) {
+        super("cache-invalidate-publisher");
+        this.redis = redis;
+        windowInNanos = window.toNanos();
+    }
+
+    public void publish(Collection<String> keys) {
+        lock.lock();
+        try {
+            boolean empty = this.keys.isEmpty();
+            this.keys.addAll(keys);
+            if (empty) keysAdded.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void run() {
+        logger.info("invalidate local cache message publisher started, window={}", Duration.ofNanos(windowInNanos));
+        while (!stop) {
+            try {
+                Set<String> keys = take();
+                if (keys != null) send(keys);
+            } catch (Throwable e) {
+                logger.warn("failed to publish invalidate local cache message, error={}", e.getMessage(), e);
+            }
+        }
+        Set<String> keys = drain();     // publish remaining keys before stop
+        if (!keys.isEmpty()) send(keys);
+        logger.info("invalidate local cache message publisher stopped");
+    }
+
+    // wait for first key, then wait for window to collect more keys
+    private Set<String> take() throws InterruptedException {
+        lock.lock();
+        try {
+            while (this.keys.isEmpty()) {
+                if (stop) return null;
+                keysAdded.await();
+            }
+            long nanos = windowInNanos;
+            while (nanos > 0 && !stop) {
+                nanos = keysAdded.awaitNanos(nanos);
+            }
+            return drain();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Set<String> drain() {
+        lock.lock();
+        try {
+            Set<String> keys = this.keys;
+            this.keys = new LinkedHashSet<>();
+            return keys;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    void send(Set<String> keys) {
+        List<String> messageKeys = new ArrayList<>(Math.min(keys.size(), MAX_KEYS_PER_MESSAGE));
+        for (String key : keys) {
+            messageKeys.add(key);
+            if (messageKeys.size() == MAX_KEYS_PER_MESSAGE) {
+                publishMessage(messageKeys);
+                messageKeys = new ArrayList<>(MAX_KEYS_PER_MESSAGE);
+            }
+        }
+        if (!messageKeys.isEmpty()) publishMessage(messageKeys);
+    }
+
+    private void publishMessage(List<String> keys) {
+        try {
+            var message = new InvalidateLocalCacheMessage();
+            message.keys = keys;
+            message.clientIP = Network.LOCAL_HOST_ADDRESS;
+            redis.pubSub().publish(RedisLocalCacheStore.CHANNEL_INVALIDATE_CACHE, writer.toJSON(message));
+        } catch (UncheckedIOException | RedisException e) {
+            logger.warn(errorCode("CACHE_STORE_FAILED"), "failed to connect to redis, error={}", e.getMessage(), e);
+        }
+    }
+
+    public void close(long timeoutInMs) throws InterruptedException {
+        logger.info("stopping invalidate local cache message publisher");
+        stop = true;
+        lock.lock();
+        try {
+            keysAdded.signal();
+        } finally {
+            lock.unlock();
+        }
+        join(timeoutInMs);
+    }
+}
@@ -16,5 +16,6 @@ public class LocalCacheMetrics implements Metrics {
     @Override
     public void collect(Stats stats) {
         stats.put("cache_size", cacheStore.caches.size());
+        stats.put("cache_weight", cacheStore.weight());
     }
 }
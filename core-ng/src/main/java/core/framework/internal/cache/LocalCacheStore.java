@@ -6,17 +6,71 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * W-TinyLFU eviction, refer to https://arxiv.org/abs/1512.00727,
+ * new items enter small LRU window, items evicted from window compete with LRU victim of main space by estimated frequency,
+ * main space is segmented into probation and protected, items accessed in probation are promoted to protected,
+ * so one time scan won't flush frequently used items, and maxSize is enforced on every write,
+ * item weight is estimated on put, maxWeight limits total weight of all caches, and CacheContext.maxLocalWeight limits weight of each cache,
+ * weight is only estimated if weight limit or weigher is configured, default weigher serializes value to json, which is too expensive for every put
+ *
  * @author neo
  */
 public class LocalCacheStore implements CacheStore {
     final Map<String, CacheItem<?>> caches = Maps.newConcurrentHashMap();
     private final Logger logger = LoggerFactory.getLogger(LocalCacheStore.class);
-    public int maxSize = 10000;  // 10000 simple objects roughly takes 1M-10M heap + hashmap overhead
+
+    // all policy state is guarded by lock, reads only record access if lock is available, it's ok to lose some accesses under contention
+    private final ReentrantLock lock = new ReentrantLock();
+    private final AccessQueue window = new AccessQueue();
+    private final AccessQueue probation = new AccessQueue();
+    private final AccessQueue protectedQueue = new AccessQueue();
+    private FrequencySketch sketch;
+    private int maxSize;
+    private int windowMaxSize;
+    private int protectedMaxSize;
+    private volatile long maxWeight;    // 0 means no limit, read outside lock on put
+    private long weight;
+
+    public LocalCacheStore() {
+        configure(10000);   // 10000 simple objects roughly takes 1M-10M heap + hashmap overhead
+    }
+
+    public void maxSize(int maxSize) {
+        if (maxSize <= 0) throw new Error("max size must be greater than 0, value=" + maxSize);
+        lock.lock();
+        try {
+            configure(maxSize);
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void maxWeight(long maxWeight) {
+        if (maxWeight <= 0) throw new Error("max weight must be greater than 0, value=" + maxWeight);
+        lock.lock();
+        try {
+            this.maxWeight = maxWeight;
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void configure(int maxSize) {
+        this.maxSize = maxSize;
+        windowMaxSize = Math.max(1, maxSize / 100);    // 1% window, 99% main space, and 80% of main space is protected
+        protectedMaxSize = (maxSize - windowMaxSize) * 8 / 10;
+        sketch = new FrequencySketch(maxSize);
+    }
 
     @Override
     public <T> T get(String key, CacheContext<T> context) {
@@ -29,10 +83,16 @@ public class LocalCacheStore implements CacheStore {
         CacheItem<T> item = (CacheItem<T>) caches.get(key);
         if (item == null) return null;
         if (item.expired(now)) {
-            caches.remove(key);
+            remove(key, item);
             return null;
         }
-        item.hits++;
+        if (lock.tryLock()) {
+            try {
+                onAccess(item);
+            } finally {
+                lock.unlock();
+            }
+        }
         return item.value;
     }
 
@@ -52,15 +112,49 @@ public class LocalCacheStore implements CacheStore {
     public <T> void put(String key, T value, Duration expiration, CacheContext<T> context) {
         logger.debug("put, key={}, expiration={}", key, expiration);
         long expirationTime = System.currentTimeMillis() + expiration.toMillis();
-        caches.put(key, new CacheItem<>(value, expirationTime));
+        var item = new CacheItem<>(key, value, expirationTime, context, weigh(value, context));     // weigh outside lock
+        lock.lock();
+        try {
+            put(item);
+            evict();
+            evictOverweight(context);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(CacheItem<?> item) {
+        CacheItem<?> previous = caches.put(item.key, item);
+        if (previous != null) unlink(previous);
+        sketch.increment(item.key.hashCode());
+        window.add(item);
+        item.context.localQueue.add(item);
+        weight += item.weight;
+        item.context.localWeight.addAndGet(item.weight);
+    }
+
+    private <T> int weigh(T value, CacheContext<T> context) {
+        if (maxWeight <= 0 && context.maxLocalWeight <= 0 && context.weigher == null) return 0;
+        return context.weigh(value);
     }
 
     @Override
     public <T> void putAll(List<Entry<T>> values, Duration expiration, CacheContext<T> context) {
         logger.debug("putAll, keys={}, expiration={}", new ArrayLogParam(keys(values)), expiration);
         long expirationTime = System.currentTimeMillis() + expiration.toMillis();
+        List<CacheItem<T>> items = new ArrayList<>(values.size());
         for (Entry<T> value : values) {
-            caches.put(value.key, new CacheItem<>(value.value, expirationTime));
+            items.add(new CacheItem<>(value.key, value.value, expirationTime, context, weigh(value.value, context)));
+        }
+        lock.lock();
+        try {
+            for (CacheItem<T> item : items) {
+                put(item);
+            }
+            evict();
+            evictOverweight(context);
+        } finally {
+            lock.unlock();
         }
     }
 
@@ -78,64 +172,300 @@ public class LocalCacheStore implements CacheStore {
     public boolean delete(String... keys) {
         logger.debug("delete, keys={}", new ArrayLogParam(keys));
         boolean deleted = false;
-        for (String key : keys) {
-            CacheItem<?> previous = caches.remove(key);
-            if (!deleted && previous != null) deleted = true;
+        lock.lock();
+        try {
+            for (String key : keys) {
+                CacheItem<?> previous = caches.remove(key);
+                if (previous != null) {
+                    unlink(previous);
+                    deleted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
         }
         return deleted;
     }
 
-    public void cleanup() {    // cleanup is only called by background thread with fixed delay, not need to synchronize
-        logger.info("clean up local cache store");
+    @Override
+    public long[] expirationTime(String... keys) {
         long now = System.currentTimeMillis();
-        caches.values().removeIf(item -> item.expired(now));
-        int size = caches.size();
-        if (size > maxSize) {
-            logger.info("evict least frequently used cache items, currentSize={}, maxSize={}", size, maxSize);
-            int evictSize = size - maxSize;
-            evictLeastFrequentlyUsedItems(evictSize);
+        long[] results = new long[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            CacheItem<?> item = caches.get(keys[i]);
+            results[i] = item == null || item.expired(now) ? -2 : item.expirationTime - now;
+        }
+        return results;
+    }
+
+    private void remove(String key, CacheItem<?> item) {
+        lock.lock();
+        try {
+            if (caches.remove(key, item)) unlink(item);
+        } finally {
+            lock.unlock();
         }
     }
 
-    // use LFU to trade off between simplicity and access efficiency,
-    // assume local cache is only used for rarely changed items, and tolerate stale data, or use message to notify updates
-    // cleanup is running in background thread, it maintains approximate maxSize loosely
-    private void evictLeastFrequentlyUsedItems(int evictSize) {
-        Map<Integer, Integer> sizes = new TreeMap<>();
+    // maxSize is enforced on write, cleanup only releases expired items
+    public void cleanup() {
+        logger.info("clean up local cache store");
+        long now = System.currentTimeMillis();
         for (CacheItem<?> item : caches.values()) {
-            int hits = item.hits;
-            int size = sizes.getOrDefault(hits, 0);
-            sizes.put(hits, size + 1);
-        }
-        int minHits = 0;
-        int currentEvictSize = 0;
-        for (Map.Entry<Integer, Integer> entry : sizes.entrySet()) {
-            currentEvictSize += entry.getValue();
-            if (currentEvictSize >= evictSize) {
-                minHits = entry.getKey();
-                break;
-            }
+            if (item.expired(now)) remove(item.key, item);
         }
-        int targetHits = minHits;
-        caches.values().removeIf(item -> item.hits <= targetHits);
     }
 
     public void clear() {
-        caches.clear();
+        lock.lock();
+        try {
+            for (CacheItem<?> item : caches.values()) {
+                item.context.localWeight.set(0);
+                item.context.localQueue.clear();
+            }
+            caches.clear();
+            weight = 0;
+            window.clear();
+            probation.clear();
+            protectedQueue.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // only clear items of given caches, local cache store is shared by all local caches
+    public void clear(Set<CacheContext<?>> contexts) {
+        lock.lock();
+        try {
+            Iterator<CacheItem<?>> iterator = caches.values().iterator();
+            while (iterator.hasNext()) {
+                CacheItem<?> item = iterator.next();
+                if (contexts.contains(item.context)) {
+                    iterator.remove();
+                    unlink(item);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long weight() {
+        lock.lock();
+        try {
+            return weight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int frequency(String key) {
+        lock.lock();
+        try {
+            return sketch.frequency(key.hashCode());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void onAccess(CacheItem<?> item) {
+        AccessQueue queue = item.queue;
+        if (queue == null) return;  // removed by other thread
+        sketch.increment(item.key.hashCode());
+        item.context.localQueue.moveToTail(item);
+        if (queue == probation) {
+            probation.remove(item);
+            protectedQueue.add(item);
+            while (protectedQueue.size > protectedMaxSize) {
+                CacheItem<?> demoted = protectedQueue.head;
+                protectedQueue.remove(demoted);
+                probation.add(demoted);
+            }
+        } else {
+            queue.moveToTail(item);
+        }
+    }
+
+    private void evict() {
+        while (window.size > windowMaxSize) {
+            CacheItem<?> candidate = window.head;
+            window.remove(candidate);
+            probation.add(candidate);
+            if (overflow()) admit(candidate);
+        }
+        while (overflow()) {     // when maxSize is reduced, or heavy items exceed maxWeight
+            if (probation.size > 0) {
+                evict(probation.head);
+            } else if (protectedQueue.size > 0) {
+                evict(protectedQueue.head);
+            } else {
+                evict(window.head);
+            }
+        }
+    }
+
+    private void evict(CacheItem<?> item) {
+        logger.debug("evict, key={}", item.key);
+        item.context.stats.evictions.increment();
+        unlink(item);
+        caches.remove(item.key, item);
+    }
+
+    // evict LRU items of the cache from its own queue, not to scan items of other caches
+    private void evictOverweight(CacheContext<?> context) {
+        if (context.maxLocalWeight <= 0) return;
+        while (context.localWeight.get() > context.maxLocalWeight && context.localQueue.head != null) {
+            evict(context.localQueue.head);
+        }
+    }
+
+    private void unlink(CacheItem<?> item) {
+        item.queue.remove(item);
+        item.context.localQueue.remove(item);
+        weight -= item.weight;
+        item.context.localWeight.addAndGet(-item.weight);
+    }
+
+    // candidate evicted from window competes with LRU victim of main space, the one with lower frequency is evicted
+    private void admit(CacheItem<?> candidate) {
+        CacheItem<?> victim = probation.head != candidate ? probation.head : protectedQueue.head;
+        if (victim == null || sketch.frequency(candidate.key.hashCode()) <= sketch.frequency(victim.key.hashCode())) {
+            evict(candidate);
+        } else {
+            evict(victim);
+        }
+    }
+
+    private boolean overflow() {
+        return size() > maxSize || maxWeight > 0 && weight > maxWeight;
+    }
+
+    private int size() {
+        return window.size + probation.size + protectedQueue.size;
     }
 
     static class CacheItem<T> {
+        final String key;
         final T value;
         final long expirationTime;
-        int hits;
+        final CacheContext<?> context;
+        final int weight;
+        AccessQueue queue;  // following fields are guarded by lock
+        CacheItem<?> previous;
+        CacheItem<?> next;
+        CacheItem<?> cachePrevious;     // links in queue of same cache
+        CacheItem<?> cacheNext;
 
-        CacheItem(T value, long expirationTime) {
+        CacheItem(String key, T value, long expirationTime, CacheContext<?> context, int weight) {
+            this.key = key;
             this.value = value;
             this.expirationTime = expirationTime;
+            this.context = context;
+            this.weight = weight;
         }
 
         boolean expired(long now) {
             return now >= expirationTime;
         }
     }
+
+    // doubly linked list in access order, head is least recently used
+    static class AccessQueue {
+        CacheItem<?> head;
+        CacheItem<?> tail;
+        int size;
+
+        void add(CacheItem<?> item) {
+            item.queue = this;
+            item.previous = tail;
+            item.next = null;
+            if (tail == null) {
+                head = item;
+            } else {
+                tail.next = item;
+            }
+            tail = item;
+            size++;
+        }
+
+        void remove(CacheItem<?> item) {
+            if (item.previous == null) {
+                head = item.next;
+            } else {
+                item.previous.next = item.next;
+            }
+            if (item.next == null) {
+                tail = item.previous;
+            } else {
+                item.next.previous = item.previous;
+            }
+            item.queue = null;
+            item.previous = null;
+            item.next = null;
+            size--;
+        }
+
+        void moveToTail(CacheItem<?> item) {
+            if (tail == item) return;
+            remove(item);
+            add(item);
+        }
+
+        void clear() {
+            CacheItem<?> item = head;
+            while (item != null) {
+                CacheItem<?> next = item.next;
+                item.queue = null;
+                item.previous = null;
+                item.next = null;
+                item = next;
+            }
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
+
+    // all items of one cache in access order regardless of segment, head is least recently used, to enforce maxLocalWeight
+    static class CacheQueue {
+        CacheItem<?> head;
+        CacheItem<?> tail;
+
+        void add(CacheItem<?> item) {
+            item.cachePrevious = tail;
+            item.cacheNext = null;
+            if (tail == null) {
+                head = item;
+            } else {
+                tail.cacheNext = item;
+            }
+            tail = item;
+        }
+
+        void remove(CacheItem<?> item) {
+            if (item.cachePrevious == null) {
+                head = item.cacheNext;
+            } else {
+                item.cachePrevious.cacheNext = item.cacheNext;
+            }
+            if (item.cacheNext == null) {
+                tail = item.cachePrevious;
+            } else {
+                item.cacheNext.cachePrevious = item.cachePrevious;
+            }
+            item.cachePrevious = null;
+            item.cacheNext = null;
+        }
+
+        void moveToTail(CacheItem<?> item) {
+            if (tail == item) return;
+            remove(item);
+            add(item);
+        }
+
+        void clear() {
+            head = null;
+            tail = null;
+        }
+    }
 }
@@ -0,0 +1,22 @@
+package core.framework.internal.cache;
+
+import core.framework.internal.stat.Metrics;
+import core.framework.internal.stat.Stats;
+
+/**
+ * @author neo
+ */
+public class OffHeapCacheMetrics implements Metrics {
+    private final OffHeapCacheStore cacheStore;
+
+    public OffHeapCacheMetrics(OffHeapCacheStore cacheStore) {
+        this.cacheStore = cacheStore;
+    }
+
+    @Override
+    public void collect(Stats stats) {
+        stats.put("cache_off_heap_size", cacheStore.size());
+        stats.put("cache_off_heap_used", cacheStore.usedBytes());
+        stats.put("cache_off_heap_allocated", cacheStore.allocatedBytes());
+    }
+}
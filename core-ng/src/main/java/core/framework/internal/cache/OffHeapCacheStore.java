@@ -0,0 +1,272 @@
+package core.framework.internal.cache;
+
+import core.framework.util.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import static core.framework.log.Markers.errorCode;
+
+/**
+ * keep encoded values in direct memory segments and only index on heap, for large read-mostly data not to add to gc pause,
+ * segments are appended and recycled in FIFO order when all are full, space of deleted or overwritten values is released when its segment is recycled,
+ * value is decoded on every read, so caller gets its own copy
+ *
+ * @author neo
+ */
+public class OffHeapCacheStore implements CacheStore {
+    private final Logger logger = LoggerFactory.getLogger(OffHeapCacheStore.class);
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Slot> slots = new HashMap<>();     // guarded by lock
+    private final int segmentSize;
+
+    private ByteBuffer[] segments;              // allocated on demand
+    private List<List<String>> segmentKeys;     // keys written to each segment, to remove from index when segment is recycled
+    private int currentSegment;
+    private int position;
+    private long usedBytes;
+
+    public OffHeapCacheStore(int segmentSize) {
+        this.segmentSize = segmentSize;
+        maxSize(256L * 1024 * 1024);
+    }
+
+    // must be called before put
+    public void maxSize(long maxSize) {
+        if (maxSize < segmentSize) throw new Error("max size must not be less than segment size, maxSize=" + maxSize + ", segmentSize=" + segmentSize);
+        int count = (int) Math.min(maxSize / segmentSize, Integer.MAX_VALUE);
+        segments = new ByteBuffer[count];
+        segmentKeys = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            segmentKeys.add(new ArrayList<>());
+        }
+    }
+
+    @Override
+    public <T> T get(String key, CacheContext<T> context) {
+        byte[] bytes = read(key, System.currentTimeMillis());
+        if (bytes == null) return null;
+        return decode(key, bytes, context);
+    }
+
+    @Override
+    public <T> Map<String, T> getAll(String[] keys, CacheContext<T> context) {
+        long now = System.currentTimeMillis();
+        Map<String, T> results = Maps.newHashMapWithExpectedSize(keys.length);
+        for (String key : keys) {
+            byte[] bytes = read(key, now);
+            if (bytes == null) continue;
+            T value = decode(key, bytes, context);
+            if (value != null) results.put(key, value);
+        }
+        return results;
+    }
+
+    private byte[] read(String key, long now) {
+        lock.readLock().lock();
+        try {
+            Slot slot = slots.get(key);
+            if (slot == null || slot.expired(now)) return null;
+            byte[] bytes = new byte[slot.length];
+            segments[slot.segment].get(slot.offset, bytes);
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private <T> T decode(String key, byte[] bytes, CacheContext<T> context) {
+        try {
+            if (context.codec != null) return context.codec.decode(bytes, 0, bytes.length);
+            return context.reader.fromJSON(bytes, 0, bytes.length);
+        } catch (IOException e) {
+            logger.warn(errorCode("INVALID_CACHE_DATA"), "failed to decode value from off heap cache, will reload, key={}, error={}", key, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    @Override
+    public <T> void put(String key, T value, Duration expiration, CacheContext<T> context) {
+        long expirationTime = System.currentTimeMillis() + expiration.toMillis();
+        byte[] bytes = encode(value, context);      // encode outside lock
+        lock.writeLock().lock();
+        try {
+            write(key, bytes, expirationTime);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public <T> void putAll(List<Entry<T>> values, Duration expiration, CacheContext<T> context) {
+        long expirationTime = System.currentTimeMillis() + expiration.toMillis();
+        List<byte[]> encodedValues = new ArrayList<>(values.size());
+        for (Entry<T> value : values) {
+            encodedValues.add(encode(value.value, context));
+        }
+        lock.writeLock().lock();
+        try {
+            for (int i = 0; i < values.size(); i++) {
+                write(values.get(i).key, encodedValues.get(i), expirationTime);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private <T> byte[] encode(T value, CacheContext<T> context) {
+        return context.codec != null ? context.codec.encode(value) : context.writer.toJSON(value);
+    }
+
+    private void write(String key, byte[] bytes, long expirationTime) {
+        if (bytes.length > segmentSize) {
+            logger.warn(errorCode("CACHE_VALUE_TOO_LARGE"), "value is larger than off heap segment size, skip caching, key={}, size={}, segmentSize={}", key, bytes.length, segmentSize);
+            remove(key);    // not to return previous value
+            return;
+        }
+        if (segments[currentSegment] == null) {
+            segments[currentSegment] = ByteBuffer.allocateDirect(segmentSize);
+        } else if (position + bytes.length > segmentSize) {
+            currentSegment = (currentSegment + 1) % segments.length;
+            position = 0;
+            if (segments[currentSegment] == null) {
+                segments[currentSegment] = ByteBuffer.allocateDirect(segmentSize);
+            } else {
+                recycle(currentSegment);
+            }
+        }
+        segments[currentSegment].put(position, bytes);
+        Slot previous = slots.put(key, new Slot(currentSegment, position, bytes.length, expirationTime));
+        if (previous != null) usedBytes -= previous.length;
+        usedBytes += bytes.length;
+        segmentKeys.get(currentSegment).add(key);
+        position += bytes.length;
+    }
+
+    private void recycle(int segment) {
+        List<String> keys = segmentKeys.get(segment);
+        for (String key : keys) {
+            Slot slot = slots.get(key);
+            if (slot != null && slot.segment == segment) {  // key may be written to other segment later
+                slots.remove(key);
+                usedBytes -= slot.length;
+            }
+        }
+        keys.clear();
+    }
+
+    @Override
+    public boolean delete(String... keys) {
+        boolean deleted = false;
+        lock.writeLock().lock();
+        try {
+            for (String key : keys) {
+                if (remove(key)) deleted = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return deleted;
+    }
+
+    private boolean remove(String key) {
+        Slot slot = slots.remove(key);
+        if (slot == null) return false;
+        usedBytes -= slot.length;
+        return true;
+    }
+
+    @Override
+    public long[] expirationTime(String... keys) {
+        long now = System.currentTimeMillis();
+        long[] results = new long[keys.length];
+        lock.readLock().lock();
+        try {
+            for (int i = 0; i < keys.length; i++) {
+                Slot slot = slots.get(keys[i]);
+                results[i] = slot == null || slot.expired(now) ? -2 : slot.expirationTime - now;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return results;
+    }
+
+    // space of expired values is released when its segment is recycled, cleanup only removes them from index
+    public void cleanup() {
+        logger.info("clean up off heap cache store");
+        long now = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            var iterator = slots.values().iterator();
+            while (iterator.hasNext()) {
+                Slot slot = iterator.next();
+                if (slot.expired(now)) {
+                    iterator.remove();
+                    usedBytes -= slot.length;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // bytes of live values
+    public long usedBytes() {
+        lock.readLock().lock();
+        try {
+            return usedBytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // direct memory allocated by segments
+    public long allocatedBytes() {
+        lock.readLock().lock();
+        try {
+            int allocatedSegments = 0;
+            for (ByteBuffer segment : segments) {
+                if (segment != null) allocatedSegments++;
+            }
+            return (long) allocatedSegments * segmentSize;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static final class Slot {
+        final int segment;
+        final int offset;
+        final int length;
+        final long expirationTime;
+
+        Slot(int segment, int offset, int length, long expirationTime) {
+            this.segment = segment;
+            this.offset = offset;
+            this.length = length;
+            this.expirationTime = expirationTime;
+        }
+
+        boolean expired(long now) {
+            return now >= expirationTime;
+        }
+    }
+}
@@ -1,16 +1,22 @@
 package core.framework.internal.cache;
 
-import core.framework.internal.json.JSONReader;
+import core.framework.internal.redis.ExpirableValue;
 import core.framework.internal.redis.RedisException;
 import core.framework.internal.redis.RedisImpl;
 import core.framework.internal.validate.Validator;
+import core.framework.redis.RedisScript;
 import core.framework.util.Maps;
+import core.framework.util.Network;
+import core.framework.util.Randoms;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.xerial.snappy.Snappy;
 
+import javax.annotation.Nullable;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.time.Duration;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
@@ -20,12 +26,23 @@ import static core.framework.log.Markers.errorCode;
  * @author neo
  */
 public class RedisCacheStore implements CacheStore {
+    // plain json is stored as it is, to be compatible with previous versions,
+    // otherwise value starts with FORMAT_MARKER (json never starts with 0), followed by format flags as version of encoding
+    static final byte FORMAT_MARKER = 0;
+    static final byte FLAG_COMPRESSED = 1;     // snappy compressed, which starts with varint of uncompressed length
+    static final byte FLAG_CODEC = 2;          // encoded by cache codec
+    // uncompressed length is read from value, limit it before allocating, not to allocate huge array by corrupted or foreign value
+    static final int MAX_UNCOMPRESSED_LENGTH = 64 * 1024 * 1024;
+
     private final Logger logger = LoggerFactory.getLogger(RedisCacheStore.class);
 
     private final RedisImpl redis;
+    private final RedisScript releaseLeaseScript;
 
     public RedisCacheStore(RedisImpl redis) {
         this.redis = redis;
+        // only delete lease held by itself, lease may be expired and taken by other node if loading took longer than lease time
+        releaseLeaseScript = redis.script("if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) else return 0 end");
     }
 
     @Override
@@ -33,7 +50,7 @@ public class RedisCacheStore implements CacheStore {
         try {
             byte[] value = redis.getBytes(key);
             if (value == null) return null;
-            return deserialize(value, context.reader, context.validator);
+            return deserialize(value, 0, value.length, context);
         } catch (UncheckedIOException | RedisException e) {
             logger.warn(errorCode("CACHE_STORE_FAILED"), "failed to connect to redis, error={}", e.getMessage(), e);
             return null;
@@ -43,43 +60,94 @@ public class RedisCacheStore implements CacheStore {
     @Override
     public <T> Map<String, T> getAll(String[] keys, CacheContext<T> context) {
         try {
-            Map<String, byte[]> redisValues = redis.multiGetBytes(keys);
-            Map<String, T> values = Maps.newHashMapWithExpectedSize(redisValues.size());
-            for (Map.Entry<String, byte[]> entry : redisValues.entrySet()) {
-                T value = deserialize(entry.getValue(), context.reader, context.validator);
-                if (value != null) {
-                    values.put(entry.getKey(), value);
-                }
-            }
-            return values;
+            return redis.multiGet(keys, (bytes, offset, length) -> deserialize(bytes, offset, length, context));
+        } catch (UncheckedIOException | RedisException e) {
+            logger.warn(errorCode("CACHE_STORE_FAILED"), "failed to connect to redis, error={}", e.getMessage(), e);
+            return Map.of();
+        }
+    }
+
+    // read values along with remaining ttl in one round trip, for local cache to expire at same time as redis
+    <T> Map<String, ExpirableValue<T>> getAllWithExpirationTime(String[] keys, CacheContext<T> context) {
+        try {
+            return redis.multiGetWithExpirationTime(keys, (bytes, offset, length) -> deserialize(bytes, offset, length, context));
         } catch (UncheckedIOException | RedisException e) {
             logger.warn(errorCode("CACHE_STORE_FAILED"), "failed to connect to redis, error={}", e.getMessage(), e);
             return Map.of();
         }
     }
 
-    private <T> T deserialize(byte[] value, JSONReader<T> reader, Validator<T> validator) {
+    private <T> T deserialize(byte[] bytes, int offset, int length, CacheContext<T> context) {
         try {
-            T result = reader.fromJSON(value);
-            if (result == null) return null;
+            if (length < 2 || bytes[offset] != FORMAT_MARKER) return validate(context.reader.fromJSON(bytes, offset, length), context.validator);
 
-            Map<String, String> errors = validator.errors(result, false);
-            if (errors != null) {
-                logger.warn(errorCode("INVALID_CACHE_DATA"), "failed to validate value from cache, will reload, errors={}", errors);
-                return null;
+            byte flags = bytes[offset + 1];
+            byte[] payload = bytes;
+            int payloadOffset = offset + 2;
+            int payloadLength = length - 2;
+            if ((flags & FLAG_COMPRESSED) != 0) {
+                payload = uncompress(bytes, payloadOffset, payloadLength);
+                payloadOffset = 0;
+                payloadLength = payload.length;
             }
-
-            return result;
+            if ((flags & FLAG_CODEC) != 0) {
+                if (context.codec == null) throw new IOException("cache codec is not configured");
+                return context.codec.decode(payload, payloadOffset, payloadLength);
+            }
+            return validate(context.reader.fromJSON(payload, payloadOffset, payloadLength), context.validator);
         } catch (IOException e) {
             logger.warn(errorCode("INVALID_CACHE_DATA"), "failed to deserialize value from cache, will reload, error={}", e.getMessage(), e);
             return null;
         }
     }
 
+    private <T> T validate(T result, Validator<T> validator) {
+        if (result == null) return null;
+        Map<String, String> errors = validator.errors(result, false);
+        if (errors != null) {
+            logger.warn(errorCode("INVALID_CACHE_DATA"), "failed to validate value from cache, will reload, errors={}", errors);
+            return null;
+        }
+        return result;
+    }
+
+    <T> byte[] serialize(T value, CacheContext<T> context) {
+        byte[] payload = context.codec == null ? context.writer.toJSON(value) : context.codec.encode(value);
+        boolean compress = context.compressionThreshold > 0 && payload.length > context.compressionThreshold;
+        if (context.codec == null && !compress) return payload;
+
+        byte flags = context.codec == null ? 0 : FLAG_CODEC;
+        if (compress) {
+            flags |= FLAG_COMPRESSED;
+            payload = compress(payload);
+        }
+        byte[] result = new byte[payload.length + 2];
+        result[0] = FORMAT_MARKER;
+        result[1] = flags;
+        System.arraycopy(payload, 0, result, 2, payload.length);
+        return result;
+    }
+
+    private byte[] compress(byte[] payload) {
+        try {
+            return Snappy.compress(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private byte[] uncompress(byte[] bytes, int offset, int length) throws IOException {
+        int uncompressedLength = Snappy.uncompressedLength(bytes, offset, length);
+        if (uncompressedLength < 0 || uncompressedLength > MAX_UNCOMPRESSED_LENGTH) throw new IOException("invalid compressed value, length=" + uncompressedLength);
+        byte[] result = new byte[uncompressedLength];
+        Snappy.uncompress(bytes, offset, length, result, 0);
+        return result;
+    }
+
     @Override
     public <T> void put(String key, T value, Duration expiration, CacheContext<T> context) {
         try {
-            redis.set(key, context.writer.toJSON(value), expiration, false);
+            redis.set(key, serialize(value, context), expiration, false);
         } catch (UncheckedIOException | RedisException e) {
             logger.warn(errorCode("CACHE_STORE_FAILED"), "failed to connect to redis, error={}", e.getMessage(), e);
         }
@@ -89,7 +157,7 @@ public class RedisCacheStore implements CacheStore {
     public <T> void putAll(List<Entry<T>> values, Duration expiration, CacheContext<T> context) {
         Map<String, byte[]> cacheValues = Maps.newHashMapWithExpectedSize(values.size());
         for (Entry<T> value : values) {
-            cacheValues.put(value.key, context.writer.toJSON(value.value));
+            cacheValues.put(value.key, serialize(value.value, context));
         }
         try {
             redis.multiSet(cacheValues, expiration);
@@ -108,4 +176,41 @@ public class RedisCacheStore implements CacheStore {
             return false;
         }
     }
+
+    // lease to load key in one node, expires automatically if holder fails, treat as acquired if redis is not accessible to load by itself,
+    // return token to release lease, or null if lease is held by other node
+    @Nullable
+    String acquireLease(String key, Duration leaseTime) {
+        String token = Network.LOCAL_HOST_NAME + ":" + Randoms.alphaNumeric(16);     // unique per acquire, host name is for troubleshooting
+        try {
+            return redis.set(leaseKey(key), token, leaseTime, true) ? token : null;
+        } catch (UncheckedIOException | RedisException e) {
+            logger.warn(errorCode("CACHE_STORE_FAILED"), "failed to connect to redis, error={}", e.getMessage(), e);
+            return token;
+        }
+    }
+
+    void releaseLease(String key, String token) {
+        try {
+            releaseLeaseScript.evalLong(List.of(leaseKey(key)), token);
+        } catch (UncheckedIOException | RedisException e) {
+            logger.warn(errorCode("CACHE_STORE_FAILED"), "failed to connect to redis, error={}", e.getMessage(), e);
+        }
+    }
+
+    private String leaseKey(String key) {
+        return "lease:" + key;
+    }
+
+    @Override
+    public long[] expirationTime(String... keys) {
+        try {
+            return redis.expirationTime(keys);
+        } catch (UncheckedIOException | RedisException e) {
+            logger.warn(errorCode("CACHE_STORE_FAILED"), "failed to connect to redis, error={}", e.getMessage(), e);
+            long[] results = new long[keys.length];
+            Arrays.fill(results, -2);
+            return results;
+        }
+    }
 }
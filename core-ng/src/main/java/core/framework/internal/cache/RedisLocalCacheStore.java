@@ -1,50 +1,41 @@
 package core.framework.internal.cache;
 
-import core.framework.internal.json.JSONWriter;
-import core.framework.internal.redis.RedisException;
-import core.framework.internal.redis.RedisImpl;
+import core.framework.internal.redis.ExpirableValue;
 import core.framework.util.Maps;
-import core.framework.util.Network;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
-import java.io.UncheckedIOException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 
-import static core.framework.log.Markers.errorCode;
-
 /**
  * @author neo
  */
 public class RedisLocalCacheStore implements CacheStore {
     public static final String CHANNEL_INVALIDATE_CACHE = "cache:invalidate";
 
-    private final Logger logger = LoggerFactory.getLogger(RedisLocalCacheStore.class);
     private final CacheStore localCache;
-    private final CacheStore redisCache;
-    private final RedisImpl redis;
-    private final JSONWriter<InvalidateLocalCacheMessage> writer = new JSONWriter<>(InvalidateLocalCacheMessage.class);
+    private final RedisCacheStore redisCache;
+    private final InvalidateLocalCacheMessagePublisher publisher;
 
-    public RedisLocalCacheStore(CacheStore localCache, CacheStore redisCache, RedisImpl redis) {
+    public RedisLocalCacheStore(CacheStore localCache, RedisCacheStore redisCache, InvalidateLocalCacheMessagePublisher publisher) {
         this.localCache = localCache;
         this.redisCache = redisCache;
-        this.redis = redis;
+        this.publisher = publisher;
     }
 
     @Override
     public <T> T get(String key, CacheContext<T> context) {
         T value = localCache.get(key, context);
-        if (value != null) return value;
-        value = redisCache.get(key, context);
-        if (value == null) return null;
-        long expirationTime = redis.expirationTime(key)[0];     // if redis is not accessible (most likely failure), redisCache return null, so here not to catch exception to keep it simple
-        if (expirationTime <= 0) return null;
-        localCache.put(key, value, Duration.ofMillis(expirationTime), context);
-        return value;
+        if (value != null) {
+            context.stats.localHits.increment();
+            return value;
+        }
+        ExpirableValue<T> redisValue = redisCache.getAllWithExpirationTime(new String[]{key}, context).get(key);
+        if (redisValue == null || redisValue.expirationTime <= 0) return null;
+        localCache.put(key, redisValue.value, Duration.ofMillis(redisValue.expirationTime), context);
+        return redisValue.value;
     }
 
     @Override
@@ -59,20 +50,16 @@ public class RedisLocalCacheStore implements CacheStore {
                 localNotFoundKeys.add(key);
             }
         }
+        context.stats.localHits.add(results.size());
         if (localNotFoundKeys.isEmpty()) return results;
 
-        Map<String, T> redisValues = redisCache.getAll(localNotFoundKeys.toArray(String[]::new), context);
-        if (!redisValues.isEmpty()) {
-            String[] redisKeys = redisValues.keySet().toArray(String[]::new);
-            long[] expirationTimes = redis.expirationTime(redisKeys);       // if redis is not accessible (most likely failure), redisCache return empty, so here not to catch exception to keep it simple
-            for (int i = 0; i < expirationTimes.length; i++) {
-                long expirationTime = expirationTimes[i];
-                if (expirationTime > 0) {
-                    String redisKey = redisKeys[i];
-                    T value = redisValues.get(redisKey);
-                    results.put(redisKey, value);
-                    localCache.put(redisKey, value, Duration.ofMillis(expirationTime), context);
-                }
+        Map<String, ExpirableValue<T>> redisValues = redisCache.getAllWithExpirationTime(localNotFoundKeys.toArray(String[]::new), context);
+        for (Map.Entry<String, ExpirableValue<T>> entry : redisValues.entrySet()) {
+            ExpirableValue<T> redisValue = entry.getValue();
+            if (redisValue.expirationTime > 0) {
+                String redisKey = entry.getKey();
+                results.put(redisKey, redisValue.value);
+                localCache.put(redisKey, redisValue.value, Duration.ofMillis(redisValue.expirationTime), context);
             }
         }
         return results;
@@ -82,14 +69,14 @@ public class RedisLocalCacheStore implements CacheStore {
     public <T> void put(String key, T value, Duration expiration, CacheContext<T> context) {
         localCache.put(key, value, expiration, context);
         redisCache.put(key, value, expiration, context);
-        publishInvalidateLocalCacheMessage(List.of(key));
+        publisher.publish(List.of(key));
     }
 
     @Override
     public <T> void putAll(List<Entry<T>> values, Duration expiration, CacheContext<T> context) {
         localCache.putAll(values, expiration, context);
         redisCache.putAll(values, expiration, context);
-        publishInvalidateLocalCacheMessage(keys(values));
+        publisher.publish(keys(values));
     }
 
     @Override
@@ -97,11 +84,17 @@ public class RedisLocalCacheStore implements CacheStore {
         boolean deleted = redisCache.delete(keys);
         localCache.delete(keys);
         if (deleted) {
-            publishInvalidateLocalCacheMessage(Arrays.asList(keys));
+            publisher.publish(Arrays.asList(keys));
         }
         return deleted;
     }
 
+    // value read from redis is put into local cache with redis PTTL, so local expiration time is accurate
+    @Override
+    public long[] expirationTime(String... keys) {
+        return localCache.expirationTime(keys);
+    }
+
     private <T> List<String> keys(List<Entry<T>> values) {
         List<String> keys = new ArrayList<>(values.size());
         for (Entry<T> value : values) {
@@ -109,15 +102,4 @@ public class RedisLocalCacheStore implements CacheStore {
         }
         return keys;
     }
-
-    private void publishInvalidateLocalCacheMessage(List<String> keys) {
-        try {
-            var message = new InvalidateLocalCacheMessage();
-            message.keys = keys;
-            message.clientIP = Network.LOCAL_HOST_ADDRESS;
-            redis.pubSub().publish(CHANNEL_INVALIDATE_CACHE, writer.toJSON(message));
-        } catch (UncheckedIOException | RedisException e) {
-            logger.warn(errorCode("CACHE_STORE_FAILED"), "failed to connect to redis, error={}", e.getMessage(), e);
-        }
-    }
 }
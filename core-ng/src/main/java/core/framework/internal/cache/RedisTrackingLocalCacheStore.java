@@ -0,0 +1,121 @@
+package core.framework.internal.cache;
+
+import core.framework.internal.redis.RedisTrackingListener;
+import core.framework.util.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * local cache kept coherent by redis client side caching, redis only notifies keys read by this client,
+ * so there is no pub/sub fan out on write, and no PTTL round trip on read
+ *
+ * @author neo
+ */
+public class RedisTrackingLocalCacheStore implements CacheStore, RedisTrackingListener {
+    private final Logger logger = LoggerFactory.getLogger(RedisTrackingLocalCacheStore.class);
+    private final LocalCacheStore localCache;
+    private final AtomicLong invalidations = new AtomicLong();
+    private final Set<CacheContext<?>> contexts = ConcurrentHashMap.newKeySet();  // caches put into local cache by this store, local cache store is shared with other local caches
+    public CacheStore redisCache;   // must use redis with client tracking enabled, to track keys read by this client
+
+    public RedisTrackingLocalCacheStore(LocalCacheStore localCache) {
+        this.localCache = localCache;
+    }
+
+    @Override
+    public <T> T get(String key, CacheContext<T> context) {
+        T value = localCache.get(key, context);
+        if (value != null) {
+            context.stats.localHits.increment();
+            return value;
+        }
+        long version = invalidations.get();
+        value = redisCache.get(key, context);
+        if (value == null) return null;
+        contexts.add(context);
+        localCache.put(key, value, context.duration, context);
+        // invalidation may arrive after reading from redis but before put to local, check after put to not keep stale value
+        if (invalidations.get() != version) localCache.delete(key);
+        return value;
+    }
+
+    @Override
+    public <T> Map<String, T> getAll(String[] keys, CacheContext<T> context) {
+        Map<String, T> results = Maps.newHashMapWithExpectedSize(keys.length);
+        List<String> localNotFoundKeys = new ArrayList<>();
+        for (String key : keys) {
+            T value = localCache.get(key, context);
+            if (value != null) {
+                results.put(key, value);
+            } else {
+                localNotFoundKeys.add(key);
+            }
+        }
+        context.stats.localHits.add(results.size());
+        if (localNotFoundKeys.isEmpty()) return results;
+
+        long version = invalidations.get();
+        Map<String, T> redisValues = redisCache.getAll(localNotFoundKeys.toArray(String[]::new), context);
+        if (!redisValues.isEmpty()) {
+            List<Entry<T>> values = new ArrayList<>(redisValues.size());
+            for (Map.Entry<String, T> entry : redisValues.entrySet()) {
+                values.add(new Entry<>(entry.getKey(), entry.getValue()));
+            }
+            contexts.add(context);
+            localCache.putAll(values, context.duration, context);
+            if (invalidations.get() != version) localCache.delete(redisValues.keySet().toArray(String[]::new));
+            results.putAll(redisValues);
+        }
+        return results;
+    }
+
+    // redis only tracks keys read by this client, written value is not tracked, so not to keep it in local cache,
+    // next get() reads from redis to track the key, otherwise local copy won't be invalidated when other client updates it
+    @Override
+    public <T> void put(String key, T value, Duration expiration, CacheContext<T> context) {
+        redisCache.put(key, value, expiration, context);
+        localCache.delete(key);
+    }
+
+    @Override
+    public <T> void putAll(List<Entry<T>> values, Duration expiration, CacheContext<T> context) {
+        redisCache.putAll(values, expiration, context);
+        String[] keys = new String[values.size()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = values.get(i).key;
+        }
+        localCache.delete(keys);
+    }
+
+    @Override
+    public boolean delete(String... keys) {
+        boolean deleted = redisCache.delete(keys);
+        localCache.delete(keys);
+        return deleted;
+    }
+
+    // local copy lives cache duration since read from redis, which is not aligned with redis expiration time
+    @Override
+    public long[] expirationTime(String... keys) {
+        return redisCache.expirationTime(keys);
+    }
+
+    @Override
+    public void onInvalidate(String[] keys) {
+        invalidations.incrementAndGet();    // increase before delete, refer to get()
+        if (keys == null) {     // tracking connection is reconnected, all tracked keys may be stale
+            logger.info("clear tracked local cache");
+            localCache.clear(contexts);
+        } else {
+            localCache.delete(keys);
+        }
+    }
+}
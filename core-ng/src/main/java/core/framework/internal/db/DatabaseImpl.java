@@ -30,6 +30,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static core.framework.log.Markers.errorCode;
 
@@ -47,18 +49,23 @@ public final class DatabaseImpl implements Database {
 
     private final Logger logger = LoggerFactory.getLogger(DatabaseImpl.class);
     private final Map<Class<?>, RowMapper<?>> rowMappers = new HashMap<>(32);
+    final String name;
+    private final AtomicInteger replicaCounter = new AtomicInteger();
     public String user;
     public String password;
     public int maxOperations = 5000;  // max db calls per action, if exceeds, it indicates either wrong impl (e.g. infinite loop with db calls) or bad practice (not CD friendly), better split into multiple actions
     public int tooManyRowsReturnedThreshold = 1000;
     public long slowOperationThresholdInNanos = Duration.ofSeconds(5).toNanos();
     public IsolationLevel isolationLevel;
+    public Pool<Connection> replicaPool;
     private String url;
+    private String[] replicaURLs;
     private Properties driverProperties;
     private Duration timeout;
     private Driver driver;
 
     public DatabaseImpl(String name) {
+        this.name = name;
         initializeRowMappers();
 
         pool = new Pool<>(this::createConnection, name);
@@ -89,6 +96,16 @@ public final class DatabaseImpl implements Database {
             driverProperties = driverProperties(url, user, password);
             this.driverProperties = driverProperties;
         }
+        return connect(url, driverProperties);
+    }
+
+    // spread replica connections across replicas by round robin, replica connection is created rarely, so not to cache driver properties
+    private Connection createReplicaConnection() {
+        String url = replicaURLs[Math.floorMod(replicaCounter.getAndIncrement(), replicaURLs.length)];
+        return connect(url, driverProperties(url, user, password));
+    }
+
+    private Connection connect(String url, Properties driverProperties) {
         Connection connection = null;
         try {
             connection = driver.connect(url, driverProperties);
@@ -119,6 +136,8 @@ public final class DatabaseImpl implements Database {
             properties.setProperty(PropertyKey.rewriteBatchedStatements.getKeyName(), "true");
             properties.setProperty(PropertyKey.queryInterceptors.getKeyName(), MySQLQueryInterceptor.class.getName());
             properties.setProperty(PropertyKey.logger.getKeyName(), "Slf4JLogger");
+            // prepare statement on server side only if statements are cached and reused, otherwise it costs one more round trip per query
+            if (operation.statementCacheSize > 0) properties.setProperty(PropertyKey.useServerPrepStmts.getKeyName(), "true");
             int index = url.indexOf('?');
             // mysql with ssl has overhead, usually we ensure security on arch level, e.g. gcloud sql proxy or firewall rule
             if (index == -1 || url.indexOf("useSSL=", index + 1) == -1) properties.setProperty(PropertyKey.useSSL.getKeyName(), "false");
@@ -131,12 +150,19 @@ public final class DatabaseImpl implements Database {
     public void close() {
         logger.info("close database client, url={}", url);
         pool.close();
+        if (replicaPool != null) replicaPool.close();
     }
 
     public void timeout(Duration timeout) {
         this.timeout = timeout;
         operation.queryTimeoutInSeconds = (int) timeout.getSeconds();
         pool.checkoutTimeout(timeout);
+        if (replicaPool != null) replicaPool.checkoutTimeout(timeout);
+    }
+
+    public void statementCacheSize(int size) {
+        if (size <= 0) throw new Error("statement cache size must be greater than 0, size=" + size);
+        operation.statementCacheSize = size;
     }
 
     public void url(String url) {
@@ -144,6 +170,32 @@ public final class DatabaseImpl implements Database {
         logger.info("set database connection url, url={}", url);
         this.url = url;
         driver = driver(url);
+        operation.fetchSize = url.startsWith("jdbc:mysql:") ? Integer.MIN_VALUE : 1000;
+    }
+
+    // replica-safe reads go to replicas, refer to Database.readFromReplica(), replicas must use same driver, user and password as primary
+    public void replicas(String... urls) {
+        if (driver == null) throw new Error("url must be configured before replicas");
+        if (urls.length == 0) throw new Error("replica urls must not be empty");
+        for (String url : urls) {
+            if (!acceptsURL(url)) throw new Error("replica url must use same driver as primary, url=" + url);
+        }
+        logger.info("set database replica urls, urls={}", List.of(urls));
+        replicaURLs = urls;
+        replicaPool = new Pool<>(this::createReplicaConnection, name + "-replica");
+        replicaPool.size(5, 50);
+        replicaPool.maxIdleTime = Duration.ofHours(1);
+        replicaPool.validator(connection -> connection.isValid(1), Duration.ofSeconds(30));
+        replicaPool.checkoutTimeout(timeout);
+        operation.transactionManager.replicaPool = replicaPool;
+    }
+
+    private boolean acceptsURL(String url) {
+        try {
+            return driver.acceptsURL(url);
+        } catch (SQLException e) {
+            throw new UncheckedSQLException(e);
+        }
     }
 
     private Driver driver(String url) {
@@ -225,6 +277,21 @@ public final class DatabaseImpl implements Database {
         }
     }
 
+    @Override
+    public <T> void forEach(String sql, Class<T> viewClass, Consumer<T> consumer, Object... params) {
+        var watch = new StopWatch();
+        validateAsterisk(sql);
+        validateStringValue(sql);
+        int returnedRows = 0;
+        try {
+            returnedRows = operation.forEach(sql, rowMapper(viewClass), consumer, params);
+        } finally {
+            long elapsed = watch.elapsed();     // includes time of consumer
+            logger.debug("forEach, sql={}, params={}, returnedRows={}, elapsed={}", sql, new SQLParams(operation.enumMapper, params), returnedRows, elapsed);
+            track(elapsed, returnedRows, 0, 1);
+        }
+    }
+
     @Override
     public int execute(String sql, Object... params) {
         var watch = new StopWatch();
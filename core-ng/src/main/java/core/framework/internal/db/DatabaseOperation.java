@@ -20,6 +20,8 @@ import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 import static core.framework.util.Strings.format;
 
@@ -29,7 +31,11 @@ import static core.framework.util.Strings.format;
 public class DatabaseOperation {
     public final TransactionManager transactionManager;
     final EnumDBMapper enumMapper = new EnumDBMapper();
+    final LongAdder statementHits = new LongAdder();
+    final LongAdder statementMisses = new LongAdder();
     int queryTimeoutInSeconds;
+    int fetchSize;      // fetch size of forEach, mysql only streams rows with Integer.MIN_VALUE, otherwise reads all rows into memory
+    int statementCacheSize;     // max cached prepared statements per connection, 0 means not to cache
 
     DatabaseOperation(Pool<Connection> pool) {
         transactionManager = new TransactionManager(pool);
@@ -39,7 +45,9 @@ public class DatabaseOperation {
     // it's harder to trace and read if creating a lot of lambda or template pattern, also impact the mem usage and GC
     int update(String sql, Object... params) {
         PoolItem<Connection> connection = transactionManager.getConnection();
-        try (PreparedStatement statement = connection.resource.prepareStatement(sql)) {
+        PreparedStatement statement = null;
+        try {
+            statement = prepareStatement(connection, sql, null);
             statement.setQueryTimeout(queryTimeoutInSeconds);
             setParams(statement, params);
             return statement.executeUpdate();
@@ -47,6 +55,7 @@ public class DatabaseOperation {
             Connections.checkConnectionState(connection, e);
             throw new UncheckedSQLException(e);
         } finally {
+            closeStatement(statement);
             transactionManager.returnConnection(connection);
         }
     }
@@ -55,7 +64,9 @@ public class DatabaseOperation {
     // refer to com.mysql.cj.jdbc.ClientPreparedStatement.executeBatchedInserts, com.mysql.cj.AbstractPreparedQuery.computeBatchSize
     int[] batchUpdate(String sql, List<Object[]> params) {
         PoolItem<Connection> connection = transactionManager.getConnection();
-        try (PreparedStatement statement = connection.resource.prepareStatement(sql)) {
+        PreparedStatement statement = null;
+        try {
+            statement = prepareStatement(connection, sql, null);
             statement.setQueryTimeout(queryTimeoutInSeconds);
             for (Object[] batchParams : params) {
                 setParams(statement, batchParams);
@@ -66,13 +77,17 @@ public class DatabaseOperation {
             Connections.checkConnectionState(connection, e);
             throw new UncheckedSQLException(e);
         } finally {
+            closeStatement(statement);
             transactionManager.returnConnection(connection);
         }
     }
 
     <T> Optional<T> selectOne(String sql, RowMapper<T> mapper, Object... params) {
-        PoolItem<Connection> connection = transactionManager.getConnection();
-        try (PreparedStatement statement = connection.resource.prepareStatement(sql)) {
+        boolean replica = transactionManager.readFromReplica();
+        PoolItem<Connection> connection = transactionManager.getConnection(replica);
+        PreparedStatement statement = null;
+        try {
+            statement = prepareStatement(connection, sql, null);
             statement.setQueryTimeout(queryTimeoutInSeconds);
             setParams(statement, params);
             return fetchOne(statement, mapper);
@@ -80,13 +95,17 @@ public class DatabaseOperation {
             Connections.checkConnectionState(connection, e);
             throw new UncheckedSQLException(e);
         } finally {
-            transactionManager.returnConnection(connection);
+            closeStatement(statement);
+            transactionManager.returnConnection(connection, replica);
         }
     }
 
     <T> List<T> select(String sql, RowMapper<T> mapper, Object... params) {
-        PoolItem<Connection> connection = transactionManager.getConnection();
-        try (PreparedStatement statement = connection.resource.prepareStatement(sql)) {
+        boolean replica = transactionManager.readFromReplica();
+        PoolItem<Connection> connection = transactionManager.getConnection(replica);
+        PreparedStatement statement = null;
+        try {
+            statement = prepareStatement(connection, sql, null);
             statement.setQueryTimeout(queryTimeoutInSeconds);
             setParams(statement, params);
             return fetch(statement, mapper);
@@ -94,13 +113,35 @@ public class DatabaseOperation {
             Connections.checkConnectionState(connection, e);
             throw new UncheckedSQLException(e);
         } finally {
-            transactionManager.returnConnection(connection);
+            closeStatement(statement);
+            transactionManager.returnConnection(connection, replica);
+        }
+    }
+
+    // rows are read and mapped one by one, connection is held until all rows are consumed,
+    // with mysql, no other query can run on same connection during streaming, so consumer must not query db within same transaction
+    // statement is not cached, as fetch size is changed for streaming
+    <T> int forEach(String sql, RowMapper<T> mapper, Consumer<T> consumer, Object... params) {
+        boolean replica = transactionManager.readFromReplica();
+        PoolItem<Connection> connection = transactionManager.getConnection(replica);
+        try (PreparedStatement statement = connection.resource.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            statement.setQueryTimeout(queryTimeoutInSeconds);
+            statement.setFetchSize(fetchSize);
+            setParams(statement, params);
+            return fetchEach(statement, mapper, consumer);
+        } catch (SQLException e) {
+            Connections.checkConnectionState(connection, e);
+            throw new UncheckedSQLException(e);
+        } finally {
+            transactionManager.returnConnection(connection, replica);
         }
     }
 
     OptionalLong insert(String sql, Object[] params, String generatedColumn) {
         PoolItem<Connection> connection = transactionManager.getConnection();
-        try (PreparedStatement statement = insertStatement(connection.resource, sql, generatedColumn)) {
+        PreparedStatement statement = null;
+        try {
+            statement = prepareStatement(connection, sql, generatedColumn);
             statement.setQueryTimeout(queryTimeoutInSeconds);
             setParams(statement, params);
             statement.executeUpdate();
@@ -110,13 +151,16 @@ public class DatabaseOperation {
             Connections.checkConnectionState(connection, e);
             throw new UncheckedSQLException(e);
         } finally {
+            closeStatement(statement);
             transactionManager.returnConnection(connection);
         }
     }
 
     Optional<long[]> batchInsert(String sql, List<Object[]> params, String generatedColumn) {
         PoolItem<Connection> connection = transactionManager.getConnection();
-        try (PreparedStatement statement = insertStatement(connection.resource, sql, generatedColumn)) {
+        PreparedStatement statement = null;
+        try {
+            statement = prepareStatement(connection, sql, generatedColumn);
             statement.setQueryTimeout(queryTimeoutInSeconds);
             for (Object[] batchParams : params) {
                 setParams(statement, batchParams);
@@ -132,15 +176,41 @@ public class DatabaseOperation {
             Connections.checkConnectionState(connection, e);
             throw new UncheckedSQLException(e);
         } finally {
+            closeStatement(statement);
             transactionManager.returnConnection(connection);
         }
     }
 
-    private PreparedStatement insertStatement(Connection connection, String sql, String generatedColumn) throws SQLException {
+    // with statement cache, statement is kept open and reused by following operations on same connection
+    private PreparedStatement prepareStatement(PoolItem<Connection> connection, String sql, String generatedColumn) throws SQLException {
+        if (statementCacheSize == 0) return createStatement(connection.resource, sql, generatedColumn);
+        var cache = (StatementCache) connection.attachment;
+        if (cache == null) {
+            cache = new StatementCache(statementCacheSize);
+            connection.attachment = cache;
+        }
+        String key = StatementCache.key(sql, generatedColumn);
+        PreparedStatement statement = cache.get(key);
+        if (statement != null) {
+            statementHits.increment();
+            statement.clearBatch();     // batch may be left if previous batch operation failed before executeBatch
+            return statement;
+        }
+        statementMisses.increment();
+        statement = createStatement(connection.resource, sql, generatedColumn);
+        cache.put(key, statement);
+        return statement;
+    }
+
+    private PreparedStatement createStatement(Connection connection, String sql, String generatedColumn) throws SQLException {
         if (generatedColumn == null) return connection.prepareStatement(sql);
         return connection.prepareStatement(sql, new String[]{generatedColumn});
     }
 
+    private void closeStatement(PreparedStatement statement) {
+        if (statement != null && statementCacheSize == 0) Pool.closeQuietly(statement);
+    }
+
     private <T> Optional<T> fetchOne(PreparedStatement statement, RowMapper<T> mapper) throws SQLException {
         try (ResultSet resultSet = statement.executeQuery()) {
             T result = null;
@@ -165,6 +235,19 @@ public class DatabaseOperation {
         }
     }
 
+    private <T> int fetchEach(PreparedStatement statement, RowMapper<T> mapper, Consumer<T> consumer) throws SQLException {
+        try (ResultSet resultSet = statement.executeQuery()) {
+            var wrapper = new ResultSetWrapper(resultSet);
+            int rows = 0;
+            while (resultSet.next()) {
+                T result = mapper.map(wrapper);
+                consumer.accept(result);
+                rows++;
+            }
+            return rows;
+        }
+    }
+
     // the LAST_INSERT_ID() function of mysql returns BIGINT, so here it uses Long
     // http://dev.mysql.com/doc/refman/5.7/en/information-functions.html
     private OptionalLong fetchGeneratedKey(PreparedStatement statement) throws SQLException {
@@ -0,0 +1,51 @@
+package core.framework.internal.db;
+
+import core.framework.db.Column;
+
+import java.lang.reflect.Field;
+import java.util.List;
+
+/**
+ * keyset pagination seeks rows after key of last row by index, instead of scanning and skipping rows by offset,
+ * keyset is (column, primary keys) or primary keys, to be unique and stable, so columns must be covered by index and not null
+ *
+ * @author neo
+ */
+final class Keyset {
+    final String sort;          // e.g. updated_time, id
+    final String condition;     // e.g. (updated_time, id) > (?, ?)
+    private final List<Field> fields;
+
+    Keyset(List<Field> fields) {
+        this.fields = fields;
+        var sort = new StringBuilder();
+        var params = new StringBuilder();
+        for (Field field : fields) {
+            if (sort.length() > 0) {
+                sort.append(", ");
+                params.append(", ");
+            }
+            sort.append(field.getDeclaredAnnotation(Column.class).name());
+            params.append('?');
+        }
+        this.sort = sort.toString();
+        // mysql optimizes row constructor comparison with range scan on index, refer to https://dev.mysql.com/doc/refman/8.0/en/row-constructor-optimization.html
+        condition = fields.size() == 1 ? this.sort + " > ?" : "(" + this.sort + ") > (" + params + ")";
+    }
+
+    int size() {
+        return fields.size();
+    }
+
+    Object[] values(Object entity) {
+        Object[] values = new Object[fields.size()];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = fields.get(i).get(entity);
+            }
+        } catch (IllegalAccessException e) {
+            throw new Error(e);
+        }
+        return values;
+    }
+}
@@ -4,9 +4,13 @@ import core.framework.db.Query;
 import core.framework.util.Lists;
 import core.framework.util.Strings;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * @author neo
@@ -21,6 +25,8 @@ public class QueryImpl<T> implements Query<T> {
     private String sort;
     private Integer skip;
     private Integer limit;
+    private Keyset keyset;
+    private Object[] lastKey;
 
     QueryImpl(DatabaseImpl database, Class<T> entityClass, SelectQuery<T> selectQuery) {
         this.database = database;
@@ -60,10 +66,21 @@ public class QueryImpl<T> implements Query<T> {
         this.limit = limit;
     }
 
+    @Override
+    public void keyset(String column) {
+        keyset = selectQuery.keyset(column);
+    }
+
+    @Override
+    public void after(Object... lastKey) {
+        this.lastKey = lastKey;
+    }
+
     @Override
     public List<T> fetch() {
         if (groupBy != null) throw new Error("fetch must not be used with groupBy, groupBy=" + groupBy);
         if (limit != null && limit == 0) return List.of();  // for pagination search api returns records and count, sometimes it passes limit = 0 to get count only
+        if (keyset != null || lastKey != null) return database.select(keysetSQL(lastKey, limit), entityClass, keysetParams(lastKey, limit));
         String sql = selectQuery.fetchSQL(whereClause, sort, skip, limit);
         Object[] params = selectQuery.fetchParams(this.params, skip, limit);
         return database.select(sql, entityClass, params);
@@ -73,11 +90,63 @@ public class QueryImpl<T> implements Query<T> {
     public Optional<T> fetchOne() {
         if (groupBy != null) throw new Error("fetch must not be used with groupBy, groupBy=" + groupBy);
         if (limit != null && limit == 0) return Optional.empty();
+        if (keyset != null || lastKey != null) return database.selectOne(keysetSQL(lastKey, limit), entityClass, keysetParams(lastKey, limit));
         String sql = selectQuery.fetchSQL(whereClause, sort, skip, limit);
         Object[] params = selectQuery.fetchParams(this.params, skip, limit);
         return database.selectOne(sql, entityClass, params);
     }
 
+    @Override
+    public void forEach(Consumer<T> consumer) {
+        if (groupBy != null) throw new Error("forEach must not be used with groupBy, groupBy=" + groupBy);
+        if (limit != null && limit == 0) return;
+        if (keyset != null || lastKey != null) {
+            database.forEach(keysetSQL(lastKey, limit), entityClass, consumer, keysetParams(lastKey, limit));
+            return;
+        }
+        String sql = selectQuery.fetchSQL(whereClause, sort, skip, limit);
+        Object[] params = selectQuery.fetchParams(this.params, skip, limit);
+        database.forEach(sql, entityClass, consumer, params);
+    }
+
+    @Override
+    public Iterable<List<T>> chunks(int size) {
+        if (groupBy != null) throw new Error("chunks must not be used with groupBy, groupBy=" + groupBy);
+        if (limit != null) throw new Error("chunks must not be used with limit, limit=" + limit);
+        if (size <= 0) throw new Error("size must be greater than 0, size=" + size);
+        return () -> new ChunkIterator(size);
+    }
+
+    private String keysetSQL(Object[] lastKey, Integer limit) {
+        if (sort != null) throw new Error("orderBy must not be used with keyset, sort=" + sort);
+        if (skip != null) throw new Error("skip must not be used with keyset, skip=" + skip);
+        Keyset keyset = effectiveKeyset();
+        StringBuilder where = whereClause;
+        if (lastKey != null) {
+            where = new StringBuilder(whereClause);
+            if (where.length() > 0) where.append(" AND ");
+            where.append(keyset.condition);
+        }
+        return selectQuery.fetchSQL(where, keyset.sort, null, limit);
+    }
+
+    private Object[] keysetParams(Object[] lastKey, Integer limit) {
+        List<Object> params = this.params;
+        if (lastKey != null) {
+            Keyset keyset = effectiveKeyset();
+            if (lastKey.length != keyset.size())
+                throw new Error(Strings.format("the length of last key does not match keyset, lastKey={}, keyset={}", lastKey.length, keyset.sort));
+            params = new ArrayList<>(this.params.size() + lastKey.length);
+            params.addAll(this.params);
+            Collections.addAll(params, lastKey);
+        }
+        return selectQuery.fetchParams(params, null, limit);
+    }
+
+    private Keyset effectiveKeyset() {
+        return keyset == null ? selectQuery.primaryKeyset : keyset;
+    }
+
     @Override
     public <P> Optional<P> project(String projection, Class<P> viewClass) {
         // project ignores skip and limit, and not report error, mainly for pagination search
@@ -85,4 +154,41 @@ public class QueryImpl<T> implements Query<T> {
         Object[] params = this.params.toArray();
         return database.selectOne(sql, viewClass, params);
     }
+
+    private final class ChunkIterator implements Iterator<List<T>> {
+        private final int size;
+        private Object[] lastKey = QueryImpl.this.lastKey;
+        private List<T> chunk;
+        private boolean completed;
+
+        ChunkIterator(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (chunk == null && !completed) {
+                List<T> rows = database.select(keysetSQL(lastKey, size), entityClass, keysetParams(lastKey, size));
+                if (rows.isEmpty()) {
+                    completed = true;
+                } else {
+                    chunk = rows;
+                }
+            }
+            return chunk != null;
+        }
+
+        @Override
+        public List<T> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            List<T> rows = chunk;
+            chunk = null;
+            if (rows.size() < size) {
+                completed = true;   // last chunk, not to query again
+            } else {
+                lastKey = effectiveKeyset().values(rows.get(rows.size() - 1));
+            }
+            return rows;
+        }
+    }
 }
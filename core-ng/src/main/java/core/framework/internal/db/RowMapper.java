@@ -11,7 +11,7 @@ import java.time.ZonedDateTime;
  */
 @FunctionalInterface
 interface RowMapper<T> {
-    static void checkColumnCount(ResultSetWrapper resultSet) {
+    static void checkColumnCount(ResultSetWrapper resultSet) throws SQLException {
         int count = resultSet.columnCount();
         if (count > 1) throw new Error("returned column count must be one, count=" + count);
     }
@@ -4,12 +4,15 @@ import core.framework.db.Column;
 import core.framework.internal.asm.CodeBuilder;
 import core.framework.internal.asm.DynamicInstanceBuilder;
 import core.framework.internal.reflect.Classes;
+import core.framework.util.ASCII;
 
 import java.lang.reflect.Field;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 import static core.framework.internal.asm.Literal.type;
 import static core.framework.internal.asm.Literal.variable;
@@ -33,42 +36,54 @@ final class RowMapperBuilder<T> {
         return builder.build();
     }
 
+    // resolve column indexes once per result set, and read values by index for all rows
     private String mapMethod() {
         var builder = new CodeBuilder().append("public Object map({} resultSet) {\n", type(ResultSetWrapper.class));
+        builder.indent(1).append("int[] slots = resultSet.slots(columns);\n");
         String entityClassLiteral = type(entityClass);
         builder.indent(1).append("{} entity = new {}();\n", entityClassLiteral, entityClassLiteral);
 
+        List<String> columns = new ArrayList<>();
         for (Field field : Classes.instanceFields(entityClass)) {
             String fieldName = field.getName();
             Class<?> fieldClass = field.getType();
-            String column = field.getDeclaredAnnotation(Column.class).name();
+            int slot = columns.size();
             if (Integer.class.equals(fieldClass)) {
-                builder.indent(1).append("entity.{} = resultSet.getInt(\"{}\");\n", fieldName, column);
+                builder.indent(1).append("entity.{} = resultSet.getInt(slots[{}]);\n", fieldName, slot);
             } else if (String.class.equals(fieldClass)) {
-                builder.indent(1).append("entity.{} = resultSet.getString(\"{}\");\n", fieldName, column);
+                builder.indent(1).append("entity.{} = resultSet.getString(slots[{}]);\n", fieldName, slot);
             } else if (Boolean.class.equals(fieldClass)) {
-                builder.indent(1).append("entity.{} = resultSet.getBoolean(\"{}\");\n", fieldName, column);
+                builder.indent(1).append("entity.{} = resultSet.getBoolean(slots[{}]);\n", fieldName, slot);
             } else if (Long.class.equals(fieldClass)) {
-                builder.indent(1).append("entity.{} = resultSet.getLong(\"{}\");\n", fieldName, column);
+                builder.indent(1).append("entity.{} = resultSet.getLong(slots[{}]);\n", fieldName, slot);
             } else if (LocalDateTime.class.equals(fieldClass)) {
-                builder.indent(1).append("entity.{} = resultSet.getLocalDateTime(\"{}\");\n", fieldName, column);
+                builder.indent(1).append("entity.{} = resultSet.getLocalDateTime(slots[{}]);\n", fieldName, slot);
             } else if (LocalDate.class.equals(fieldClass)) {
-                builder.indent(1).append("entity.{} = resultSet.getLocalDate(\"{}\");\n", fieldName, column);
+                builder.indent(1).append("entity.{} = resultSet.getLocalDate(slots[{}]);\n", fieldName, slot);
             } else if (ZonedDateTime.class.equals(fieldClass)) {
-                builder.indent(1).append("entity.{} = resultSet.getZonedDateTime(\"{}\");\n", fieldName, column);
+                builder.indent(1).append("entity.{} = resultSet.getZonedDateTime(slots[{}]);\n", fieldName, slot);
             } else if (fieldClass.isEnum()) {
                 registerEnumClass(fieldClass);
                 this.builder.addField("private final {} {}Mappings = new {}({});", type(DBEnumMapper.class), fieldName, type(DBEnumMapper.class), variable(fieldClass));
-                builder.indent(1).append("entity.{} = ({}){}Mappings.getEnum(resultSet.getString(\"{}\"));\n", fieldName, type(fieldClass), fieldName, column);
+                builder.indent(1).append("entity.{} = ({}){}Mappings.getEnum(resultSet.getString(slots[{}]));\n", fieldName, type(fieldClass), fieldName, slot);
             } else if (Double.class.equals(fieldClass)) {
-                builder.indent(1).append("entity.{} = resultSet.getDouble(\"{}\");\n", fieldName, column);
+                builder.indent(1).append("entity.{} = resultSet.getDouble(slots[{}]);\n", fieldName, slot);
             } else if (BigDecimal.class.equals(fieldClass)) {
-                builder.indent(1).append("entity.{} = resultSet.getBigDecimal(\"{}\");\n", fieldName, column);
+                builder.indent(1).append("entity.{} = resultSet.getBigDecimal(slots[{}]);\n", fieldName, slot);
+            } else {
+                continue;
             }
+            columns.add(ASCII.toLowerCase(field.getDeclaredAnnotation(Column.class).name()));
         }
         builder.indent(1).append("return entity;\n");
         builder.append("}");
 
+        var columnsLiteral = new StringBuilder();
+        for (String column : columns) {
+            if (columnsLiteral.length() > 0) columnsLiteral.append(", ");
+            columnsLiteral.append(variable(column));
+        }
+        this.builder.addField("private final String[] columns = new String[]{{}};", columnsLiteral);
         return builder.build();
     }
 
@@ -6,6 +6,7 @@ import core.framework.db.Table;
 import core.framework.internal.reflect.Classes;
 
 import java.lang.reflect.Field;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -13,15 +14,19 @@ import java.util.List;
  */
 final class SelectQuery<T> {
     final String getSQL;
+    final Keyset primaryKeyset;
     private final String table;
     private final String columns;
+    private final List<Field> fields;
+    private final List<Field> primaryKeyFields = new ArrayList<>();
     int primaryKeyColumns;
 
     SelectQuery(Class<T> entityClass) {
         table = entityClass.getDeclaredAnnotation(Table.class).name();
-        List<Field> fields = Classes.instanceFields(entityClass);
+        fields = Classes.instanceFields(entityClass);
         columns = columns(fields);
         getSQL = getSQL(fields);
+        primaryKeyset = new Keyset(primaryKeyFields);
     }
 
     private String getSQL(List<Field> fields) {
@@ -31,6 +36,7 @@ final class SelectQuery<T> {
                 Column column = field.getDeclaredAnnotation(Column.class);
                 if (primaryKeyColumns > 0) builder.append(" AND ");
                 builder.append(column.name()).append(" = ?");
+                primaryKeyFields.add(field);
                 primaryKeyColumns++;
             }
         }
@@ -49,6 +55,20 @@ final class SelectQuery<T> {
         return builder.toString();
     }
 
+    // order by column then primary keys, primary keys make keyset unique if column has duplicate values
+    Keyset keyset(String column) {
+        for (Field field : fields) {
+            if (field.getDeclaredAnnotation(Column.class).name().equals(column)) {
+                if (primaryKeyFields.contains(field)) throw new Error("keyset column must not be primary key, column=" + column);
+                List<Field> keysetFields = new ArrayList<>(primaryKeyFields.size() + 1);
+                keysetFields.add(field);
+                keysetFields.addAll(primaryKeyFields);
+                return new Keyset(keysetFields);
+            }
+        }
+        throw new Error("keyset column must be column of entity, column=" + column);
+    }
+
     String projectionSQL(String projection, StringBuilder where, String groupBy) {
         StringBuilder builder = new StringBuilder("SELECT ").append(projection).append(" FROM ").append(table);
         if (where.length() > 0) builder.append(" WHERE ").append(where);
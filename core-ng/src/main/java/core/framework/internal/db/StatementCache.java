@@ -0,0 +1,47 @@
+package core.framework.internal.db;
+
+import core.framework.internal.resource.Pool;
+
+import java.sql.PreparedStatement;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * LRU cache of prepared statements of one connection, statements are kept open and reused across operations,
+ * evicted statement is closed, and cached statements are closed along with connection,
+ * pooled connection is only used by one thread at a time, so it's not thread safe
+ *
+ * @author neo
+ */
+final class StatementCache {
+    // generated column is part of key, statement prepared with generated keys is different from plain one
+    static String key(String sql, String generatedColumn) {
+        if (generatedColumn == null) return sql;
+        return sql + '\n' + generatedColumn;
+    }
+
+    private final Map<String, PreparedStatement> statements;
+
+    StatementCache(int maxSize) {
+        statements = new LinkedHashMap<>(maxSize * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= maxSize) return false;
+                Pool.closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    PreparedStatement get(String key) {
+        return statements.get(key);
+    }
+
+    void put(String key, PreparedStatement statement) {
+        statements.put(key, statement);
+    }
+
+    int size() {
+        return statements.size();
+    }
+}
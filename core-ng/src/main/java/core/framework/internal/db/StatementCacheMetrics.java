@@ -0,0 +1,26 @@
+package core.framework.internal.db;
+
+import core.framework.internal.stat.Metrics;
+import core.framework.internal.stat.Stats;
+
+/**
+ * @author neo
+ */
+public class StatementCacheMetrics implements Metrics {
+    private final DatabaseImpl database;
+
+    public StatementCacheMetrics(DatabaseImpl database) {
+        this.database = database;
+    }
+
+    @Override
+    public void collect(Stats stats) {
+        stats.put(statName("statement_hits"), database.operation.statementHits.sum());
+        stats.put(statName("statement_misses"), database.operation.statementMisses.sum());
+    }
+
+    // same prefix as pool metrics
+    String statName(String statName) {
+        return "pool_" + database.name + '_' + statName;
+    }
+}
@@ -2,6 +2,8 @@ package core.framework.internal.db;
 
 import core.framework.db.Transaction;
 import core.framework.db.UncheckedSQLException;
+import core.framework.internal.log.ActionLog;
+import core.framework.internal.log.LogManager;
 import core.framework.internal.resource.Pool;
 import core.framework.internal.resource.PoolItem;
 import org.slf4j.Logger;
@@ -21,11 +23,19 @@ public final class TransactionManager {
     private final Logger logger = LoggerFactory.getLogger(TransactionManager.class);
     private final Pool<Connection> pool;
     public long longTransactionThresholdInNanos = Duration.ofSeconds(10).toNanos();
+    Pool<Connection> replicaPool;
 
     TransactionManager(Pool<Connection> pool) {
         this.pool = pool;
     }
 
+    // reads within transaction stay on primary, to see uncommitted writes
+    boolean readFromReplica() {
+        if (replicaPool == null || CURRENT_CONNECTION.get() != null) return false;
+        ActionLog actionLog = LogManager.CURRENT_ACTION_LOG.get();
+        return actionLog != null && actionLog.readFromReplica;
+    }
+
     PoolItem<Connection> getConnection() {
         PoolItem<Connection> connection = CURRENT_CONNECTION.get();
         if (connection != null) {
@@ -38,11 +48,24 @@ public final class TransactionManager {
         return pool.borrowItem();
     }
 
+    PoolItem<Connection> getConnection(boolean replica) {
+        if (replica) return replicaPool.borrowItem();
+        return getConnection();
+    }
+
     void returnConnection(PoolItem<Connection> connection) {
         if (CURRENT_CONNECTION.get() == null)
             returnConnectionToPool(connection, false);
     }
 
+    void returnConnection(PoolItem<Connection> connection, boolean replica) {
+        if (replica) {
+            replicaPool.returnItem(connection);
+        } else {
+            returnConnection(connection);
+        }
+    }
+
     Transaction beginTransaction() {
         if (CURRENT_CONNECTION.get() != null) throw new Error("nested transaction is not supported");
 
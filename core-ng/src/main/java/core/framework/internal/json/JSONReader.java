@@ -21,6 +21,10 @@ public final class JSONReader<T> {
         return reader.readValue(json);
     }
 
+    public T fromJSON(byte[] json, int offset, int length) throws IOException {
+        return reader.readValue(json, offset, length);
+    }
+
     public T fromJSON(String json) throws IOException {
         return reader.readValue(json);
     }
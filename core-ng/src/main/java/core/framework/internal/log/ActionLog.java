@@ -42,6 +42,7 @@ public final class ActionLog {
     public List<String> clients;
     public List<String> refIds;
     public boolean suppressSlowSQLWarning;
+    public boolean readFromReplica;
 
     long maxProcessTimeInNano;
     String errorMessage;
@@ -0,0 +1,13 @@
+package core.framework.internal.redis;
+
+import java.io.IOException;
+
+/**
+ * bytes is only valid within accept(), it may be the socket buffer, must not be held or modified
+ *
+ * @author neo
+ */
+@FunctionalInterface
+interface BlobStringConsumer {
+    void accept(int index, byte[] bytes, int offset, int length) throws IOException;
+}
@@ -0,0 +1,15 @@
+package core.framework.internal.redis;
+
+import javax.annotation.Nullable;
+
+/**
+ * decode value straight from redis reply buffer, bytes is only valid within decode(), must not be held or modified,
+ * return null to skip the value
+ *
+ * @author neo
+ */
+@FunctionalInterface
+public interface BlobStringDecoder<T> {
+    @Nullable
+    T decode(byte[] bytes, int offset, int length);
+}
@@ -0,0 +1,62 @@
+package core.framework.internal.redis;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * lightweight connection borrowed from pool in cluster mode, it collects commands until flush,
+ * then routes each command to node by key slot, and replays replies in original order
+ *
+ * @author neo
+ */
+class ClusterRedisConnection extends RedisConnection {
+    private final RedisCluster cluster;
+    private final List<byte[][]> commands = new ArrayList<>();
+    private byte[][] command;
+    private int argumentIndex;
+    private Object[] replies;
+    private int replyIndex;
+
+    ClusterRedisConnection(RedisCluster cluster) {
+        this.cluster = cluster;
+    }
+
+    @Override
+    void writeArray(int length) {
+        command = new byte[length][];
+        argumentIndex = 0;
+        commands.add(command);
+    }
+
+    @Override
+    void writeBlobString(byte[] value) {
+        command[argumentIndex++] = value;
+    }
+
+    @Override
+    void flush() throws IOException {
+        List<byte[][]> commands = new ArrayList<>(this.commands);
+        this.commands.clear();
+        replies = cluster.execute(commands);
+        replyIndex = 0;
+    }
+
+    @Override
+    Object read() throws IOException {
+        if (replies == null || replyIndex >= replies.length) throw new IOException("no more redis reply");
+        Object reply = replies[replyIndex++];
+        if (reply instanceof RedisException) throw (RedisException) reply;
+        return reply;
+    }
+
+    @Override
+    void readBlobStrings(BlobStringConsumer consumer) throws IOException {
+        readBlobStrings(readArray(), consumer);
+    }
+
+    @Override
+    public void close() {
+        // node connections are managed by cluster, nothing to release here
+    }
+}
@@ -0,0 +1,14 @@
+package core.framework.internal.redis;
+
+/**
+ * @author neo
+ */
+public final class ExpirableValue<T> {
+    public final T value;
+    public final long expirationTime;   // remaining ttl in ms, same as PTTL, -1 if key has no expiration
+
+    public ExpirableValue(T value, long expirationTime) {
+        this.value = value;
+        this.expirationTime = expirationTime;
+    }
+}
@@ -0,0 +1,77 @@
+package core.framework.internal.redis;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * lightweight connection borrowed from pool in multiplex mode, it buffers request until flush,
+ * then hands over to one of shared connections, and waits for replies dispatched by reader thread,
+ * all usages read all replies before next flush, so it's safe to pick shared connection per flush
+ *
+ * @author neo
+ */
+class MultiplexedRedisConnection extends RedisConnection {
+    private final RedisMultiplexer multiplexer;
+    private final ByteArrayOutputStream request = new ByteArrayOutputStream(512);
+    private final BlockingQueue<Object> replies = new LinkedBlockingQueue<>();
+    private final long timeoutInMs;
+    private int commands;
+    private SharedRedisConnection connection;
+
+    MultiplexedRedisConnection(RedisMultiplexer multiplexer, long timeoutInMs) {
+        this.multiplexer = multiplexer;
+        this.timeoutInMs = timeoutInMs;
+        outputStream = new RedisOutputStream(request, 8192);
+    }
+
+    @Override
+    void writeArray(int length) throws IOException {
+        commands++;     // every request is array of blob strings, so each top level array is one command
+        super.writeArray(length);
+    }
+
+    @Override
+    void flush() throws IOException {
+        outputStream.flush();
+        byte[] bytes = request.toByteArray();
+        int size = commands;
+        request.reset();
+        commands = 0;
+        connection = multiplexer.sharedConnection();
+        connection.write(this, bytes, size);
+    }
+
+    @Override
+    Object read() throws IOException {
+        Object reply;
+        try {
+            reply = replies.poll(timeoutInMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            throw new IOException("interrupted during waiting for redis reply", e);
+        }
+        if (reply == null) {
+            connection.close();     // same as socket read timeout, treat shared connection as broken, all pending callers will fail
+            throw new IOException("read redis reply timed out, timeout=" + timeoutInMs + "ms");
+        }
+        if (reply instanceof RedisException) throw (RedisException) reply;
+        if (reply instanceof IOException) throw (IOException) reply;
+        return reply;
+    }
+
+    @Override
+    void readBlobStrings(BlobStringConsumer consumer) throws IOException {
+        readBlobStrings(readArray(), consumer);
+    }
+
+    void reply(Object reply) {
+        replies.add(reply);
+    }
+
+    @Override
+    public void close() {
+        // shared connection is managed by multiplexer, nothing to release here
+    }
+}
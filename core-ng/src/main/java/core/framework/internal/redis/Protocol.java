@@ -5,7 +5,7 @@ import core.framework.util.Strings;
 import java.io.IOException;
 
 /**
- * refer to https://github.com/antirez/RESP3/blob/master/spec.md, currently only support RESP2
+ * refer to https://github.com/antirez/RESP3/blob/master/spec.md, support RESP2 and subset of RESP3 used by client tracking (HELLO 3)
  */
 final class Protocol {
     private static final byte BLOB_STRING_BYTE = '$';
@@ -13,6 +13,11 @@ final class Protocol {
     private static final byte SIMPLE_ERROR_BYTE = '-';
     private static final byte NUMBER_BYTE = ':';
     private static final byte ARRAY_BYTE = '*';
+    private static final byte NULL_BYTE = '_';
+    private static final byte BOOLEAN_BYTE = '#';
+    private static final byte MAP_BYTE = '%';
+    private static final byte SET_BYTE = '~';
+    private static final byte PUSH_BYTE = '>';
 
     static void writeArray(RedisOutputStream stream, int length) throws IOException {
         stream.write(ARRAY_BYTE);
@@ -29,6 +34,25 @@ final class Protocol {
         return parseObject(stream);
     }
 
+    // read array of blob strings without creating byte[] per element, e.g. reply of MGET
+    static void readBlobStrings(RedisInputStream stream, BlobStringConsumer consumer) throws IOException {
+        byte firstByte = stream.readByte();
+        if (firstByte == SIMPLE_ERROR_BYTE) throw new RedisException(stream.readSimpleString());
+        if (firstByte != ARRAY_BYTE) throw new IOException("unexpected redis response, firstByte=" + (char) firstByte);
+        int length = (int) stream.readLong();
+        for (int i = 0; i < length; i++) {
+            byte valueByte = stream.readByte();
+            if (valueByte == NULL_BYTE) {
+                readCRLF(stream);
+                continue;
+            }
+            if (valueByte != BLOB_STRING_BYTE) throw new IOException("unexpected redis response, firstByte=" + (char) valueByte);
+            int valueLength = (int) stream.readLong();
+            if (valueLength == -1) continue;
+            stream.readBlobString(i, valueLength, consumer);
+        }
+    }
+
     private static Object parseObject(RedisInputStream stream) throws IOException {
         byte firstByte = stream.readByte();
         return switch (firstByte) {
@@ -36,6 +60,14 @@ final class Protocol {
             case BLOB_STRING_BYTE -> parseBlobString(stream);
             case ARRAY_BYTE -> parseArray(stream);
             case NUMBER_BYTE -> stream.readLong();
+            case NULL_BYTE -> {
+                readCRLF(stream);
+                yield null;
+            }
+            case BOOLEAN_BYTE -> "t".equals(stream.readSimpleString());
+            case MAP_BYTE -> parseMap(stream);
+            case SET_BYTE -> parseArray(stream);
+            case PUSH_BYTE -> new Push(parseArray(stream));
             case SIMPLE_ERROR_BYTE -> {
                 String message = stream.readSimpleString();
                 throw new RedisException(message);
@@ -62,6 +94,29 @@ final class Protocol {
         return array;
     }
 
+    private static void readCRLF(RedisInputStream stream) throws IOException {
+        if (stream.readByte() != '\r' || stream.readByte() != '\n') throw new IOException("unexpected character");
+    }
+
+    // map is flatten as array of key value pairs, same as RESP2 reply of HGETALL
+    private static Object[] parseMap(RedisInputStream stream) throws IOException {
+        int length = (int) stream.readLong();
+        var array = new Object[length * 2];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = parseObject(stream);
+        }
+        return array;
+    }
+
+    // out of band message, e.g. invalidation of client tracking, it's not reply of any command
+    static final class Push {
+        final Object[] values;
+
+        Push(Object[] values) {
+            this.values = values;
+        }
+    }
+
     static class Command {
         static final byte[] AUTH = Strings.bytes("AUTH");
 
@@ -96,17 +151,36 @@ final class Protocol {
         static final byte[] RPUSH = Strings.bytes("RPUSH");
         static final byte[] LPOP = Strings.bytes("LPOP");
         static final byte[] LTRIM = Strings.bytes("LTRIM");
+        static final byte[] LREM = Strings.bytes("LREM");
+        static final byte[] LMOVE = Strings.bytes("LMOVE");
+        static final byte[] BLPOP = Strings.bytes("BLPOP");
+        static final byte[] BLMOVE = Strings.bytes("BLMOVE");
 
         static final byte[] SUBSCRIBE = Strings.bytes("SUBSCRIBE");
         static final byte[] PUBLISH = Strings.bytes("PUBLISH");
 
         static final byte[] INFO = Strings.bytes("INFO");
+        static final byte[] HELLO = Strings.bytes("HELLO");
+        static final byte[] CLIENT = Strings.bytes("CLIENT");
         static final byte[] QUIT = Strings.bytes("QUIT");
 
+        static final byte[] EVAL = Strings.bytes("EVAL");
+        static final byte[] EVALSHA = Strings.bytes("EVALSHA");
+
+        static final byte[] CLUSTER = Strings.bytes("CLUSTER");
+        static final byte[] ASKING = Strings.bytes("ASKING");
+
         static final byte[] ZADD = Strings.bytes("ZADD");
         static final byte[] ZRANGE = Strings.bytes("ZRANGE");
         static final byte[] ZRANGEBYSCORE = Strings.bytes("ZRANGEBYSCORE");
         static final byte[] ZREM = Strings.bytes("ZREM");
+
+        static final byte[] XADD = Strings.bytes("XADD");
+        static final byte[] XGROUP = Strings.bytes("XGROUP");
+        static final byte[] XREADGROUP = Strings.bytes("XREADGROUP");
+        static final byte[] XACK = Strings.bytes("XACK");
+        static final byte[] XAUTOCLAIM = Strings.bytes("XAUTOCLAIM");
+        static final byte[] XPENDING = Strings.bytes("XPENDING");
     }
 
     static class Keyword {
@@ -116,5 +190,17 @@ final class Protocol {
         static final byte[] PX = Strings.bytes("PX");
         static final byte[] LIMIT = Strings.bytes("LIMIT");
         static final byte[] WITHSCORES = Strings.bytes("WITHSCORES");
+        static final byte[] SLOTS = Strings.bytes("SLOTS");
+        static final byte[] TRACKING = Strings.bytes("TRACKING");
+        static final byte[] ON = Strings.bytes("ON");
+        static final byte[] NOLOOP = Strings.bytes("NOLOOP");
+        static final byte[] MAXLEN = Strings.bytes("MAXLEN");
+        static final byte[] CREATE = Strings.bytes("CREATE");
+        static final byte[] MKSTREAM = Strings.bytes("MKSTREAM");
+        static final byte[] GROUP = Strings.bytes("GROUP");
+        static final byte[] BLOCK = Strings.bytes("BLOCK");
+        static final byte[] STREAMS = Strings.bytes("STREAMS");
+        static final byte[] LEFT = Strings.bytes("LEFT");
+        static final byte[] RIGHT = Strings.bytes("RIGHT");
     }
 }
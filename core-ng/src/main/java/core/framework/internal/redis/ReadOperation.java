@@ -0,0 +1,13 @@
+package core.framework.internal.redis;
+
+import java.io.IOException;
+
+/**
+ * read only operation may be retried on another connection, e.g. on primary if replica failed, so it must not keep state across calls
+ *
+ * @author neo
+ */
+@FunctionalInterface
+interface ReadOperation<T> {
+    T read(RedisConnection connection) throws IOException;
+}
@@ -0,0 +1,366 @@
+package core.framework.internal.redis;
+
+import core.framework.internal.resource.Pool;
+import core.framework.internal.resource.PoolItem;
+import core.framework.util.Maps;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static core.framework.internal.redis.Protocol.Command.ASKING;
+import static core.framework.internal.redis.Protocol.Command.AUTH;
+import static core.framework.internal.redis.Protocol.Command.CLUSTER;
+import static core.framework.internal.redis.Protocol.Command.EVAL;
+import static core.framework.internal.redis.Protocol.Command.EVALSHA;
+import static core.framework.internal.redis.Protocol.Command.INFO;
+import static core.framework.internal.redis.Protocol.Command.PUBLISH;
+import static core.framework.internal.redis.Protocol.Command.QUIT;
+import static core.framework.internal.redis.Protocol.Command.SCAN;
+import static core.framework.internal.redis.Protocol.Command.SUBSCRIBE;
+import static core.framework.internal.redis.Protocol.Command.XGROUP;
+import static core.framework.internal.redis.Protocol.Command.XREADGROUP;
+import static core.framework.internal.redis.Protocol.Keyword.SLOTS;
+import static core.framework.internal.redis.Protocol.Keyword.STREAMS;
+import static core.framework.internal.redis.RedisEncodings.decode;
+import static core.framework.internal.redis.RedisEncodings.encode;
+
+/**
+ * route each command to the primary node serving slot of its key, refer to https://redis.io/topics/cluster-spec
+ *
+ * @author neo
+ */
+class RedisCluster {
+    static final int SLOT_SIZE = 16384;
+    private static final int MAX_REDIRECTS = 5;
+    private static final long MIN_REFRESH_INTERVAL_IN_MS = 1000;
+    private static final int[] CRC16_TABLE = new int[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {     // CRC16-CCITT (XMODEM), polynomial 0x1021
+            int crc = i << 8;
+            for (int j = 0; j < 8; j++) {
+                crc = (crc & 0x8000) != 0 ? (crc << 1) ^ 0x1021 : crc << 1;
+            }
+            CRC16_TABLE[i] = crc & 0xFFFF;
+        }
+    }
+
+    static int slot(byte[] key) {
+        int start = 0;
+        int end = key.length;
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] == '{') {    // only hash the content within first {}, if it's not empty, to put related keys into same slot
+                for (int j = i + 1; j < key.length; j++) {
+                    if (key[j] == '}') {
+                        if (j > i + 1) {
+                            start = i + 1;
+                            end = j;
+                        }
+                        break;
+                    }
+                }
+                break;
+            }
+        }
+        return crc16(key, start, end) & (SLOT_SIZE - 1);
+    }
+
+    static int crc16(byte[] bytes, int start, int end) {
+        int crc = 0;
+        for (int i = start; i < end; i++) {
+            crc = ((crc << 8) ^ CRC16_TABLE[((crc >>> 8) ^ bytes[i]) & 0xFF]) & 0xFFFF;
+        }
+        return crc;
+    }
+
+    // multi keys commands (MGET/MSET/DEL) only accept keys within same slot
+    static List<String[]> groupBySlot(String... keys) {
+        Map<Integer, List<String>> groups = new LinkedHashMap<>();
+        for (String key : keys) {
+            groups.computeIfAbsent(slot(encode(key)), slot -> new ArrayList<>()).add(key);
+        }
+        List<String[]> results = new ArrayList<>(groups.size());
+        for (List<String> group : groups.values()) {
+            results.add(group.toArray(String[]::new));
+        }
+        return results;
+    }
+
+    final Map<String, Node> nodes = Maps.newConcurrentHashMap();
+    private final Logger logger = LoggerFactory.getLogger(RedisCluster.class);
+    private final RedisConnectionFactory connectionFactory;
+    private final Pool<RedisConnection> handlePool;
+    private final String name;
+    private final List<RedisHost> seeds;
+    volatile Node[] slots;
+    private long lastRefreshTime;
+
+    RedisCluster(RedisConnectionFactory connectionFactory, Pool<RedisConnection> handlePool, String name, List<RedisHost> seeds) {
+        this.connectionFactory = connectionFactory;
+        this.handlePool = handlePool;
+        this.name = name;
+        this.seeds = seeds;
+    }
+
+    Object[] execute(List<byte[][]> commands) throws IOException {
+        int size = commands.size();
+        Map<Node, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i = 0; i < size; i++) {
+            groups.computeIfAbsent(node(commands.get(i)), node -> new ArrayList<>()).add(i);
+        }
+
+        Object[] replies = new Object[size];
+        List<Node> nodes = new ArrayList<>(groups.size());
+        List<PoolItem<RedisConnection>> items = new ArrayList<>(groups.size());
+        boolean completed = false;
+        try {
+            for (Map.Entry<Node, List<Integer>> entry : groups.entrySet()) {    // write to all nodes first, so nodes handle commands in parallel
+                Node node = entry.getKey();
+                PoolItem<RedisConnection> item = node.pool.borrowItem();
+                nodes.add(node);
+                items.add(item);
+                RedisConnection connection = item.resource;
+                for (int index : entry.getValue()) {
+                    write(connection, commands.get(index));
+                }
+                connection.flush();
+            }
+            int groupIndex = 0;
+            for (List<Integer> indexes : groups.values()) {
+                RedisConnection connection = items.get(groupIndex++).resource;
+                for (int index : indexes) {
+                    replies[index] = readReply(connection);
+                }
+            }
+            completed = true;
+        } finally {
+            for (int i = 0; i < items.size(); i++) {
+                PoolItem<RedisConnection> item = items.get(i);
+                if (!completed) item.broken = true;     // replies may not be fully read, connection is out of sync
+                nodes.get(i).pool.returnItem(item);
+            }
+        }
+
+        for (int i = 0; i < size; i++) {
+            if (replies[i] instanceof RedisException) {
+                replies[i] = redirect(commands.get(i), (RedisException) replies[i]);
+            }
+        }
+        return replies;
+    }
+
+    private Object redirect(byte[][] command, RedisException error) throws IOException {
+        RedisException current = error;
+        for (int i = 0; i < MAX_REDIRECTS; i++) {
+            String message = current.getMessage();
+            boolean moved = message.startsWith("MOVED ");
+            boolean ask = message.startsWith("ASK ");
+            if (!moved && !ask) return current;
+
+            RedisHost host = new RedisHost(message.substring(message.lastIndexOf(' ') + 1));   // format: MOVED 3999 127.0.0.1:6381
+            logger.debug("redirect redis command, command={}, error={}", decode(command[0]), message);
+            if (moved) refreshSlots();
+            Object reply = send(node(host), command, ask);
+            if (!(reply instanceof RedisException)) return reply;
+            current = (RedisException) reply;
+        }
+        return current;
+    }
+
+    private Object send(Node node, byte[][] command, boolean asking) throws IOException {
+        PoolItem<RedisConnection> item = node.pool.borrowItem();
+        try {
+            RedisConnection connection = item.resource;
+            if (asking) {
+                connection.writeArray(1);
+                connection.writeBlobString(ASKING);
+            }
+            write(connection, command);
+            connection.flush();
+            if (asking) readReply(connection);
+            return readReply(connection);
+        } catch (IOException e) {
+            item.broken = true;
+            throw e;
+        } finally {
+            node.pool.returnItem(item);
+        }
+    }
+
+    private void write(RedisConnection connection, byte[][] command) throws IOException {
+        connection.writeArray(command.length);
+        for (byte[] argument : command) {
+            connection.writeBlobString(argument);
+        }
+    }
+
+    private Object readReply(RedisConnection connection) throws IOException {
+        try {
+            return connection.read();
+        } catch (RedisException e) {
+            return e;
+        }
+    }
+
+    private Node node(byte[][] command) {
+        Node[] slots = slots();
+        int keyIndex = keyIndex(command);
+        if (keyIndex < 0) return anyNode(slots);
+        int slot = slot(command[keyIndex]);
+        Node node = slots[slot];
+        if (node == null) {
+            refreshSlots();
+            node = this.slots[slot];
+            if (node == null) throw new RedisException("CLUSTERDOWN slot is not served by any node, slot=" + slot);
+        }
+        return node;
+    }
+
+    // EVAL/EVALSHA format: [command, script, numkeys, key1...], all keys of script must be in same slot
+    // XGROUP format: [command, subcommand, key, ...], XREADGROUP format: [command, ..., STREAMS, key1..., id1...]
+    private int keyIndex(byte[][] command) {
+        if (command[0] == EVAL || command[0] == EVALSHA) {
+            return command.length > 3 && !"0".equals(decode(command[2])) ? 3 : -1;
+        }
+        if (command[0] == XGROUP) return command.length > 2 ? 2 : -1;
+        if (command[0] == XREADGROUP) {
+            for (int i = 1; i < command.length - 1; i++) {
+                if (command[i] == STREAMS) return i + 1;
+            }
+            return -1;
+        }
+        if (command.length < 2 || keyless(command[0])) return -1;
+        return 1;
+    }
+
+    private boolean keyless(byte[] command) {
+        return command == SCAN || command == INFO || command == PUBLISH || command == SUBSCRIBE || command == AUTH || command == QUIT || command == CLUSTER;
+    }
+
+    private Node anyNode(Node[] slots) {
+        int start = ThreadLocalRandom.current().nextInt(SLOT_SIZE);
+        for (int i = 0; i < SLOT_SIZE; i++) {
+            Node node = slots[(start + i) % SLOT_SIZE];
+            if (node != null) return node;
+        }
+        throw new RedisException("CLUSTERDOWN no node serves any slot");
+    }
+
+    // all primary nodes, e.g. to scan keys of entire cluster
+    List<Pool<RedisConnection>> primaryPools() {
+        Set<Node> nodes = new LinkedHashSet<>(Arrays.asList(slots()));
+        nodes.remove(null);
+        List<Pool<RedisConnection>> pools = new ArrayList<>(nodes.size());
+        for (Node node : nodes) {
+            pools.add(node.pool);
+        }
+        return pools;
+    }
+
+    private Node[] slots() {
+        Node[] slots = this.slots;
+        if (slots == null) {
+            refreshSlots();
+            slots = this.slots;
+        }
+        return slots;
+    }
+
+    synchronized void refreshSlots() {
+        long now = System.currentTimeMillis();
+        if (slots != null && now - lastRefreshTime < MIN_REFRESH_INTERVAL_IN_MS) return;    // multiple callers may get MOVED at same time, only refresh once
+
+        List<RedisHost> hosts = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            hosts.add(node.host);
+        }
+        hosts.addAll(seeds);
+        Exception lastError = null;
+        for (RedisHost host : hosts) {
+            try {
+                slots = loadSlots(node(host));
+                lastRefreshTime = now;
+                logger.info("refreshed redis cluster slots, name={}, host={}", name, host);
+                return;
+            } catch (UncheckedIOException | RedisException e) {
+                logger.warn("failed to load redis cluster slots, host={}, error={}", host, e.getMessage(), e);
+                lastError = e;
+            }
+        }
+        throw new UncheckedIOException(new IOException("failed to load redis cluster slots from any host, name=" + name, lastError));
+    }
+
+    private Node[] loadSlots(Node node) {
+        PoolItem<RedisConnection> item = node.pool.borrowItem();
+        try {
+            RedisConnection connection = item.resource;
+            connection.writeArray(2);
+            connection.writeBlobString(CLUSTER);
+            connection.writeBlobString(SLOTS);
+            connection.flush();
+            Object[] response = connection.readArray();
+            var slots = new Node[SLOT_SIZE];
+            for (Object value : response) {     // format: [start, end, [host, port, id], replicas...]
+                Object[] range = (Object[]) value;
+                int start = (int) (long) (Long) range[0];
+                int end = (int) (long) (Long) range[1];
+                Object[] primary = (Object[]) range[2];
+                Node primaryNode = node(new RedisHost(decode((byte[]) primary[0]) + ':' + primary[1]));
+                Arrays.fill(slots, start, end + 1, primaryNode);
+            }
+            return slots;
+        } catch (IOException e) {
+            item.broken = true;
+            throw new UncheckedIOException(e);
+        } finally {
+            node.pool.returnItem(item);
+        }
+    }
+
+    Node node(RedisHost host) {
+        return nodes.computeIfAbsent(host.toString(), key -> {
+            var factory = new RedisConnectionFactory();
+            factory.host = host;
+            factory.password = connectionFactory.password;
+            factory.timeoutInMs = connectionFactory.timeoutInMs;
+            var pool = new Pool<>(factory, name + "-" + key);
+            pool.size(handlePool.minSize(), handlePool.maxSize());    // read configured size lazily, poolSize() may be called after cluster()
+            pool.maxIdleTime = Duration.ofMinutes(30);
+            pool.checkoutTimeout(Duration.ofMillis(connectionFactory.timeoutInMs));
+            return new Node(host, pool);
+        });
+    }
+
+    void refreshPools() {
+        for (Node node : nodes.values()) {
+            node.pool.refresh();
+        }
+    }
+
+    void close() {
+        for (Node node : nodes.values()) {
+            node.pool.close();
+        }
+    }
+
+    static final class Node {
+        final RedisHost host;
+        final Pool<RedisConnection> pool;
+
+        Node(RedisHost host, Pool<RedisConnection> pool) {
+            this.host = host;
+            this.pool = pool;
+        }
+    }
+}
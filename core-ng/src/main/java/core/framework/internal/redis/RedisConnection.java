@@ -26,6 +26,10 @@ class RedisConnection implements AutoCloseable {
         inputStream = new RedisInputStream(socket.getInputStream());
     }
 
+    void readTimeout(int timeoutInMs) throws IOException {
+        socket.setSoTimeout(timeoutInMs);
+    }
+
     void writeCommand(byte[] command) throws IOException {
         writeArray(1);
         writeBlobString(command);
@@ -93,31 +97,43 @@ class RedisConnection implements AutoCloseable {
     }
 
     String readSimpleString() throws IOException {
-        return (String) Protocol.read(inputStream);
+        return (String) read();
     }
 
     byte[] readBlobString() throws IOException {
-        return (byte[]) Protocol.read(inputStream);
+        return (byte[]) read();
     }
 
     long readLong() throws IOException {
-        return (long) Protocol.read(inputStream);
+        return (long) read();
     }
 
     Object[] readArray() throws IOException {
-        return (Object[]) Protocol.read(inputStream);
+        return (Object[]) read();
     }
 
     Object read() throws IOException {
         return Protocol.read(inputStream);
     }
 
+    void readBlobStrings(BlobStringConsumer consumer) throws IOException {
+        Protocol.readBlobStrings(inputStream, consumer);
+    }
+
+    // for connections without own input stream, replies are already parsed
+    void readBlobStrings(Object[] values, BlobStringConsumer consumer) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            byte[] value = (byte[]) values[i];
+            if (value != null) consumer.accept(i, value, 0, value.length);
+        }
+    }
+
     Object[] readAll(int size) throws IOException {
         RedisException exception = null;
         Object[] results = new Object[size];
         for (int i = 0; i < size; i++) {
             try {
-                results[i] = Protocol.read(inputStream);
+                results[i] = read();
             } catch (RedisException e) {
                 exception = e;
             }
@@ -16,13 +16,21 @@ class RedisConnectionFactory implements Supplier<RedisConnection> {
     RedisHost host;
     String password;
     int timeoutInMs = (int) Duration.ofSeconds(5).toMillis();
+    RedisMultiplexer multiplexer;
+    RedisCluster cluster;
 
     @Override
     public RedisConnection get() {
+        if (multiplexer != null) return multiplexer.connection();
+        if (cluster != null) return new ClusterRedisConnection(cluster);
         return create(timeoutInMs);
     }
 
     RedisConnection create(int timeoutInMs) {
+        return create(host, timeoutInMs);
+    }
+
+    RedisConnection create(RedisHost host, int timeoutInMs) {
         if (host == null) throw new Error("redis host must not be null");
         var connection = new RedisConnection(); // this won't throw exception
         try {
@@ -41,17 +41,13 @@ public final class RedisHashImpl implements RedisHash {
         validate("key", key);
         validate("field", field);
         String value = null;
-        PoolItem<RedisConnection> item = redis.pool.borrowItem();
         try {
-            RedisConnection connection = item.resource;
-            connection.writeKeyArgumentCommand(HGET, key, encode(field));
-            value = decode(connection.readBlobString());
+            value = decode(redis.read(connection -> {
+                connection.writeKeyArgumentCommand(HGET, key, encode(field));
+                return connection.readBlobString();
+            }));
             return value;
-        } catch (IOException e) {
-            item.broken = true;
-            throw new UncheckedIOException(e);
         } finally {
-            redis.pool.returnItem(item);
             long elapsed = watch.elapsed();
             ActionLogContext.track("redis", elapsed, 1, 0);
             logger.debug("hget, key={}, field={}, returnedValue={}, elapsed={}", key, field, value, elapsed);
@@ -63,23 +59,20 @@ public final class RedisHashImpl implements RedisHash {
     public Map<String, String> getAll(String key) {
         var watch = new StopWatch();
         validate("key", key);
-        PoolItem<RedisConnection> item = redis.pool.borrowItem();
         Map<String, String> values = null;
         try {
-            RedisConnection connection = item.resource;
-            connection.writeKeyCommand(HGETALL, key);
-            Object[] response = connection.readArray();
-            if (response.length % 2 != 0) throw new IOException("unexpected length of array, length=" + response.length);
+            Object[] response = redis.read(connection -> {
+                connection.writeKeyCommand(HGETALL, key);
+                Object[] result = connection.readArray();
+                if (result.length % 2 != 0) throw new IOException("unexpected length of array, length=" + result.length);
+                return result;
+            });
             values = Maps.newHashMapWithExpectedSize(response.length / 2);
             for (int i = 0; i < response.length; i += 2) {
                 values.put(decode((byte[]) response[i]), decode((byte[]) response[i + 1]));
             }
             return values;
-        } catch (IOException e) {
-            item.broken = true;
-            throw new UncheckedIOException(e);
         } finally {
-            redis.pool.returnItem(item);
             long elapsed = watch.elapsed();
             ActionLogContext.track("redis", elapsed, values == null ? 0 : values.size(), 0);
             logger.debug("hgetAll, key={}, returnedValues={}, elapsed={}", key, values, elapsed);
@@ -8,13 +8,17 @@ import core.framework.internal.resource.Pool;
 import core.framework.internal.resource.PoolItem;
 import core.framework.log.ActionLogContext;
 import core.framework.log.Markers;
+import core.framework.redis.ReadPolicy;
 import core.framework.redis.Redis;
 import core.framework.redis.RedisAdmin;
 import core.framework.redis.RedisHash;
 import core.framework.redis.RedisHyperLogLog;
 import core.framework.redis.RedisList;
+import core.framework.redis.RedisPipeline;
+import core.framework.redis.RedisScript;
 import core.framework.redis.RedisSet;
 import core.framework.redis.RedisSortedSet;
+import core.framework.redis.RedisStream;
 import core.framework.util.Maps;
 import core.framework.util.StopWatch;
 import org.slf4j.Logger;
@@ -23,6 +27,8 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
@@ -55,10 +61,14 @@ public class RedisImpl implements Redis {
     private final RedisList redisList = new RedisListImpl(this);
     private final RedisSortedSet redisSortedSet = new RedisSortedSetImpl(this);
     private final RedisHyperLogLog redisHyperLogLog = new RedisHyperLogLogImpl(this);
+    private final RedisStream redisStream = new RedisStreamImpl(this);
     private final RedisPubSub pubSub = new RedisPubSub(this);
     private final RedisAdmin redisAdmin = new RedisAdminImpl(this);
     private final String name;
     public Pool<RedisConnection> pool;
+    public Pool<RedisConnection> replicaPool;
+    private RedisReplicaConnectionFactory replicaConnectionFactory;
+    private ReadPolicy readPolicy = ReadPolicy.PRIMARY;
     long slowOperationThresholdInNanos = Duration.ofMillis(500).toNanos();
 
     public RedisImpl(String name) {
@@ -80,6 +90,95 @@ public class RedisImpl implements Redis {
     public void timeout(Duration timeout) {
         connectionFactory.timeoutInMs = (int) timeout.toMillis();
         pool.checkoutTimeout(timeout);
+        if (replicaPool != null) replicaPool.checkoutTimeout(timeout);
+    }
+
+    // share given number of connections across all callers, replies are matched to callers in FIFO order,
+    // pool items become lightweight handles in this mode, so pool size only limits concurrent operations
+    public void multiplex(int connections) {
+        if (connectionFactory.cluster != null) throw new Error("multiplex is not supported in cluster mode");
+        connectionFactory.multiplexer = new RedisMultiplexer(connectionFactory, name, connections);
+    }
+
+    // redis 6 client side caching, reads and writes go through one RESP3 connection with CLIENT TRACKING on,
+    // server pushes invalidation of keys read by this client to listener, refer to https://redis.io/topics/client-side-caching
+    public void clientTracking(RedisTrackingListener listener) {
+        if (connectionFactory.cluster != null) throw new Error("client tracking is not supported in cluster mode");
+        var multiplexer = new RedisMultiplexer(connectionFactory, name, 1);
+        multiplexer.trackingListener = listener;
+        connectionFactory.multiplexer = multiplexer;
+    }
+
+    // hosts are seed nodes to discover cluster slots, commands are routed to primary node by key slot,
+    // pool items become lightweight handles in this mode, each node has its own connection pool
+    public void cluster(String... hosts) {
+        if (connectionFactory.multiplexer != null) throw new Error("cluster is not supported in multiplex mode");
+        if (replicaPool != null) throw new Error("cluster is not supported with replicas, cluster routes commands to primary nodes");
+        List<RedisHost> seeds = new ArrayList<>(hosts.length);
+        for (String host : hosts) {
+            seeds.add(new RedisHost(host));
+        }
+        connectionFactory.host = seeds.get(0);  // pub/sub and direct connections use first seed node, redis cluster broadcasts messages to all nodes
+        connectionFactory.cluster = new RedisCluster(connectionFactory, pool, name, seeds);
+    }
+
+    // read only operations go to replicas by read policy, writes always go to primary,
+    // replicas are replicated asynchronously, so reads may not see latest writes
+    public void replicas(String... hosts) {
+        if (connectionFactory.cluster != null) throw new Error("replicas are not supported in cluster mode");
+        if (hosts.length == 0) throw new Error("replica hosts must not be empty");
+        List<RedisHost> replicaHosts = new ArrayList<>(hosts.length);
+        for (String host : hosts) {
+            replicaHosts.add(new RedisHost(host));
+        }
+        replicaConnectionFactory = new RedisReplicaConnectionFactory(connectionFactory, replicaHosts);
+        replicaPool = new Pool<>(replicaConnectionFactory, name + "-replica");
+        replicaPool.size(pool.minSize(), pool.maxSize());
+        replicaPool.maxIdleTime = Duration.ofMinutes(30);
+        replicaPool.checkoutTimeout(Duration.ofMillis(connectionFactory.timeoutInMs));
+        readPolicy = ReadPolicy.PREFER_REPLICA;
+    }
+
+    public void readPolicy(ReadPolicy policy) {
+        if (policy != ReadPolicy.PRIMARY && replicaPool == null) throw new Error("replicas are not configured, policy=" + policy);
+        readPolicy = policy;
+    }
+
+    Pool<RedisConnection> readPool() {
+        if (readPolicy == ReadPolicy.PRIMARY) return pool;
+        if (readPolicy == ReadPolicy.PREFER_REPLICA && replicaConnectionFactory.failedRecently()) return pool;
+        return replicaPool;
+    }
+
+    // with prefer replica policy, retry on primary if replica connection failed, only for read only operations which are safe to retry
+    <T> T read(ReadOperation<T> operation) {
+        Pool<RedisConnection> pool = readPool();
+        if (pool == this.pool || readPolicy != ReadPolicy.PREFER_REPLICA) return read(pool, operation);
+        try {
+            return read(pool, operation);
+        } catch (UncheckedIOException e) {
+            replicaConnectionFactory.failed();
+            logger.warn("failed to read from replica, retry on primary, error={}", e.getMessage(), e);
+            return read(this.pool, operation);
+        }
+    }
+
+    private <T> T read(Pool<RedisConnection> pool, ReadOperation<T> operation) {
+        PoolItem<RedisConnection> item = pool.borrowItem();
+        try {
+            return operation.read(item.resource);
+        } catch (IOException e) {
+            item.broken = true;
+            throw new UncheckedIOException(e);
+        } finally {
+            pool.returnItem(item);
+        }
+    }
+
+    public void refreshPool() {
+        pool.refresh();
+        if (replicaPool != null) replicaPool.refresh();
+        if (connectionFactory.cluster != null) connectionFactory.cluster.refreshPools();
     }
 
     public void slowOperationThreshold(Duration threshold) {
@@ -89,6 +188,9 @@ public class RedisImpl implements Redis {
     public void close() {
         logger.info("close redis client, name={}, host={}", name, connectionFactory.host);
         pool.close();
+        if (replicaPool != null) replicaPool.close();
+        if (connectionFactory.multiplexer != null) connectionFactory.multiplexer.close();
+        if (connectionFactory.cluster != null) connectionFactory.cluster.close();
     }
 
     @Override
@@ -100,17 +202,13 @@ public class RedisImpl implements Redis {
     public byte[] getBytes(String key) {
         var watch = new StopWatch();
         byte[] value = null;
-        PoolItem<RedisConnection> item = pool.borrowItem();
         try {
-            RedisConnection connection = item.resource;
-            connection.writeKeyCommand(GET, key);
-            value = connection.readBlobString();
+            value = read(connection -> {
+                connection.writeKeyCommand(GET, key);
+                return connection.readBlobString();
+            });
             return value;
-        } catch (IOException e) {
-            item.broken = true;
-            throw new UncheckedIOException(e);
         } finally {
-            pool.returnItem(item);
             long elapsed = watch.elapsed();
             ActionLogContext.track("redis", elapsed, 1, 0);
             logger.debug("get, key={}, returnedValue={}, elapsed={}", key, new BytesLogParam(value), elapsed);
@@ -192,8 +290,19 @@ public class RedisImpl implements Redis {
         PoolItem<RedisConnection> item = pool.borrowItem();
         try {
             RedisConnection connection = item.resource;
-            connection.writeKeysCommand(DEL, keys);
-            deletedKeys = connection.readLong();
+            if (connectionFactory.cluster == null) {
+                connection.writeKeysCommand(DEL, keys);
+                deletedKeys = connection.readLong();
+            } else {
+                List<String[]> groups = RedisCluster.groupBySlot(keys);
+                for (String[] group : groups) {
+                    writeKeys(connection, DEL, group);
+                }
+                connection.flush();
+                for (Object result : connection.readAll(groups.size())) {
+                    deletedKeys += (Long) result;
+                }
+            }
             return deletedKeys;
         } catch (IOException e) {
             item.broken = true;
@@ -244,24 +353,117 @@ public class RedisImpl implements Redis {
         var watch = new StopWatch();
         validate("keys", keys);
         Map<String, byte[]> values = Maps.newLinkedHashMapWithExpectedSize(keys.length);
-        PoolItem<RedisConnection> item = pool.borrowItem();
         try {
-            RedisConnection connection = item.resource;
-            connection.writeKeysCommand(MGET, keys);
-            Object[] response = connection.readArray();
-            for (int i = 0; i < response.length; i++) {
-                byte[] value = (byte[]) response[i];
-                if (value != null) values.put(keys[i], value);
+            return read(connection -> {
+                values.clear();     // discard partial result if retried on primary
+                if (connectionFactory.cluster == null) {
+                    connection.writeKeysCommand(MGET, keys);
+                    readValues(connection, keys, values);
+                } else {
+                    List<String[]> groups = RedisCluster.groupBySlot(keys);
+                    for (String[] group : groups) {
+                        writeKeys(connection, MGET, group);
+                    }
+                    connection.flush();
+                    for (String[] group : groups) {
+                        readValues(connection, group, values);
+                    }
+                }
+                return values;
+            });
+        } finally {
+            long elapsed = watch.elapsed();
+            ActionLogContext.track("redis", elapsed, values.size(), 0);
+            logger.debug("mget, keys={}, size={}, returnedValues={}, elapsed={}", new ArrayLogParam(keys), keys.length, new BytesMapLogParam(values), elapsed);
+            checkSlowOperation(elapsed);
+        }
+    }
+
+    private void readValues(RedisConnection connection, String[] keys, Map<String, byte[]> values) throws IOException {
+        Object[] response = connection.readArray();
+        for (int i = 0; i < response.length; i++) {
+            byte[] value = (byte[]) response[i];
+            if (value != null) values.put(keys[i], value);
+        }
+    }
+
+    // decode values straight from reply buffer, to avoid creating byte[] per value and intermediate map, e.g. for cache getAll
+    public <T> Map<String, T> multiGet(String[] keys, BlobStringDecoder<T> decoder) {
+        var watch = new StopWatch();
+        validate("keys", keys);
+        Map<String, T> values = Maps.newHashMapWithExpectedSize(keys.length);
+        int[] returnedValues = new int[1];
+        try {
+            return read(connection -> {
+                values.clear();     // discard partial result if retried on primary
+                returnedValues[0] = 0;
+                if (connectionFactory.cluster == null) {
+                    connection.writeKeysCommand(MGET, keys);
+                    readValues(connection, keys, decoder, values, returnedValues);
+                } else {
+                    List<String[]> groups = RedisCluster.groupBySlot(keys);
+                    for (String[] group : groups) {
+                        writeKeys(connection, MGET, group);
+                    }
+                    connection.flush();
+                    for (String[] group : groups) {
+                        readValues(connection, group, decoder, values, returnedValues);
+                    }
+                }
+                return values;
+            });
+        } finally {
+            long elapsed = watch.elapsed();
+            ActionLogContext.track("redis", elapsed, returnedValues[0], 0);
+            logger.debug("mget, keys={}, size={}, returnedValues={}, elapsed={}", new ArrayLogParam(keys), keys.length, returnedValues[0], elapsed);
+            checkSlowOperation(elapsed);
+        }
+    }
+
+    private <T> void readValues(RedisConnection connection, String[] keys, BlobStringDecoder<T> decoder, Map<String, T> values, int[] returnedValues) throws IOException {
+        connection.readBlobStrings((index, bytes, offset, length) -> {
+            returnedValues[0]++;
+            T value;
+            try {
+                value = decoder.decode(bytes, offset, length);
+            } catch (RuntimeException e) {  // stop in middle of reply, connection must be discarded
+                throw new IOException("failed to decode redis value, key=" + keys[index], e);
+            }
+            if (value != null) values.put(keys[index], value);
+        });
+    }
+
+    // pipeline GET and PTTL per key to read value along with remaining ttl in one round trip
+    public <T> Map<String, ExpirableValue<T>> multiGetWithExpirationTime(String[] keys, BlobStringDecoder<T> decoder) {
+        var watch = new StopWatch();
+        validate("keys", keys);
+        int size = keys.length;
+        Map<String, ExpirableValue<T>> values = Maps.newHashMapWithExpectedSize(size);
+        try {
+            Object[] results = read(connection -> {
+                for (String key : keys) {
+                    byte[] encodedKey = encode(key);
+                    connection.writeArray(2);
+                    connection.writeBlobString(GET);
+                    connection.writeBlobString(encodedKey);
+                    connection.writeArray(2);
+                    connection.writeBlobString(PTTL);
+                    connection.writeBlobString(encodedKey);
+                }
+                connection.flush();
+                return connection.readAll(size * 2);
+            });
+            for (int i = 0; i < size; i++) {
+                byte[] bytes = (byte[]) results[i * 2];
+                if (bytes == null) continue;
+                T value = decoder.decode(bytes, 0, bytes.length);
+                if (value != null) values.put(keys[i], new ExpirableValue<>(value, (Long) results[i * 2 + 1]));
             }
             return values;
-        } catch (IOException e) {
-            item.broken = true;
-            throw new UncheckedIOException(e);
         } finally {
-            pool.returnItem(item);
             long elapsed = watch.elapsed();
             ActionLogContext.track("redis", elapsed, values.size(), 0);
-            logger.debug("mget, keys={}, size={}, returnedValues={}, elapsed={}", new ArrayLogParam(keys), keys.length, new BytesMapLogParam(values), elapsed);
+            logger.debug("get/pttl, keys={}, size={}, returnedValues={}, elapsed={}", new ArrayLogParam(keys), size, values.size(), elapsed);
             checkSlowOperation(elapsed);
         }
     }
@@ -273,14 +475,28 @@ public class RedisImpl implements Redis {
         PoolItem<RedisConnection> item = pool.borrowItem();
         try {
             RedisConnection connection = item.resource;
-            connection.writeArray(1 + values.size() * 2);
-            connection.writeBlobString(MSET);
-            for (Map.Entry<String, String> entry : values.entrySet()) {
-                connection.writeBlobString(encode(entry.getKey()));
-                connection.writeBlobString(encode(entry.getValue()));
+            if (connectionFactory.cluster == null) {
+                connection.writeArray(1 + values.size() * 2);
+                connection.writeBlobString(MSET);
+                for (Map.Entry<String, String> entry : values.entrySet()) {
+                    connection.writeBlobString(encode(entry.getKey()));
+                    connection.writeBlobString(encode(entry.getValue()));
+                }
+                connection.flush();
+                connection.readSimpleString();
+            } else {
+                List<String[]> groups = RedisCluster.groupBySlot(values.keySet().toArray(String[]::new));
+                for (String[] group : groups) {
+                    connection.writeArray(1 + group.length * 2);
+                    connection.writeBlobString(MSET);
+                    for (String key : group) {
+                        connection.writeBlobString(encode(key));
+                        connection.writeBlobString(encode(values.get(key)));
+                    }
+                }
+                connection.flush();
+                connection.readAll(groups.size());
             }
-            connection.flush();
-            connection.readSimpleString();
         } catch (IOException e) {
             item.broken = true;
             throw new UncheckedIOException(e);
@@ -341,11 +557,21 @@ public class RedisImpl implements Redis {
 
     @Override
     public void forEach(String pattern, Consumer<String> consumer) {
-        var watch = new StopWatch();
         if (pattern == null) throw new Error("pattern must not be null");
+        if (connectionFactory.cluster == null) {
+            forEach(readPool(), pattern, consumer);     // one connection for entire scan, cursor is only valid on same server
+        } else {
+            for (Pool<RedisConnection> nodePool : connectionFactory.cluster.primaryPools()) {   // each node only scans its own keys
+                forEach(nodePool, pattern, consumer);
+            }
+        }
+    }
+
+    private void forEach(Pool<RedisConnection> connectionPool, String pattern, Consumer<String> consumer) {
+        var watch = new StopWatch();
         long start = System.nanoTime();
         long redisTook = 0;
-        PoolItem<RedisConnection> item = pool.borrowItem();
+        PoolItem<RedisConnection> item = connectionPool.borrowItem();
         int returnedKeys = 0;
         try {
             RedisConnection connection = item.resource;
@@ -374,7 +600,7 @@ public class RedisImpl implements Redis {
             item.broken = true;
             throw new UncheckedIOException(e);
         } finally {
-            pool.returnItem(item);
+            connectionPool.returnItem(item);
             long elapsed = watch.elapsed();
             ActionLogContext.track("redis", redisTook, returnedKeys, 0);
             logger.debug("scan, pattern={}, returnedKeys={}, redisTook={}, elapsed={}", pattern, returnedKeys, redisTook, elapsed);
@@ -391,31 +617,43 @@ public class RedisImpl implements Redis {
         return redisHyperLogLog;
     }
 
+    @Override
+    public RedisStream stream() {
+        return redisStream;
+    }
+
+    @Override
+    public RedisPipeline pipeline() {
+        return new RedisPipelineImpl(this);
+    }
+
+    @Override
+    public RedisScript script(String script) {
+        if (script == null) throw new Error("script must not be null");
+        return new RedisScriptImpl(this, script);
+    }
+
     public long[] expirationTime(String... keys) {
         var watch = new StopWatch();
         int size = keys.length;
         long[] expirationTimes = null;
-        PoolItem<RedisConnection> item = pool.borrowItem();
         try {
-            RedisConnection connection = item.resource;
-            for (String key : keys) {
-                connection.writeArray(2);
-                connection.writeBlobString(PTTL);
-                connection.writeBlobString(encode(key));
-            }
-            connection.flush();
-            Object[] results = connection.readAll(size);
+            Object[] results = read(connection -> {
+                for (String key : keys) {
+                    connection.writeArray(2);
+                    connection.writeBlobString(PTTL);
+                    connection.writeBlobString(encode(key));
+                }
+                connection.flush();
+                return connection.readAll(size);
+            });
             expirationTimes = new long[size];
             for (int i = 0; i < results.length; i++) {
                 Long result = (Long) results[i];
                 expirationTimes[i] = result;
             }
             return expirationTimes;
-        } catch (IOException e) {
-            item.broken = true;
-            throw new UncheckedIOException(e);
         } finally {
-            pool.returnItem(item);
             long elapsed = watch.elapsed();
             ActionLogContext.track("redis", elapsed, size, 0);
             logger.debug("pttl,  keys={}, size={}, returnedValues={}, elapsed={}", new ArrayLogParam(keys), size, expirationTimes, elapsed);
@@ -427,6 +665,14 @@ public class RedisImpl implements Redis {
         return pubSub;
     }
 
+    private void writeKeys(RedisConnection connection, byte[] command, String[] keys) throws IOException {
+        connection.writeArray(1 + keys.length);
+        connection.writeBlobString(command);
+        for (String key : keys) {
+            connection.writeBlobString(encode(key));
+        }
+    }
+
     void checkSlowOperation(long elapsed) {
         if (elapsed > slowOperationThresholdInNanos)
             logger.warn(Markers.errorCode("SLOW_REDIS"), "slow redis operation, elapsed={}", Duration.ofNanos(elapsed));
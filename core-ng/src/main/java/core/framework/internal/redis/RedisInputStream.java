@@ -8,8 +8,10 @@ import java.io.InputStream;
  * @author neo
  */
 class RedisInputStream {
+    private static final int MAX_REUSABLE_BUFFER_SIZE = 256 * 1024;
     private final InputStream stream;
     private final byte[] buffer = new byte[8192];
+    private byte[] reusableBuffer;
     private int position;
     private int limit;
 
@@ -86,6 +88,54 @@ class RedisInputStream {
         return response;
     }
 
+    // pass blob string to consumer as slice of socket buffer, or slice of reusable buffer if it is larger than socket buffer, to avoid creating byte[] per value
+    void readBlobString(int index, int length, BlobStringConsumer consumer) throws IOException {
+        if (length + 2 <= buffer.length) {
+            require(length + 2);
+            consumer.accept(index, buffer, position, length);
+            position += length;
+        } else {
+            byte[] bytes = reusableBuffer(length);
+            int offset = 0;
+            while (offset < length) {
+                fill();
+                int readLength = Math.min(limit - position, length - offset);
+                System.arraycopy(buffer, position, bytes, offset, readLength);
+                position += readLength;
+                offset += readLength;
+            }
+            consumer.accept(index, bytes, 0, length);
+        }
+        byte value = readByte();
+        if (value != '\r') throw new IOException("unexpected character");
+        value = readByte();
+        if (value != '\n') throw new IOException("unexpected character");
+    }
+
+    private byte[] reusableBuffer(int length) {
+        if (length > MAX_REUSABLE_BUFFER_SIZE) return new byte[length];     // not to hold large buffer for entire connection lifecycle
+        if (reusableBuffer == null || reusableBuffer.length < length) {
+            reusableBuffer = new byte[Math.min(Math.max(length, buffer.length * 2), MAX_REUSABLE_BUFFER_SIZE)];
+        }
+        return reusableBuffer;
+    }
+
+    // make sure buffer contains at least length bytes from position, length must not be larger than buffer size
+    private void require(int length) throws IOException {
+        if (limit - position >= length) return;
+        int remaining = Math.max(limit - position, 0);
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, remaining);
+            position = 0;
+        }
+        limit = remaining;
+        while (limit < length) {
+            int readLength = stream.read(buffer, limit, buffer.length - limit);
+            if (readLength == -1) throw new IOException("unexpected end of stream");
+            limit += readLength;
+        }
+    }
+
     private void fill() throws IOException {
         if (position >= limit) {
             limit = stream.read(buffer);
@@ -0,0 +1,109 @@
+package core.framework.internal.redis;
+
+import core.framework.internal.log.LogManager;
+import core.framework.redis.ListHandler;
+import core.framework.util.Network;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author neo
+ */
+public class RedisListListener {
+    final Map<String, ListHandler> handlers = new LinkedHashMap<>();
+    final Set<String> reliableLists = new HashSet<>();
+    final RedisImpl redis;
+    final LogManager logManager;
+
+    private final Logger logger = LoggerFactory.getLogger(RedisListListener.class);
+    private final String name;
+
+    public int poolSize = Runtime.getRuntime().availableProcessors();    // threads per list
+    public Duration maxWaitTime = Duration.ofSeconds(2);    // BLPOP/BLMOVE timeout, redis timeout is in seconds, shutdown waits for current block to return
+    // in reliable mode, consumer without heartbeat within timeout is considered dead, its processing list is moved back to list by other consumers,
+    // handler takes longer than this may process value twice
+    public Duration consumerTimeout = Duration.ofMinutes(5);
+
+    long maxProcessTimeInNano;
+    volatile boolean shutdown;
+    private List<RedisListListenerThread> threads;
+
+    public RedisListListener(RedisImpl redis, String name, LogManager logManager, long maxProcessTimeInNano) {
+        this.redis = redis;
+        this.name = name;
+        this.logManager = logManager;
+        this.maxProcessTimeInNano = maxProcessTimeInNano;
+    }
+
+    // in reliable mode, value is moved to processing list of consumer thread, and only removed after handled successfully,
+    // value failed to handle is moved to failed list, values left in processing list (process crashed) are moved back to list,
+    // by same consumer thread when it starts, or by other consumers if heartbeat of consumer expired (e.g. pod replaced with new hostname)
+    public void consume(String list, ListHandler handler, boolean reliable) {
+        if (handlers.containsKey(list)) throw new Error("list is already consumed, list=" + list);
+        handlers.put(list, handler);
+        if (reliable) reliableLists.add(list);
+    }
+
+    public void start() {
+        if (redis.connectionFactory.cluster != null) throw new Error("redis list listener is not supported in cluster mode, name=" + name);
+        threads = new ArrayList<>(handlers.size() * poolSize);
+        for (String list : handlers.keySet()) {
+            for (int i = 0; i < poolSize; i++) {
+                String processingList = reliableLists.contains(list) ? processingList(list, i) : null;
+                var thread = new RedisListListenerThread(listenerThreadName(name, list, i), list, processingList, this);
+                thread.reapStaleConsumers = processingList != null && i == 0;     // only one thread per list on each node checks other consumers
+                threads.add(thread);
+            }
+        }
+        for (var thread : threads) {
+            thread.start();
+        }
+        logger.info("redis list listener started, lists={}, reliableLists={}, name={}", handlers.keySet(), reliableLists, name);
+    }
+
+    String listenerThreadName(String name, String list, int index) {
+        return "redis-list-listener-" + (name == null ? "" : name + "-") + list + "-" + index;
+    }
+
+    // processing list must be unique per consumer thread, so values left by previous run of same thread can be recovered
+    String processingList(String list, int index) {
+        return list + ":processing:" + Network.LOCAL_HOST_NAME + "-" + index;
+    }
+
+    // heartbeat key shares consumer id with processing list, so other consumers can tell whether owner of processing list is alive
+    String heartbeatKey(String list, String processingList) {
+        return list + ":heartbeat:" + processingList.substring(list.length() + ":processing:".length());
+    }
+
+    String failedList(String list) {
+        return list + ":failed";
+    }
+
+    public void shutdown() {
+        // not to interrupt threads, which may break handler in middle of processing, threads exit after current BLPOP/BLMOVE block returns
+        shutdown = true;
+        logger.info("shutting down redis list listener, name={}", name);
+    }
+
+    public void awaitTermination(long timeoutInMs) {
+        if (threads != null) {
+            long end = System.currentTimeMillis() + timeoutInMs;
+            for (RedisListListenerThread thread : threads) {
+                try {
+                    thread.awaitTermination(end - System.currentTimeMillis());
+                } catch (InterruptedException e) {
+                    logger.warn(e.getMessage(), e);
+                }
+            }
+            logger.info("redis list listener stopped, name={}", name);
+        }
+    }
+}
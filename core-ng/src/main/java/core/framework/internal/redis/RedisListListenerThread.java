@@ -0,0 +1,239 @@
+package core.framework.internal.redis;
+
+import core.framework.internal.log.ActionLog;
+import core.framework.internal.log.LogManager;
+import core.framework.log.ActionLogContext;
+import core.framework.redis.ListHandler;
+import core.framework.util.StopWatch;
+import core.framework.util.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static core.framework.internal.redis.Protocol.Command.BLMOVE;
+import static core.framework.internal.redis.Protocol.Command.BLPOP;
+import static core.framework.internal.redis.Protocol.Command.GET;
+import static core.framework.internal.redis.Protocol.Command.LMOVE;
+import static core.framework.internal.redis.Protocol.Command.LREM;
+import static core.framework.internal.redis.Protocol.Command.RPUSH;
+import static core.framework.internal.redis.Protocol.Command.SET;
+import static core.framework.internal.redis.Protocol.Keyword.LEFT;
+import static core.framework.internal.redis.Protocol.Keyword.PX;
+import static core.framework.internal.redis.Protocol.Keyword.RIGHT;
+import static core.framework.internal.redis.RedisEncodings.decode;
+import static core.framework.internal.redis.RedisEncodings.encode;
+import static core.framework.log.Markers.errorCode;
+
+/**
+ * @author neo
+ */
+class RedisListListenerThread extends Thread {
+    private final Logger logger = LoggerFactory.getLogger(RedisListListenerThread.class);
+    private final RedisListListener listener;
+    private final LogManager logManager;
+    private final String list;
+    @Nullable
+    private final String processingList;    // only for reliable mode
+    @Nullable
+    private final String heartbeatKey;
+    private final ListHandler handler;
+
+    private final Object lock = new Object();
+    boolean reapStaleConsumers;
+    private volatile boolean processing;
+    private long nextHeartbeatTime;
+    private long nextReapTime;
+
+    RedisListListenerThread(String name, String list, @Nullable String processingList, RedisListListener listener) {
+        super(name);
+        this.list = list;
+        this.processingList = processingList;
+        this.listener = listener;
+        logManager = listener.logManager;
+        handler = listener.handlers.get(list);
+        heartbeatKey = processingList == null ? null : listener.heartbeatKey(list, processingList);
+    }
+
+    @Override
+    public void run() {
+        try {
+            processing = true;
+            process();
+        } finally {
+            processing = false;
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void process() {
+        RedisConnectionFactory connectionFactory = listener.redis.connectionFactory;
+        long timeoutInSeconds = Math.max(1, listener.maxWaitTime.toSeconds());
+        int timeoutInMs = connectionFactory.timeoutInMs + (int) Duration.ofSeconds(timeoutInSeconds).toMillis();    // socket must not time out during block
+        while (!listener.shutdown) {
+            try (RedisConnection connection = connectionFactory.create(timeoutInMs)) {
+                if (processingList != null) recover(connection, processingList);
+                while (!listener.shutdown) {
+                    if (processingList != null) heartbeat(connection);
+                    if (reapStaleConsumers) reap(connection);
+                    String value = pop(connection, timeoutInSeconds);
+                    if (value != null) handle(connection, value);
+                }
+            } catch (Throwable e) {
+                if (!listener.shutdown) {
+                    logger.error("failed to pop redis list, retry in 10 seconds", e);
+                    Threads.sleepRoughly(Duration.ofSeconds(10));
+                }
+            }
+        }
+        logger.info("redis list listener thread stopped, name={}", getName());
+    }
+
+    // heartbeat expires after consumer timeout, refresh well before that, the blocking pop returns at least every max wait time
+    private void heartbeat(RedisConnection connection) throws IOException {
+        long now = System.currentTimeMillis();
+        if (now < nextHeartbeatTime) return;
+        long timeoutInMs = listener.consumerTimeout.toMillis();
+        connection.writeArray(5);
+        connection.writeBlobString(SET);
+        connection.writeBlobString(encode(heartbeatKey));
+        connection.writeBlobString(encode(getName()));
+        connection.writeBlobString(PX);
+        connection.writeBlobString(encode(timeoutInMs));
+        connection.flush();
+        connection.readSimpleString();
+        nextHeartbeatTime = now + timeoutInMs / 3;
+    }
+
+    // processing lists of dead consumers are never recovered by themselves if consumer id changed, e.g. pod replaced with new hostname
+    void reap(RedisConnection connection) throws IOException {
+        long now = System.currentTimeMillis();
+        if (now < nextReapTime) return;
+        nextReapTime = now + listener.consumerTimeout.toMillis();
+        List<String> processingLists = new ArrayList<>();
+        listener.redis.forEach(list + ":processing:*", processingLists::add);
+        for (String staleList : processingLists) {
+            connection.writeKeyCommand(GET, listener.heartbeatKey(list, staleList));
+            if (connection.readBlobString() == null) recover(connection, staleList);
+        }
+    }
+
+    // move values left by previous run or dead consumer back to head of list, to be processed first
+    private void recover(RedisConnection connection, String processingList) throws IOException {
+        int count = 0;
+        while (true) {
+            connection.writeArray(5);
+            connection.writeBlobString(LMOVE);
+            connection.writeBlobString(encode(processingList));
+            connection.writeBlobString(encode(list));
+            connection.writeBlobString(RIGHT);
+            connection.writeBlobString(LEFT);
+            connection.flush();
+            if (connection.readBlobString() == null) break;
+            count++;
+        }
+        if (count > 0) logger.warn(errorCode("REDIS_LIST_VALUE_RECOVERED"), "moved unfinished values back to list, list={}, processingList={}, count={}", list, processingList, count);
+    }
+
+    @Nullable
+    String pop(RedisConnection connection, long timeoutInSeconds) throws IOException {
+        if (processingList != null) {
+            connection.writeArray(6);
+            connection.writeBlobString(BLMOVE);
+            connection.writeBlobString(encode(list));
+            connection.writeBlobString(encode(processingList));
+            connection.writeBlobString(LEFT);
+            connection.writeBlobString(RIGHT);
+            connection.writeBlobString(encode(timeoutInSeconds));
+            connection.flush();
+            return decode(connection.readBlobString());
+        }
+        connection.writeKeyArgumentCommand(BLPOP, list, encode(timeoutInSeconds));
+        Object[] response = connection.readArray();     // [list, value], nil array if timeout
+        return response == null ? null : decode((byte[]) response[1]);
+    }
+
+    void handle(RedisConnection connection, String value) throws IOException {
+        ActionLog actionLog = logManager.begin("=== list handling begin ===", null);
+        boolean handled = false;
+        try {
+            String handlerClass = handler.getClass().getCanonicalName();
+            actionLog.action("list:" + list);
+            actionLog.maxProcessTime(listener.maxProcessTimeInNano);
+            actionLog.context.put("list", List.of(list));
+            actionLog.context.put("handler", List.of(handlerClass));
+            actionLog.track("redis", 0, 1, 0);
+            logger.debug("list={}, handler={}, value={}", list, handlerClass, value);
+
+            handler.handle(value);
+            handled = true;
+            if (processingList != null) remove(connection, value);
+        } catch (Throwable e) {
+            logManager.logError(e);
+            if (handled) throw new IOException("failed to remove value from processing list, list=" + list, e);  // connection may be out of sync, must be recreated
+            if (processingList != null) moveToFailedList(connection, value);
+        } finally {
+            logManager.end("=== list handling end ===");
+        }
+    }
+
+    // value was just moved to tail of processing list, remove from tail
+    private void remove(RedisConnection connection, String value) throws IOException {
+        var watch = new StopWatch();
+        try {
+            connection.writeArray(4);
+            connection.writeBlobString(LREM);
+            connection.writeBlobString(encode(processingList));
+            connection.writeBlobString(encode(-1));
+            connection.writeBlobString(encode(value));
+            connection.flush();
+            connection.readLong();
+        } finally {
+            long elapsed = watch.elapsed();
+            ActionLogContext.track("redis", elapsed, 0, 1);
+            logger.debug("lrem, processingList={}, elapsed={}", processingList, elapsed);
+        }
+    }
+
+    // not to leave failed value in processing list, and not to retry poison value endlessly, failed list is kept for investigation or manual retry
+    private void moveToFailedList(RedisConnection connection, String value) throws IOException {
+        var watch = new StopWatch();
+        try {
+            connection.writeArray(3);     // push to failed list first, crash in between leaves value in both lists rather than lose it
+            connection.writeBlobString(RPUSH);
+            connection.writeBlobString(encode(listener.failedList(list)));
+            connection.writeBlobString(encode(value));
+            connection.writeArray(4);
+            connection.writeBlobString(LREM);
+            connection.writeBlobString(encode(processingList));
+            connection.writeBlobString(encode(-1));
+            connection.writeBlobString(encode(value));
+            connection.flush();
+            connection.readAll(2);
+        } finally {
+            long elapsed = watch.elapsed();
+            ActionLogContext.track("redis", elapsed, 0, 2);
+            logger.debug("move to failed list, processingList={}, elapsed={}", processingList, elapsed);
+        }
+    }
+
+    void awaitTermination(long timeoutInMs) throws InterruptedException {
+        long end = System.currentTimeMillis() + timeoutInMs;
+        synchronized (lock) {
+            while (processing) {
+                long left = end - System.currentTimeMillis();
+                if (left <= 0) {
+                    logger.warn(errorCode("FAILED_TO_STOP"), "failed to terminate redis list listener thread, name={}", getName());
+                    break;
+                }
+                lock.wait(left);
+            }
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package core.framework.internal.redis;
+
+import core.framework.internal.resource.Pool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import static core.framework.internal.redis.Protocol.Command.CLIENT;
+import static core.framework.internal.redis.Protocol.Command.HELLO;
+import static core.framework.internal.redis.Protocol.Keyword.NOLOOP;
+import static core.framework.internal.redis.Protocol.Keyword.ON;
+import static core.framework.internal.redis.Protocol.Keyword.TRACKING;
+import static core.framework.internal.redis.RedisEncodings.encode;
+
+/**
+ * multiplex mode shares few physical connections across all callers,
+ * so redis connection count won't grow with caller thread count
+ *
+ * @author neo
+ */
+class RedisMultiplexer {
+    private final Logger logger = LoggerFactory.getLogger(RedisMultiplexer.class);
+    final AtomicReferenceArray<SharedRedisConnection> connections;
+    private final RedisConnectionFactory connectionFactory;
+    private final AtomicInteger counter = new AtomicInteger();
+    private final String name;
+    RedisTrackingListener trackingListener;
+    private volatile boolean closed;
+
+    RedisMultiplexer(RedisConnectionFactory connectionFactory, String name, int connections) {
+        if (connections <= 0) throw new Error("connections must be greater than 0, connections=" + connections);
+        this.connectionFactory = connectionFactory;
+        this.name = name;
+        this.connections = new AtomicReferenceArray<>(connections);
+    }
+
+    RedisConnection connection() {
+        return new MultiplexedRedisConnection(this, connectionFactory.timeoutInMs);
+    }
+
+    // pick shared connection by round robin
+    SharedRedisConnection sharedConnection() {
+        int index = Math.floorMod(counter.getAndIncrement(), connections.length());
+        SharedRedisConnection connection = connections.get(index);
+        if (connection != null && !connection.closed()) return connection;
+        return createSharedConnection(index);
+    }
+
+    private synchronized SharedRedisConnection createSharedConnection(int index) {
+        if (closed) throw new Error("redis multiplexer is closed, name=" + name);
+        SharedRedisConnection connection = connections.get(index);
+        if (connection == null || connection.closed()) {    // double check within lock, other thread may already reconnected
+            logger.info("create shared redis connection, name={}, index={}, host={}", name, index, connectionFactory.host);
+            // connect and handshake with timeout, not to block all callers by unreachable host while holding lock
+            RedisConnection physicalConnection = connectionFactory.create(connectionFactory.timeoutInMs);
+            if (trackingListener != null) enableTracking(physicalConnection);
+            readWithoutTimeout(physicalConnection);     // reader thread waits for replies without timeout, timeout is checked by caller
+            connection = new SharedRedisConnection(name + "-multiplexer-" + index, physicalConnection, trackingListener);
+            connection.start();
+            if (trackingListener != null) trackingListener.onInvalidate(null);  // keys read before were tracked by previous connection
+            connections.set(index, connection);
+        }
+        return connection;
+    }
+
+    // switch to RESP3 to receive invalidation as push message on same connection,
+    // NOLOOP to skip invalidation of keys modified by this connection, e.g. local cache updates its own copy on write
+    private void enableTracking(RedisConnection connection) {
+        try {
+            connection.writeArray(2);
+            connection.writeBlobString(HELLO);
+            connection.writeBlobString(encode(3));
+            connection.writeArray(4);
+            connection.writeBlobString(CLIENT);
+            connection.writeBlobString(TRACKING);
+            connection.writeBlobString(ON);
+            connection.writeBlobString(NOLOOP);
+            connection.flush();
+            connection.readAll(2);
+        } catch (RedisException e) {
+            Pool.closeQuietly(connection);
+            throw e;
+        } catch (IOException e) {
+            Pool.closeQuietly(connection);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void readWithoutTimeout(RedisConnection connection) {
+        try {
+            connection.readTimeout(0);
+        } catch (IOException e) {
+            Pool.closeQuietly(connection);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        for (int i = 0; i < connections.length(); i++) {
+            SharedRedisConnection connection = connections.get(i);
+            if (connection != null) connection.close();
+        }
+    }
+}
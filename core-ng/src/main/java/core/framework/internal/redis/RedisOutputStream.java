@@ -44,6 +44,17 @@ class RedisOutputStream {
         buffer[position++] = '\n';
     }
 
+    void write(byte[] bytes) throws IOException {
+        int length = bytes.length;
+        if (length > buffer.length - position) {
+            flush();
+            stream.write(bytes);
+        } else {
+            System.arraycopy(bytes, 0, buffer, position, length);
+            position += length;
+        }
+    }
+
     void flush() throws IOException {
         if (position > 0) {
             stream.write(buffer, 0, position);
@@ -0,0 +1,283 @@
+package core.framework.internal.redis;
+
+import core.framework.internal.resource.PoolItem;
+import core.framework.log.ActionLogContext;
+import core.framework.redis.RedisPipeline;
+import core.framework.util.Maps;
+import core.framework.util.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static core.framework.internal.redis.Protocol.Command.DEL;
+import static core.framework.internal.redis.Protocol.Command.GET;
+import static core.framework.internal.redis.Protocol.Command.HGET;
+import static core.framework.internal.redis.Protocol.Command.HGETALL;
+import static core.framework.internal.redis.Protocol.Command.HMSET;
+import static core.framework.internal.redis.Protocol.Command.HSET;
+import static core.framework.internal.redis.Protocol.Command.INCRBY;
+import static core.framework.internal.redis.Protocol.Command.PEXPIRE;
+import static core.framework.internal.redis.Protocol.Command.SET;
+import static core.framework.internal.redis.Protocol.Command.ZADD;
+import static core.framework.internal.redis.Protocol.Command.ZRANGE;
+import static core.framework.internal.redis.Protocol.Keyword.NX;
+import static core.framework.internal.redis.Protocol.Keyword.PX;
+import static core.framework.internal.redis.Protocol.Keyword.WITHSCORES;
+import static core.framework.internal.redis.RedisEncodings.decode;
+import static core.framework.internal.redis.RedisEncodings.encode;
+import static core.framework.internal.redis.RedisEncodings.validate;
+
+/**
+ * pipeline is not thread safe, it is supposed to be created, executed and discarded within one method
+ *
+ * @author neo
+ */
+public final class RedisPipelineImpl implements RedisPipeline {
+    private final Logger logger = LoggerFactory.getLogger(RedisPipelineImpl.class);
+    private final RedisImpl redis;
+    private final List<Command<?>> commands = new ArrayList<>();
+    private int readEntries;
+    private int writeEntries;
+
+    RedisPipelineImpl(RedisImpl redis) {
+        this.redis = redis;
+    }
+
+    @Override
+    public Supplier<String> get(String key) {
+        validate("key", key);
+        readEntries++;
+        return add(response -> decode((byte[]) response), GET, encode(key));
+    }
+
+    @Override
+    public Supplier<Boolean> set(String key, String value, Duration expiration, boolean onlyIfAbsent) {
+        validate("key", key);
+        validate("value", value);
+        if (expiration != null && expiration.toMillis() <= 0) throw new Error("expiration time must be longer than 0ms");
+        int length = 3 + (onlyIfAbsent ? 1 : 0) + (expiration != null ? 2 : 0);
+        byte[][] arguments = new byte[length][];
+        arguments[0] = SET;
+        arguments[1] = encode(key);
+        arguments[2] = encode(value);
+        int index = 3;
+        if (onlyIfAbsent) arguments[index++] = NX;
+        if (expiration != null) {
+            arguments[index++] = PX;
+            arguments[index] = encode(expiration.toMillis());
+        }
+        writeEntries++;
+        return add(response -> "OK".equals(response), arguments);
+    }
+
+    @Override
+    public void expire(String key, Duration duration) {
+        validate("key", key);
+        writeEntries++;
+        add(response -> response, PEXPIRE, encode(key), encode(duration.toMillis()));
+    }
+
+    @Override
+    public Supplier<Long> del(String... keys) {
+        validate("keys", keys);
+        byte[][] arguments = new byte[1 + keys.length][];
+        arguments[0] = DEL;
+        for (int i = 0; i < keys.length; i++) {
+            arguments[i + 1] = encode(keys[i]);
+        }
+        writeEntries += keys.length;
+        return add(response -> (Long) response, arguments);
+    }
+
+    @Override
+    public Supplier<Long> increaseBy(String key, long increment) {
+        validate("key", key);
+        writeEntries++;
+        return add(response -> (Long) response, INCRBY, encode(key), encode(increment));
+    }
+
+    @Override
+    public Supplier<String> hashGet(String key, String field) {
+        validate("key", key);
+        validate("field", field);
+        readEntries++;
+        return add(response -> decode((byte[]) response), HGET, encode(key), encode(field));
+    }
+
+    @Override
+    public Supplier<Map<String, String>> hashGetAll(String key) {
+        validate("key", key);
+        readEntries++;
+        return add(response -> {
+            Object[] values = (Object[]) response;
+            if (values.length % 2 != 0) throw new IOException("unexpected length of array, length=" + values.length);
+            Map<String, String> hash = Maps.newHashMapWithExpectedSize(values.length / 2);
+            for (int i = 0; i < values.length; i += 2) {
+                hash.put(decode((byte[]) values[i]), decode((byte[]) values[i + 1]));
+            }
+            return hash;
+        }, HGETALL, encode(key));
+    }
+
+    @Override
+    public void hashSet(String key, String field, String value) {
+        validate("key", key);
+        validate("field", field);
+        validate("value", value);
+        writeEntries++;
+        add(response -> response, HSET, encode(key), encode(field), encode(value));
+    }
+
+    @Override
+    public void hashMultiSet(String key, Map<String, String> values) {
+        validate("key", key);
+        validate("values", values);
+        byte[][] arguments = new byte[2 + values.size() * 2][];
+        arguments[0] = HMSET;
+        arguments[1] = encode(key);
+        int index = 2;
+        for (Map.Entry<String, String> entry : values.entrySet()) {
+            arguments[index++] = encode(entry.getKey());
+            arguments[index++] = encode(entry.getValue());
+        }
+        writeEntries += values.size();
+        add(response -> response, arguments);
+    }
+
+    @Override
+    public Supplier<Integer> sortedSetAdd(String key, Map<String, Long> values, boolean onlyIfAbsent) {
+        validate("key", key);
+        validate("values", values);
+        byte[][] arguments = new byte[2 + (onlyIfAbsent ? 1 : 0) + values.size() * 2][];
+        arguments[0] = ZADD;
+        arguments[1] = encode(key);
+        int index = 2;
+        if (onlyIfAbsent) arguments[index++] = NX;
+        for (Map.Entry<String, Long> entry : values.entrySet()) {
+            arguments[index++] = encode(entry.getValue());
+            arguments[index++] = encode(entry.getKey());
+        }
+        writeEntries += values.size();
+        return add(response -> (int) (long) (Long) response, arguments);
+    }
+
+    @Override
+    public Supplier<Map<String, Long>> sortedSetRange(String key, long start, long stop) {
+        validate("key", key);
+        readEntries++;
+        return add(response -> {
+            Object[] values = (Object[]) response;
+            if (values.length % 2 != 0) throw new IOException("unexpected length of array, length=" + values.length);
+            Map<String, Long> sortedSet = Maps.newLinkedHashMapWithExpectedSize(values.length / 2);
+            for (int i = 0; i < values.length; i += 2) {
+                sortedSet.put(decode((byte[]) values[i]), (long) Double.parseDouble(decode((byte[]) values[i + 1])));
+            }
+            return sortedSet;
+        }, ZRANGE, encode(key), encode(start), encode(stop), WITHSCORES);
+    }
+
+    @Override
+    public void execute() {
+        var watch = new StopWatch();
+        int size = commands.size();
+        if (size == 0) throw new Error("pipeline must not be empty");
+        PoolItem<RedisConnection> item = redis.pool.borrowItem();
+        try {
+            RedisConnection connection = item.resource;
+            for (Command<?> command : commands) {
+                connection.writeArray(command.arguments.length);
+                for (byte[] argument : command.arguments) {
+                    connection.writeBlobString(argument);
+                }
+            }
+            connection.flush();
+            // read all responses before parsing to keep connection in sync, parser may fail with unexpected response
+            Object[] responses = new Object[size];
+            RedisException exception = null;
+            for (int i = 0; i < size; i++) {
+                try {
+                    responses[i] = connection.read();
+                } catch (RedisException e) {
+                    commands.get(i).result.error = e;
+                    exception = e;
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                Result<?> result = commands.get(i).result;
+                if (result.error == null) result.complete(responses[i]);
+            }
+            if (exception != null) throw exception;     // throw last error
+        } catch (IOException e) {
+            item.broken = true;
+            throw new UncheckedIOException(e);
+        } finally {
+            redis.pool.returnItem(item);
+            long elapsed = watch.elapsed();
+            ActionLogContext.track("redis", elapsed, readEntries, writeEntries);
+            logger.debug("pipeline, commands={}, size={}, elapsed={}", commandNames(), size, elapsed);
+            redis.checkSlowOperation(elapsed);
+            commands.clear();
+            readEntries = 0;
+            writeEntries = 0;
+        }
+    }
+
+    private <T> Supplier<T> add(ResponseParser<T> parser, byte[]... arguments) {
+        var result = new Result<>(parser);
+        commands.add(new Command<>(arguments, result));
+        return result;
+    }
+
+    private List<String> commandNames() {
+        List<String> names = new ArrayList<>(commands.size());
+        for (Command<?> command : commands) {
+            names.add(decode(command.arguments[0]));
+        }
+        return names;
+    }
+
+    @FunctionalInterface
+    interface ResponseParser<T> {
+        T parse(Object response) throws IOException;
+    }
+
+    static final class Command<T> {
+        final byte[][] arguments;
+        final Result<T> result;
+
+        Command(byte[][] arguments, Result<T> result) {
+            this.arguments = arguments;
+            this.result = result;
+        }
+    }
+
+    static final class Result<T> implements Supplier<T> {
+        private final ResponseParser<T> parser;
+        private boolean completed;
+        private T value;
+        private RedisException error;
+
+        Result(ResponseParser<T> parser) {
+            this.parser = parser;
+        }
+
+        void complete(Object response) throws IOException {
+            value = parser.parse(response);
+            completed = true;
+        }
+
+        @Override
+        public T get() {
+            if (error != null) throw error;
+            if (!completed) throw new Error("pipeline is not executed");
+            return value;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package core.framework.internal.redis;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * spread replica connections across replica hosts by round robin, password and timeout are same as primary
+ *
+ * @author neo
+ */
+class RedisReplicaConnectionFactory implements Supplier<RedisConnection> {
+    private static final long FAILOVER_INTERVAL_IN_MS = 10_000;
+    private final RedisConnectionFactory connectionFactory;
+    private final List<RedisHost> hosts;
+    private final AtomicInteger counter = new AtomicInteger();
+    private volatile long lastFailedTime;
+
+    RedisReplicaConnectionFactory(RedisConnectionFactory connectionFactory, List<RedisHost> hosts) {
+        this.connectionFactory = connectionFactory;
+        this.hosts = hosts;
+    }
+
+    @Override
+    public RedisConnection get() {
+        RedisHost host = hosts.get(Math.floorMod(counter.getAndIncrement(), hosts.size()));
+        try {
+            return connectionFactory.create(host, connectionFactory.timeoutInMs);
+        } catch (UncheckedIOException | RedisException e) {
+            failed();
+            throw e;
+        }
+    }
+
+    // also called if existing replica connection failed, e.g. replica is restarted
+    void failed() {
+        lastFailedTime = System.currentTimeMillis();
+    }
+
+    // with prefer replica policy, read from primary for a while if failed to connect to replica
+    boolean failedRecently() {
+        return System.currentTimeMillis() - lastFailedTime < FAILOVER_INTERVAL_IN_MS;
+    }
+}
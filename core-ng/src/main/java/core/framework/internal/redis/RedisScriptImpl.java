@@ -0,0 +1,99 @@
+package core.framework.internal.redis;
+
+import core.framework.crypto.Hash;
+import core.framework.internal.log.filter.ArrayLogParam;
+import core.framework.internal.resource.PoolItem;
+import core.framework.log.ActionLogContext;
+import core.framework.redis.RedisScript;
+import core.framework.util.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static core.framework.internal.redis.Protocol.Command.EVAL;
+import static core.framework.internal.redis.Protocol.Command.EVALSHA;
+import static core.framework.internal.redis.RedisEncodings.decode;
+import static core.framework.internal.redis.RedisEncodings.encode;
+
+/**
+ * @author neo
+ */
+public final class RedisScriptImpl implements RedisScript {
+    private final Logger logger = LoggerFactory.getLogger(RedisScriptImpl.class);
+    private final RedisImpl redis;
+    private final byte[] script;
+    private final String sha;
+
+    RedisScriptImpl(RedisImpl redis, String script) {
+        this.redis = redis;
+        this.script = encode(script);
+        sha = Hash.sha1Hex(script);
+    }
+
+    @Override
+    public String evalString(List<String> keys, String... arguments) {
+        return decode((byte[]) eval(keys, arguments));
+    }
+
+    @Override
+    public Long evalLong(List<String> keys, String... arguments) {
+        return (Long) eval(keys, arguments);
+    }
+
+    @Override
+    public List<String> evalList(List<String> keys, String... arguments) {
+        Object[] response = (Object[]) eval(keys, arguments);
+        if (response == null) return List.of();
+        List<String> values = new ArrayList<>(response.length);
+        for (Object value : response) {
+            values.add(decode((byte[]) value));
+        }
+        return values;
+    }
+
+    Object eval(List<String> keys, String... arguments) {
+        var watch = new StopWatch();
+        if (keys == null) throw new Error("keys must not be null");
+        PoolItem<RedisConnection> item = redis.pool.borrowItem();
+        try {
+            RedisConnection connection = item.resource;
+            write(connection, EVALSHA, encode(sha), keys, arguments);
+            try {
+                return connection.read();
+            } catch (RedisException e) {
+                if (!e.getMessage().startsWith("NOSCRIPT")) throw e;
+                // EVAL also caches script on redis, so next EVALSHA will hit
+                logger.debug("script is not cached by redis, send script, sha={}", sha);
+                write(connection, EVAL, script, keys, arguments);
+                return connection.read();
+            }
+        } catch (IOException e) {
+            item.broken = true;
+            throw new UncheckedIOException(e);
+        } finally {
+            redis.pool.returnItem(item);
+            long elapsed = watch.elapsed();
+            ActionLogContext.track("redis", elapsed);
+            logger.debug("evalsha, sha={}, keys={}, arguments={}, elapsed={}", sha, keys, new ArrayLogParam(arguments), elapsed);
+            redis.checkSlowOperation(elapsed);
+        }
+    }
+
+    private void write(RedisConnection connection, byte[] command, byte[] script, List<String> keys, String[] arguments) throws IOException {
+        connection.writeArray(3 + keys.size() + arguments.length);
+        connection.writeBlobString(command);
+        connection.writeBlobString(script);
+        connection.writeBlobString(encode(keys.size()));
+        for (String key : keys) {
+            connection.writeBlobString(encode(key));
+        }
+        for (String argument : arguments) {
+            connection.writeBlobString(encode(argument));
+        }
+        connection.flush();
+    }
+}
@@ -63,21 +63,17 @@ public final class RedisSetImpl implements RedisSet {
         var watch = new StopWatch();
         validate("key", key);
         Set<String> values = null;
-        PoolItem<RedisConnection> item = redis.pool.borrowItem();
         try {
-            RedisConnection connection = item.resource;
-            connection.writeKeyCommand(SMEMBERS, key);
-            Object[] response = connection.readArray();
+            Object[] response = redis.read(connection -> {
+                connection.writeKeyCommand(SMEMBERS, key);
+                return connection.readArray();
+            });
             values = Sets.newHashSetWithExpectedSize(response.length);
             for (Object value : response) {
                 values.add(decode((byte[]) value));
             }
             return values;
-        } catch (IOException e) {
-            item.broken = true;
-            throw new UncheckedIOException(e);
         } finally {
-            redis.pool.returnItem(item);
             long elapsed = watch.elapsed();
             ActionLogContext.track("redis", elapsed, values == null ? 0 : values.size(), 0);
             logger.debug("smembers, key={}, returnedValues={}, elapsed={}", key, values, elapsed);
@@ -91,18 +87,14 @@ public final class RedisSetImpl implements RedisSet {
         validate("key", key);
         validate("value", value);
         boolean isMember = false;
-        PoolItem<RedisConnection> item = redis.pool.borrowItem();
         try {
-            RedisConnection connection = item.resource;
-            connection.writeKeyArgumentCommand(SISMEMBER, key, encode(value));
-            long response = connection.readLong();
+            long response = redis.read(connection -> {
+                connection.writeKeyArgumentCommand(SISMEMBER, key, encode(value));
+                return connection.readLong();
+            });
             isMember = response == 1;
             return isMember;
-        } catch (IOException e) {
-            item.broken = true;
-            throw new UncheckedIOException(e);
         } finally {
-            redis.pool.returnItem(item);
             long elapsed = watch.elapsed();
             ActionLogContext.track("redis", elapsed, 1, 0);
             logger.debug("sismember, key={}, value={}, isMember={}, elapsed={}", key, value, isMember, elapsed);
@@ -168,17 +160,13 @@ public final class RedisSetImpl implements RedisSet {
         var watch = new StopWatch();
         validate("key", key);
         long size = 0;
-        PoolItem<RedisConnection> item = redis.pool.borrowItem();
         try {
-            RedisConnection connection = item.resource;
-            connection.writeKeyCommand(SCARD, key);
-            size = connection.readLong();
+            size = redis.read(connection -> {
+                connection.writeKeyCommand(SCARD, key);
+                return connection.readLong();
+            });
             return size;
-        } catch (IOException e) {
-            item.broken = true;
-            throw new UncheckedIOException(e);
         } finally {
-            redis.pool.returnItem(item);
             long elapsed = watch.elapsed();
             ActionLogContext.track("redis", elapsed, 1, 0);
             logger.debug("scard, key={}, size={}, elapsed={}", key, size, elapsed);
@@ -73,24 +73,19 @@ public class RedisSortedSetImpl implements RedisSortedSet {
         var watch = new StopWatch();
         validate("key", key);
         Map<String, Long> values = null;
-        PoolItem<RedisConnection> item = redis.pool.borrowItem();
         try {
-            RedisConnection connection = item.resource;
-            connection.writeArray(5);
-            connection.writeBlobString(ZRANGE);
-            connection.writeBlobString(encode(key));
-            connection.writeBlobString(encode(start));
-            connection.writeBlobString(encode(stop));
-            connection.writeBlobString(WITHSCORES);
-            connection.flush();
-            Object[] response = connection.readArray();
-            values = valuesWithScores(response);
+            values = redis.read(connection -> {
+                connection.writeArray(5);
+                connection.writeBlobString(ZRANGE);
+                connection.writeBlobString(encode(key));
+                connection.writeBlobString(encode(start));
+                connection.writeBlobString(encode(stop));
+                connection.writeBlobString(WITHSCORES);
+                connection.flush();
+                return valuesWithScores(connection.readArray());
+            });
             return values;
-        } catch (IOException e) {
-            item.broken = true;
-            throw new UncheckedIOException(e);
         } finally {
-            redis.pool.returnItem(item);
             long elapsed = watch.elapsed();
             ActionLogContext.track("redis", elapsed, values == null ? 0 : values.size(), 0);
             logger.debug("zrange, key={}, start={}, stop={}, returnedValues={}, elapsed={}", key, start, stop, values, elapsed);
@@ -105,17 +100,10 @@ public class RedisSortedSetImpl implements RedisSortedSet {
         if (maxScore < minScore) throw new Error("maxScore must be larger than minScore");
 
         Map<String, Long> values = null;
-        PoolItem<RedisConnection> item = redis.pool.borrowItem();
         try {
-            RedisConnection connection = item.resource;
-            Object[] response = rangeByScore(connection, key, minScore, maxScore, limit);
-            values = valuesWithScores(response);
+            values = redis.read(connection -> valuesWithScores(rangeByScore(connection, key, minScore, maxScore, limit)));
             return values;
-        } catch (IOException e) {
-            item.broken = true;
-            throw new UncheckedIOException(e);
         } finally {
-            redis.pool.returnItem(item);
             long elapsed = watch.elapsed();
             ActionLogContext.track("redis", elapsed, values == null ? 0 : values.size(), 0);
             logger.debug("zrangeByScore, key={}, minScore={}, maxScore={}, returnedValues={}, elapsed={}", key, minScore, maxScore, values, elapsed);
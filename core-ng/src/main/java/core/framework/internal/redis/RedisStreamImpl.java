@@ -0,0 +1,304 @@
+package core.framework.internal.redis;
+
+import core.framework.internal.log.filter.ArrayLogParam;
+import core.framework.internal.resource.PoolItem;
+import core.framework.log.ActionLogContext;
+import core.framework.redis.RedisStream;
+import core.framework.redis.StreamEntry;
+import core.framework.util.Maps;
+import core.framework.util.StopWatch;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static core.framework.internal.redis.Protocol.Command.XACK;
+import static core.framework.internal.redis.Protocol.Command.XADD;
+import static core.framework.internal.redis.Protocol.Command.XAUTOCLAIM;
+import static core.framework.internal.redis.Protocol.Command.XGROUP;
+import static core.framework.internal.redis.Protocol.Command.XPENDING;
+import static core.framework.internal.redis.Protocol.Command.XREADGROUP;
+import static core.framework.internal.redis.Protocol.Keyword.BLOCK;
+import static core.framework.internal.redis.Protocol.Keyword.COUNT;
+import static core.framework.internal.redis.Protocol.Keyword.CREATE;
+import static core.framework.internal.redis.Protocol.Keyword.GROUP;
+import static core.framework.internal.redis.Protocol.Keyword.MAXLEN;
+import static core.framework.internal.redis.Protocol.Keyword.MKSTREAM;
+import static core.framework.internal.redis.Protocol.Keyword.STREAMS;
+import static core.framework.internal.redis.RedisEncodings.decode;
+import static core.framework.internal.redis.RedisEncodings.encode;
+import static core.framework.internal.redis.RedisEncodings.validate;
+
+/**
+ * @author neo
+ */
+public final class RedisStreamImpl implements RedisStream {
+    static final byte[] AUTO_ID = encode("*");
+    private static final byte[] APPROXIMATE = encode("~");
+    private static final byte[] LAST_ID = encode("$");
+    private static final byte[] NEW_ID = encode(">");
+    private static final byte[] START_ID = encode("0-0");
+
+    // response of XREADGROUP is [[stream, [[id, [field, value...]]...]]...], nil if no entry
+    static Map<String, List<StreamEntry>> streams(Object[] response) {
+        if (response == null) return Map.of();
+        Map<String, List<StreamEntry>> streams = Maps.newLinkedHashMapWithExpectedSize(response.length);
+        for (Object value : response) {
+            Object[] stream = (Object[]) value;
+            streams.put(decode((byte[]) stream[0]), entries((Object[]) stream[1]));
+        }
+        return streams;
+    }
+
+    static List<StreamEntry> entries(Object[] response) {
+        List<StreamEntry> entries = new ArrayList<>(response.length);
+        for (Object value : response) {
+            Object[] entry = (Object[]) value;
+            Object[] fieldValues = (Object[]) entry[1];
+            if (fieldValues == null) continue;  // pending entry was deleted from stream
+            Map<String, String> fields = Maps.newLinkedHashMapWithExpectedSize(fieldValues.length / 2);
+            for (int i = 0; i < fieldValues.length; i += 2) {
+                fields.put(decode((byte[]) fieldValues[i]), decode((byte[]) fieldValues[i + 1]));
+            }
+            entries.add(new StreamEntry(decode((byte[]) entry[0]), fields));
+        }
+        return entries;
+    }
+
+    // block = 0 means not to block, XREADGROUP BLOCK 0 means wait forever, which is not supported here
+    static void writeReadGroup(RedisConnection connection, String group, String consumer, int count, long blockInMs, String... streams) throws IOException {
+        connection.writeArray(6 + (blockInMs > 0 ? 2 : 0) + 1 + streams.length * 2);
+        connection.writeBlobString(XREADGROUP);
+        connection.writeBlobString(GROUP);
+        connection.writeBlobString(encode(group));
+        connection.writeBlobString(encode(consumer));
+        connection.writeBlobString(COUNT);
+        connection.writeBlobString(encode(count));
+        if (blockInMs > 0) {
+            connection.writeBlobString(BLOCK);
+            connection.writeBlobString(encode(blockInMs));
+        }
+        connection.writeBlobString(STREAMS);
+        for (String stream : streams) {
+            connection.writeBlobString(encode(stream));
+        }
+        for (int i = 0; i < streams.length; i++) {
+            connection.writeBlobString(NEW_ID);
+        }
+        connection.flush();
+    }
+
+    static void writeCreateGroup(RedisConnection connection, String stream, String group) throws IOException {
+        connection.writeArray(6);
+        connection.writeBlobString(XGROUP);
+        connection.writeBlobString(CREATE);
+        connection.writeBlobString(encode(stream));
+        connection.writeBlobString(encode(group));
+        connection.writeBlobString(LAST_ID);
+        connection.writeBlobString(MKSTREAM);
+        connection.flush();
+    }
+
+    static void readCreateGroup(RedisConnection connection) throws IOException {
+        try {
+            connection.readSimpleString();
+        } catch (RedisException e) {
+            if (!e.getMessage().startsWith("BUSYGROUP")) throw e;   // group already exists
+        }
+    }
+
+    static void writeAutoClaim(RedisConnection connection, String stream, String group, String consumer, long minIdleTimeInMs, int count) throws IOException {
+        connection.writeArray(8);
+        connection.writeBlobString(XAUTOCLAIM);
+        connection.writeBlobString(encode(stream));
+        connection.writeBlobString(encode(group));
+        connection.writeBlobString(encode(consumer));
+        connection.writeBlobString(encode(minIdleTimeInMs));
+        connection.writeBlobString(START_ID);
+        connection.writeBlobString(COUNT);
+        connection.writeBlobString(encode(count));
+        connection.flush();
+    }
+
+    // XPENDING stream group start end count consumer, response is [[id, consumer, idleTime, deliveryCount]...]
+    static void writePending(RedisConnection connection, String stream, String group, String startId, String endId, int count, String consumer) throws IOException {
+        connection.writeArray(7);
+        connection.writeBlobString(XPENDING);
+        connection.writeBlobString(encode(stream));
+        connection.writeBlobString(encode(group));
+        connection.writeBlobString(encode(startId));
+        connection.writeBlobString(encode(endId));
+        connection.writeBlobString(encode(count));
+        connection.writeBlobString(encode(consumer));
+        connection.flush();
+    }
+
+    static Map<String, Long> deliveryCounts(Object[] response) {
+        Map<String, Long> counts = Maps.newHashMapWithExpectedSize(response.length);
+        for (Object value : response) {
+            Object[] pending = (Object[]) value;
+            counts.put(decode((byte[]) pending[0]), (Long) pending[3]);
+        }
+        return counts;
+    }
+
+    static void writeAck(RedisConnection connection, String stream, String group, String... ids) throws IOException {
+        connection.writeArray(3 + ids.length);
+        connection.writeBlobString(XACK);
+        connection.writeBlobString(encode(stream));
+        connection.writeBlobString(encode(group));
+        for (String id : ids) {
+            connection.writeBlobString(encode(id));
+        }
+        connection.flush();
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(RedisStreamImpl.class);
+    private final RedisImpl redis;
+
+    RedisStreamImpl(RedisImpl redis) {
+        this.redis = redis;
+    }
+
+    @Override
+    public String add(String stream, Map<String, String> fields, long maxLength) {
+        var watch = new StopWatch();
+        validate("stream", stream);
+        validate("fields", fields);
+        String id = null;
+        PoolItem<RedisConnection> item = redis.pool.borrowItem();
+        try {
+            RedisConnection connection = item.resource;
+            connection.writeArray(3 + (maxLength > 0 ? 3 : 0) + fields.size() * 2);
+            connection.writeBlobString(XADD);
+            connection.writeBlobString(encode(stream));
+            if (maxLength > 0) {
+                connection.writeBlobString(MAXLEN);
+                connection.writeBlobString(APPROXIMATE);
+                connection.writeBlobString(encode(maxLength));
+            }
+            connection.writeBlobString(AUTO_ID);
+            for (Map.Entry<String, String> entry : fields.entrySet()) {
+                connection.writeBlobString(encode(entry.getKey()));
+                connection.writeBlobString(encode(entry.getValue()));
+            }
+            connection.flush();
+            id = decode(connection.readBlobString());
+            return id;
+        } catch (IOException e) {
+            item.broken = true;
+            throw new UncheckedIOException(e);
+        } finally {
+            redis.pool.returnItem(item);
+            long elapsed = watch.elapsed();
+            ActionLogContext.track("redis", elapsed, 0, 1);
+            logger.debug("xadd, stream={}, fields={}, maxLength={}, id={}, elapsed={}", stream, fields, maxLength, id, elapsed);
+            redis.checkSlowOperation(elapsed);
+        }
+    }
+
+    @Override
+    public void createGroup(String stream, String group) {
+        var watch = new StopWatch();
+        validate("stream", stream);
+        validate("group", group);
+        PoolItem<RedisConnection> item = redis.pool.borrowItem();
+        try {
+            RedisConnection connection = item.resource;
+            writeCreateGroup(connection, stream, group);
+            readCreateGroup(connection);
+        } catch (IOException e) {
+            item.broken = true;
+            throw new UncheckedIOException(e);
+        } finally {
+            redis.pool.returnItem(item);
+            long elapsed = watch.elapsed();
+            ActionLogContext.track("redis", elapsed, 0, 1);
+            logger.debug("xgroup create, stream={}, group={}, elapsed={}", stream, group, elapsed);
+            redis.checkSlowOperation(elapsed);
+        }
+    }
+
+    @Override
+    public List<StreamEntry> readGroup(String stream, String group, String consumer, int count) {
+        var watch = new StopWatch();
+        validate("stream", stream);
+        validate("group", group);
+        validate("consumer", consumer);
+        if (count <= 0) throw new Error("count must be greater than 0");
+        List<StreamEntry> entries = null;
+        PoolItem<RedisConnection> item = redis.pool.borrowItem();
+        try {
+            RedisConnection connection = item.resource;
+            writeReadGroup(connection, group, consumer, count, 0, stream);
+            entries = streams(connection.readArray()).getOrDefault(stream, List.of());
+            return entries;
+        } catch (IOException e) {
+            item.broken = true;
+            throw new UncheckedIOException(e);
+        } finally {
+            redis.pool.returnItem(item);
+            long elapsed = watch.elapsed();
+            ActionLogContext.track("redis", elapsed, entries == null ? 0 : entries.size(), 0);
+            logger.debug("xreadgroup, stream={}, group={}, consumer={}, count={}, returnedEntries={}, elapsed={}", stream, group, consumer, count, entries == null ? 0 : entries.size(), elapsed);
+            redis.checkSlowOperation(elapsed);
+        }
+    }
+
+    @Override
+    public long ack(String stream, String group, String... ids) {
+        var watch = new StopWatch();
+        validate("stream", stream);
+        validate("group", group);
+        validate("ids", ids);
+        long acked = 0;
+        PoolItem<RedisConnection> item = redis.pool.borrowItem();
+        try {
+            RedisConnection connection = item.resource;
+            writeAck(connection, stream, group, ids);
+            acked = connection.readLong();
+            return acked;
+        } catch (IOException e) {
+            item.broken = true;
+            throw new UncheckedIOException(e);
+        } finally {
+            redis.pool.returnItem(item);
+            long elapsed = watch.elapsed();
+            ActionLogContext.track("redis", elapsed, 0, ids.length);
+            logger.debug("xack, stream={}, group={}, ids={}, acked={}, elapsed={}", stream, group, new ArrayLogParam(ids), acked, elapsed);
+            redis.checkSlowOperation(elapsed);
+        }
+    }
+
+    @Override
+    public List<StreamEntry> autoClaim(String stream, String group, String consumer, Duration minIdleTime, int count) {
+        var watch = new StopWatch();
+        validate("stream", stream);
+        validate("group", group);
+        validate("consumer", consumer);
+        if (count <= 0) throw new Error("count must be greater than 0");
+        List<StreamEntry> entries = null;
+        PoolItem<RedisConnection> item = redis.pool.borrowItem();
+        try {
+            RedisConnection connection = item.resource;
+            writeAutoClaim(connection, stream, group, consumer, minIdleTime.toMillis(), count);
+            entries = entries((Object[]) connection.readArray()[1]);    // response is [nextStartId, entries, deletedIds], deletedIds is only returned since redis 7
+            return entries;
+        } catch (IOException e) {
+            item.broken = true;
+            throw new UncheckedIOException(e);
+        } finally {
+            redis.pool.returnItem(item);
+            long elapsed = watch.elapsed();
+            int size = entries == null ? 0 : entries.size();
+            ActionLogContext.track("redis", elapsed, size, size);
+            logger.debug("xautoclaim, stream={}, group={}, consumer={}, minIdleTime={}, count={}, returnedEntries={}, elapsed={}", stream, group, consumer, minIdleTime, count, size, elapsed);
+            redis.checkSlowOperation(elapsed);
+        }
+    }
+}
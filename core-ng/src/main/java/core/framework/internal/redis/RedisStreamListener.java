@@ -0,0 +1,108 @@
+package core.framework.internal.redis;
+
+import core.framework.internal.log.LogManager;
+import core.framework.internal.log.filter.ArrayLogParam;
+import core.framework.redis.BulkStreamHandler;
+import core.framework.redis.StreamHandler;
+import core.framework.util.Network;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * @author neo
+ */
+public class RedisStreamListener {
+    final Map<String, StreamHandler> handlers = new LinkedHashMap<>();
+    final Map<String, BulkStreamHandler> bulkHandlers = new LinkedHashMap<>();
+    final RedisImpl redis;
+    final LogManager logManager;
+
+    private final Logger logger = LoggerFactory.getLogger(RedisStreamListener.class);
+    private final String name;
+
+    public int poolSize = Runtime.getRuntime().availableProcessors() * 2;
+    public String group = LogManager.APP_NAME;
+    public int maxPollRecords = 100;
+    public Duration maxWaitTime = Duration.ofSeconds(2);        // XREADGROUP block time, shutdown waits for current block to return
+    public Duration claimIdleTime = Duration.ofMinutes(5);      // pending entries idle longer than this will be redelivered, e.g. handler failed or consumer died
+    public int maxDeliveryCount = 5;                            // claimed entries delivered more times than this are moved to failed stream
+    public long longConsumerDelayThresholdInNano = Duration.ofSeconds(60).toNanos();
+
+    long maxProcessTimeInNano;
+    volatile boolean shutdown;
+    private RedisStreamListenerThread[] threads;
+
+    public RedisStreamListener(RedisImpl redis, String name, LogManager logManager, long maxProcessTimeInNano) {
+        this.redis = redis;
+        this.name = name;
+        this.logManager = logManager;
+        this.maxProcessTimeInNano = maxProcessTimeInNano;
+    }
+
+    public void subscribe(String stream, StreamHandler handler, BulkStreamHandler bulkHandler) {
+        if (handlers.containsKey(stream) || bulkHandlers.containsKey(stream)) throw new Error("stream is already subscribed, stream=" + stream);
+        if (handler != null) handlers.put(stream, handler);
+        if (bulkHandler != null) bulkHandlers.put(stream, bulkHandler);
+    }
+
+    String[] streams() {
+        String[] streams = new String[handlers.size() + bulkHandlers.size()];
+        int index = 0;
+        for (String stream : handlers.keySet()) {
+            streams[index++] = stream;
+        }
+        for (String stream : bulkHandlers.keySet()) {
+            streams[index++] = stream;
+        }
+        return streams;
+    }
+
+    public void start() {
+        if (redis.connectionFactory.cluster != null) throw new Error("redis stream listener is not supported in cluster mode, name=" + name);
+        threads = new RedisStreamListenerThread[poolSize];
+        for (int i = 0; i < poolSize; i++) {
+            threads[i] = new RedisStreamListenerThread(listenerThreadName(name, i), consumer(i), this);
+        }
+        for (var thread : threads) {
+            thread.start();
+        }
+        logger.info("redis stream listener started, streams={}, name={}, group={}", new ArrayLogParam(streams()), name, group);
+    }
+
+    String listenerThreadName(String name, int index) {
+        return "redis-stream-listener-" + (name == null ? "" : name + "-") + index;
+    }
+
+    // consumer name must be unique within group, pending entries of previous consumer names will be claimed by others after claimIdleTime
+    String consumer(int index) {
+        return Network.LOCAL_HOST_NAME + "-" + index;
+    }
+
+    String failedStream(String stream) {
+        return stream + ":failed";
+    }
+
+    public void shutdown() {
+        // not to interrupt threads, which may break handler in middle of processing, threads exit after current XREADGROUP block returns
+        shutdown = true;
+        logger.info("shutting down redis stream listener, name={}", name);
+    }
+
+    public void awaitTermination(long timeoutInMs) {
+        if (threads != null) {
+            long end = System.currentTimeMillis() + timeoutInMs;
+            for (RedisStreamListenerThread thread : threads) {
+                try {
+                    thread.awaitTermination(end - System.currentTimeMillis());
+                } catch (InterruptedException e) {
+                    logger.warn(e.getMessage(), e);
+                }
+            }
+            logger.info("redis stream listener stopped, name={}", name);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package core.framework.internal.redis;
+
+import core.framework.internal.log.ActionLog;
+import core.framework.internal.log.LogManager;
+import core.framework.internal.log.filter.ArrayLogParam;
+import core.framework.log.ActionLogContext;
+import core.framework.redis.BulkStreamHandler;
+import core.framework.redis.StreamEntry;
+import core.framework.redis.StreamHandler;
+import core.framework.util.StopWatch;
+import core.framework.util.Threads;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static core.framework.internal.redis.Protocol.Command.XADD;
+import static core.framework.internal.redis.RedisEncodings.encode;
+import static core.framework.log.Markers.errorCode;
+
+/**
+ * @author neo
+ */
+class RedisStreamListenerThread extends Thread {
+    private static final long CLAIM_INTERVAL_IN_NANO = Duration.ofSeconds(30).toNanos();
+
+    private final Logger logger = LoggerFactory.getLogger(RedisStreamListenerThread.class);
+    private final RedisStreamListener listener;
+    private final LogManager logManager;
+    private final String consumer;
+    private final String[] streams;
+
+    private final Object lock = new Object();
+    private volatile boolean processing;
+    private long nextClaimTime;
+
+    RedisStreamListenerThread(String name, String consumer, RedisStreamListener listener) {
+        super(name);
+        this.consumer = consumer;
+        this.listener = listener;
+        logManager = listener.logManager;
+        streams = listener.streams();
+    }
+
+    @Override
+    public void run() {
+        try {
+            processing = true;
+            process();
+        } finally {
+            processing = false;
+            synchronized (lock) {
+                lock.notifyAll();
+            }
+        }
+    }
+
+    private void process() {
+        RedisConnectionFactory connectionFactory = listener.redis.connectionFactory;
+        int timeoutInMs = connectionFactory.timeoutInMs + (int) listener.maxWaitTime.toMillis();    // socket must not time out during XREADGROUP block
+        nextClaimTime = System.nanoTime();
+        while (!listener.shutdown) {
+            try (RedisConnection connection = connectionFactory.create(timeoutInMs)) {
+                createGroups(connection);
+                while (!listener.shutdown) {
+                    long now = System.nanoTime();
+                    if (now - nextClaimTime >= 0) {
+                        claim(connection);
+                        nextClaimTime = now + CLAIM_INTERVAL_IN_NANO;
+                    }
+                    RedisStreamImpl.writeReadGroup(connection, listener.group, consumer, listener.maxPollRecords, listener.maxWaitTime.toMillis(), streams);
+                    Map<String, List<StreamEntry>> entries = RedisStreamImpl.streams(connection.readArray());
+                    for (Map.Entry<String, List<StreamEntry>> entry : entries.entrySet()) {
+                        processEntries(connection, entry.getKey(), entry.getValue());
+                    }
+                }
+            } catch (Throwable e) {
+                if (!listener.shutdown) {
+                    logger.error("failed to read redis stream, retry in 10 seconds", e);
+                    Threads.sleepRoughly(Duration.ofSeconds(10));
+                }
+            }
+        }
+        logger.info("redis stream listener thread stopped, name={}", getName());
+    }
+
+    private void createGroups(RedisConnection connection) throws IOException {
+        for (String stream : streams) {
+            RedisStreamImpl.writeCreateGroup(connection, stream, listener.group);
+            RedisStreamImpl.readCreateGroup(connection);
+        }
+    }
+
+    // take over entries not acked in time, e.g. handler failed, or consumer died before ack
+    private void claim(RedisConnection connection) throws IOException {
+        for (String stream : streams) {
+            RedisStreamImpl.writeAutoClaim(connection, stream, listener.group, consumer, listener.claimIdleTime.toMillis(), listener.maxPollRecords);
+            List<StreamEntry> entries = RedisStreamImpl.entries((Object[]) connection.readArray()[1]);
+            if (!entries.isEmpty()) {
+                logger.warn(errorCode("REDIS_STREAM_ENTRY_CLAIMED"), "claimed pending entries, stream={}, count={}", stream, entries.size());
+                entries = moveFailedEntries(connection, stream, entries);
+                if (!entries.isEmpty()) processEntries(connection, stream, entries);
+            }
+        }
+    }
+
+    // not to redeliver poison entries endlessly, entries delivered more than maxDeliveryCount are moved to failed stream, which is kept for investigation or manual retry
+    List<StreamEntry> moveFailedEntries(RedisConnection connection, String stream, List<StreamEntry> entries) throws IOException {
+        // claimed entries are ordered by id, range may include own pending entries not claimed yet, so count leaves room for them
+        RedisStreamImpl.writePending(connection, stream, listener.group, entries.get(0).id, entries.get(entries.size() - 1).id, entries.size() + listener.maxPollRecords, consumer);
+        Map<String, Long> deliveryCounts = RedisStreamImpl.deliveryCounts(connection.readArray());
+        List<StreamEntry> failedEntries = new ArrayList<>();
+        List<StreamEntry> remainingEntries = new ArrayList<>(entries.size());
+        for (StreamEntry entry : entries) {
+            Long deliveryCount = deliveryCounts.get(entry.id);
+            if (deliveryCount != null && deliveryCount > listener.maxDeliveryCount) {
+                failedEntries.add(entry);
+            } else {
+                remainingEntries.add(entry);
+            }
+        }
+        if (!failedEntries.isEmpty()) moveToFailedStream(connection, stream, failedEntries);
+        return remainingEntries;
+    }
+
+    private void moveToFailedStream(RedisConnection connection, String stream, List<StreamEntry> entries) throws IOException {
+        var watch = new StopWatch();
+        String failedStream = listener.failedStream(stream);
+        int size = entries.size();
+        String[] ids = new String[size];
+        for (int i = 0; i < size; i++) {    // add to failed stream before ack, crash in between leaves entry in both streams rather than lose it
+            StreamEntry entry = entries.get(i);
+            ids[i] = entry.id;
+            connection.writeArray(3 + entry.fields.size() * 2);
+            connection.writeBlobString(XADD);
+            connection.writeBlobString(encode(failedStream));
+            connection.writeBlobString(RedisStreamImpl.AUTO_ID);
+            for (Map.Entry<String, String> field : entry.fields.entrySet()) {
+                connection.writeBlobString(encode(field.getKey()));
+                connection.writeBlobString(encode(field.getValue()));
+            }
+        }
+        RedisStreamImpl.writeAck(connection, stream, listener.group, ids);
+        connection.readAll(size + 1);
+        logger.warn(errorCode("REDIS_STREAM_ENTRY_FAILED"), "moved entries failed too many times to failed stream, stream={}, failedStream={}, ids={}, elapsed={}", stream, failedStream, new ArrayLogParam(ids), watch.elapsed());
+    }
+
+    private void processEntries(RedisConnection connection, String stream, List<StreamEntry> entries) throws IOException {
+        var watch = new StopWatch();
+        try {
+            BulkStreamHandler bulkHandler = listener.bulkHandlers.get(stream);
+            if (bulkHandler != null) {
+                handleBulk(connection, stream, bulkHandler, entries);
+            } else {
+                StreamHandler handler = listener.handlers.get(stream);
+                for (StreamEntry entry : entries) {
+                    handle(connection, stream, handler, entry);
+                }
+            }
+        } finally {
+            logger.info("process redis stream entries, stream={}, count={}, elapsed={}", stream, entries.size(), watch.elapsed());
+        }
+    }
+
+    void handle(RedisConnection connection, String stream, StreamHandler handler, StreamEntry entry) throws IOException {
+        ActionLog actionLog = logManager.begin("=== stream handling begin ===", null);
+        boolean handled = false;
+        try {
+            initAction(actionLog, stream, handler.getClass().getCanonicalName());
+
+            actionLog.track("redis", 0, 1, 0);
+            actionLog.context.put("id", List.of(entry.id));
+            checkConsumerDelay(actionLog, timestamp(entry.id), listener.longConsumerDelayThresholdInNano);
+            logger.debug("[entry] id={}, fields={}", entry.id, entry.fields);
+
+            handler.handle(entry.id, entry.fields);
+            handled = true;
+            ack(connection, stream, entry.id);
+        } catch (Throwable e) {
+            logManager.logError(e);
+            if (handled) throw new IOException("failed to ack entry, stream=" + stream, e);     // connection may be out of sync, must be recreated
+        } finally {
+            logManager.end("=== stream handling end ===");
+        }
+    }
+
+    void handleBulk(RedisConnection connection, String stream, BulkStreamHandler handler, List<StreamEntry> entries) throws IOException {
+        ActionLog actionLog = logManager.begin("=== stream handling begin ===", null);
+        boolean handled = false;
+        try {
+            initAction(actionLog, stream, handler.getClass().getCanonicalName());
+
+            int size = entries.size();
+            actionLog.track("redis", 0, size, 0);
+            String[] ids = new String[size];
+            for (int i = 0; i < size; i++) {
+                StreamEntry entry = entries.get(i);
+                ids[i] = entry.id;
+                logger.debug("[entry] id={}, fields={}", entry.id, entry.fields);
+            }
+            actionLog.context.put("id", List.of(ids));
+            checkConsumerDelay(actionLog, timestamp(ids[0]), listener.longConsumerDelayThresholdInNano);   // entries are ordered by id
+
+            handler.handle(entries);
+            handled = true;
+            ack(connection, stream, ids);
+        } catch (Throwable e) {
+            logManager.logError(e);
+            if (handled) throw new IOException("failed to ack entries, stream=" + stream, e);   // connection may be out of sync, must be recreated
+        } finally {
+            logManager.end("=== stream handling end ===");
+        }
+    }
+
+    // only ack after handled successfully, failed entries stay pending and will be claimed after claimIdleTime, until delivered more than maxDeliveryCount
+    private void ack(RedisConnection connection, String stream, String... ids) throws IOException {
+        var watch = new StopWatch();
+        try {
+            RedisStreamImpl.writeAck(connection, stream, listener.group, ids);
+            connection.readLong();
+        } finally {
+            long elapsed = watch.elapsed();
+            ActionLogContext.track("redis", elapsed, 0, ids.length);
+            logger.debug("xack, stream={}, ids={}, elapsed={}", stream, new ArrayLogParam(ids), elapsed);
+        }
+    }
+
+    private void initAction(ActionLog actionLog, String stream, String handler) {
+        actionLog.action("stream:" + stream);
+        actionLog.maxProcessTime(listener.maxProcessTimeInNano);
+        actionLog.context.put("stream", List.of(stream));
+        actionLog.context.put("handler", List.of(handler));
+        logger.debug("stream={}, handler={}", stream, handler);
+    }
+
+    // entry id is in format of "${timestampInMs}-${sequence}"
+    long timestamp(String id) {
+        int index = id.indexOf('-');
+        return Long.parseLong(index < 0 ? id : id.substring(0, index));
+    }
+
+    void checkConsumerDelay(ActionLog actionLog, long timestamp, long longConsumerDelayThresholdInNano) {
+        long delay = (actionLog.date.toEpochMilli() - timestamp) * 1_000_000;     // convert to nanoseconds
+        logger.debug("consumerDelay={}", Duration.ofNanos(delay));
+        actionLog.stats.put("consumer_delay", (double) delay);
+        if (delay > longConsumerDelayThresholdInNano) {
+            logger.warn(errorCode("LONG_CONSUMER_DELAY"), "consumer delay is too long, delay={}", Duration.ofNanos(delay));
+        }
+    }
+
+    void awaitTermination(long timeoutInMs) throws InterruptedException {
+        long end = System.currentTimeMillis() + timeoutInMs;
+        synchronized (lock) {
+            while (processing) {
+                long left = end - System.currentTimeMillis();
+                if (left <= 0) {
+                    logger.warn(errorCode("FAILED_TO_STOP"), "failed to terminate redis stream listener thread, name={}", getName());
+                    break;
+                }
+                lock.wait(left);
+            }
+        }
+    }
+}
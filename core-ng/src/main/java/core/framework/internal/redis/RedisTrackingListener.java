@@ -0,0 +1,11 @@
+package core.framework.internal.redis;
+
+import javax.annotation.Nullable;
+
+/**
+ * @author neo
+ */
+public interface RedisTrackingListener {
+    // keys is null if all tracked keys are invalidated, e.g. FLUSHALL or tracking connection is reset
+    void onInvalidate(@Nullable String[] keys);
+}
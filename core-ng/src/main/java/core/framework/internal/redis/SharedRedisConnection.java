@@ -0,0 +1,113 @@
+package core.framework.internal.redis;
+
+import core.framework.internal.resource.Pool;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Queue;
+
+import static core.framework.internal.redis.RedisEncodings.decode;
+
+/**
+ * physical connection shared by multiple callers, requests are written in order under lock,
+ * redis replies in same order as requests, so the reader thread dispatches replies to callers by FIFO
+ *
+ * @author neo
+ */
+class SharedRedisConnection implements Runnable {
+    private final Logger logger = LoggerFactory.getLogger(SharedRedisConnection.class);
+    private final RedisConnection connection;
+    private final Queue<MultiplexedRedisConnection> pendingCallers = new ArrayDeque<>();   // guarded by this
+    private final Thread readerThread;
+    private final RedisTrackingListener trackingListener;
+    private volatile boolean closed;
+
+    SharedRedisConnection(String name, RedisConnection connection, RedisTrackingListener trackingListener) {
+        this.connection = connection;
+        this.trackingListener = trackingListener;
+        readerThread = new Thread(this, name);
+        readerThread.setDaemon(true);
+    }
+
+    void start() {
+        readerThread.start();
+    }
+
+    boolean closed() {
+        return closed;
+    }
+
+    void write(MultiplexedRedisConnection caller, byte[] request, int commands) throws IOException {
+        synchronized (this) {
+            if (closed) throw new IOException("shared redis connection is closed");
+            for (int i = 0; i < commands; i++) {
+                pendingCallers.add(caller);
+            }
+            try {
+                connection.outputStream.write(request);
+                connection.flush();
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!closed) {
+                Object reply;
+                try {
+                    reply = connection.read();
+                } catch (RedisException e) {
+                    reply = e;
+                }
+                if (reply instanceof Protocol.Push) {
+                    handlePush((Protocol.Push) reply);
+                    continue;
+                }
+                MultiplexedRedisConnection caller;
+                synchronized (this) {
+                    caller = pendingCallers.poll();
+                }
+                if (caller == null) throw new IOException("unexpected redis reply without pending request");
+                caller.reply(reply);
+            }
+        } catch (IOException e) {
+            if (!closed) logger.warn("shared redis connection failed, error={}", e.getMessage(), e);
+            close();
+        }
+    }
+
+    // format: ["invalidate", [key1, key2...]], keys is null if all keys are invalidated
+    private void handlePush(Protocol.Push push) {
+        if (trackingListener == null || !"invalidate".equals(decode((byte[]) push.values[0]))) return;
+        Object[] values = (Object[]) push.values[1];
+        String[] keys = null;
+        if (values != null) {
+            keys = new String[values.length];
+            for (int i = 0; i < values.length; i++) {
+                keys[i] = decode((byte[]) values[i]);
+            }
+        }
+        trackingListener.onInvalidate(keys);
+    }
+
+    void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            var exception = new IOException("shared redis connection is closed");
+            while (true) {
+                MultiplexedRedisConnection caller = pendingCallers.poll();
+                if (caller == null) break;
+                caller.reply(exception);
+            }
+        }
+        Pool.closeQuietly(connection);  // unblock reader thread
+        if (trackingListener != null) trackingListener.onInvalidate(null);  // server stops tracking keys read by this connection
+    }
+}
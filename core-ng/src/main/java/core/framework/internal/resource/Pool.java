@@ -59,6 +59,14 @@ public class Pool<T extends AutoCloseable> {
         this.maxSize = maxSize;
     }
 
+    public int minSize() {
+        return minSize;
+    }
+
+    public int maxSize() {
+        return maxSize;
+    }
+
     public void checkoutTimeout(Duration timeout) {
         checkoutTimeoutInMs = timeout.toMillis();
     }
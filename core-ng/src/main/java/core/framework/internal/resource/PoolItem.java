@@ -6,6 +6,7 @@ package core.framework.internal.resource;
 public final class PoolItem<T> {
     public final T resource;
     public boolean broken;
+    public Object attachment;   // state bound to resource lifecycle, e.g. prepared statement cache of db connection
     long returnTime;    // according to profiling, use System.currentTimeMillis instead of Instant.now()
 
     public PoolItem(T resource) {
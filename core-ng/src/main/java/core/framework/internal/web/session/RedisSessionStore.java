@@ -3,6 +3,7 @@ package core.framework.internal.web.session;
 import core.framework.crypto.Hash;
 import core.framework.internal.redis.RedisException;
 import core.framework.redis.Redis;
+import core.framework.redis.RedisPipeline;
 import core.framework.util.Lists;
 import core.framework.util.Maps;
 import core.framework.util.Strings;
@@ -13,6 +14,7 @@ import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 
 import static core.framework.log.Markers.errorCode;
 
@@ -32,10 +34,14 @@ public class RedisSessionStore implements SessionStore {
     public Map<String, String> getAndRefresh(String sessionId, String domain, Duration timeout) {
         String key = sessionKey(sessionId, domain);
         try {
-            Map<String, String> sessionValues = redis.hash().getAll(key);
-            if (sessionValues.isEmpty()) return null;
-            redis.expire(key, timeout);
-            return sessionValues;
+            // send within one round trip, expire does nothing if session not found
+            RedisPipeline pipeline = redis.pipeline();
+            Supplier<Map<String, String>> sessionValues = pipeline.hashGetAll(key);
+            pipeline.expire(key, timeout);
+            pipeline.execute();
+            Map<String, String> values = sessionValues.get();
+            if (values.isEmpty()) return null;
+            return values;
         } catch (RedisException e) {
             // gracefully handle invalid data in redis, either legacy old format value, or invalid value/key type inserted manually,
             logger.warn(errorCode("INVALID_SESSION_VALUE"), "failed to get redis session values", e);
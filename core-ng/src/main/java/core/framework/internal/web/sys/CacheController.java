@@ -2,6 +2,7 @@ package core.framework.internal.web.sys;
 
 import core.framework.http.ContentType;
 import core.framework.internal.cache.CacheImpl;
+import core.framework.internal.cache.CacheStats;
 import core.framework.internal.web.http.IPv4AccessControl;
 import core.framework.json.JSON;
 import core.framework.util.Strings;
@@ -59,6 +60,14 @@ public class CacheController {
         view.name = cache.name;
         view.type = cache.cacheClass.getCanonicalName();
         view.duration = (int) cache.duration.getSeconds();
+        view.localWeight = cache.localWeight();
+        CacheStats stats = cache.stats();
+        view.hits = stats.hits.sum();
+        view.misses = stats.misses.sum();
+        view.localHits = stats.localHits.sum();
+        view.loads = stats.loads.sum();
+        view.loadElapsed = stats.loadElapsed.sum();
+        view.evictions = stats.evictions.sum();
         return view;
     }
 }
@@ -18,5 +18,19 @@ public class ListCacheResponse {
         public String type;
         @Property(name = "duration")
         public Integer duration;
+        @Property(name = "localWeight")
+        public Long localWeight;
+        @Property(name = "hits")
+        public Long hits;
+        @Property(name = "misses")
+        public Long misses;
+        @Property(name = "localHits")
+        public Long localHits;
+        @Property(name = "loads")
+        public Long loads;
+        @Property(name = "loadElapsed")
+        public Long loadElapsed;
+        @Property(name = "evictions")
+        public Long evictions;
     }
 }
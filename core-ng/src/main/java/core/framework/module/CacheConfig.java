@@ -1,15 +1,22 @@
 package core.framework.module;
 
+import core.framework.async.Executor;
 import core.framework.cache.Cache;
 import core.framework.http.HTTPMethod;
+import core.framework.internal.async.ExecutorImpl;
 import core.framework.internal.cache.CacheClassValidator;
 import core.framework.internal.cache.CacheImpl;
+import core.framework.internal.cache.CacheMetrics;
 import core.framework.internal.cache.CacheStore;
 import core.framework.internal.cache.InvalidateLocalCacheMessageListener;
+import core.framework.internal.cache.InvalidateLocalCacheMessagePublisher;
 import core.framework.internal.cache.LocalCacheMetrics;
 import core.framework.internal.cache.LocalCacheStore;
+import core.framework.internal.cache.OffHeapCacheMetrics;
+import core.framework.internal.cache.OffHeapCacheStore;
 import core.framework.internal.cache.RedisCacheStore;
 import core.framework.internal.cache.RedisLocalCacheStore;
+import core.framework.internal.cache.RedisTrackingLocalCacheStore;
 import core.framework.internal.module.Config;
 import core.framework.internal.module.ModuleContext;
 import core.framework.internal.module.ShutdownHook;
@@ -35,16 +42,24 @@ public class CacheConfig extends Config {
 
     private ModuleContext context;
     private LocalCacheStore localCacheStore;
-    private CacheStore redisCacheStore;
+    private OffHeapCacheStore offHeapCacheStore;
+    private RedisCacheStore redisCacheStore;
     private RedisImpl redis;
+    private String redisHost;
+    private String redisPassword;
     private CacheStore redisLocalCacheStore;
+    private boolean clientTracking;
     private int maxLocalSize;
+    private long maxLocalWeight;
+    private long maxOffHeapSize;
+    private Executor refreshExecutor;
 
     @Override
     protected void initialize(ModuleContext context, String name) {
         this.context = context;
 
         caches = new HashMap<>();
+        context.collector.metrics.add(new CacheMetrics(caches));
         var controller = new CacheController(caches);
         context.route(HTTPMethod.GET, "/_sys/cache", (LambdaController) controller::list, true);
         context.route(HTTPMethod.GET, "/_sys/cache/:name/:key", (LambdaController) controller::get, true);
@@ -58,7 +73,13 @@ public class CacheConfig extends Config {
         }
         // maxLocalSize() can be configured before localCacheStore is created, so set max size at end
         if (maxLocalSize > 0 && localCacheStore != null) {
-            localCacheStore.maxSize = maxLocalSize;
+            localCacheStore.maxSize(maxLocalSize);
+        }
+        if (maxLocalWeight > 0 && localCacheStore != null) {
+            localCacheStore.maxWeight(maxLocalWeight);
+        }
+        if (maxOffHeapSize > 0 && offHeapCacheStore != null) {
+            offHeapCacheStore.maxSize(maxOffHeapSize);
         }
     }
 
@@ -76,7 +97,7 @@ public class CacheConfig extends Config {
         configureRedis(host, password);
     }
 
-    public <T> CacheStoreConfig add(Class<T> cacheClass, Duration duration) {
+    public <T> CacheStoreConfig<T> add(Class<T> cacheClass, Duration duration) {
         if (localCacheStore == null && redisCacheStore == null) throw new Error("cache store is not configured, please configure first");
         logger.info("add cache, class={}, duration={}", cacheClass.getCanonicalName(), duration);
         new CacheClassValidator(cacheClass).validate();
@@ -87,7 +108,20 @@ public class CacheConfig extends Config {
         if (previous != null) throw new Error("found duplicate cache name, name=" + name);
         context.beanFactory.bind(Types.generic(Cache.class, cacheClass), null, cache);
 
-        return new CacheStoreConfig(cache, this);
+        return new CacheStoreConfig<>(cache, this);
+    }
+
+    // use redis 6 client side caching to invalidate local cache of redis().local() caches, instead of publishing invalidation messages to all nodes,
+    // requires redis 6+, local caches read and write through dedicated RESP3 connection
+    public void clientTracking() {
+        if (localCacheStore == null && redisCacheStore == null) throw new Error("cache store is not configured, please configure first");
+        if (redisLocalCacheStore != null) throw new Error("client tracking must be configured before adding local cache");
+        configureClientTracking();
+    }
+
+    void configureClientTracking() {
+        if (redis == null) throw new Error("client tracking requires redis cache store");
+        clientTracking = true;
     }
 
     // number of objects to cache
@@ -95,6 +129,16 @@ public class CacheConfig extends Config {
         maxLocalSize = size;
     }
 
+    // heap budget in bytes shared by all local caches, weight is estimated by json length or cache weigher
+    public void maxLocalWeight(long bytes) {
+        maxLocalWeight = bytes;
+    }
+
+    // direct memory shared by all off heap caches, default is 256M, allocated by 16M segments on demand, must not exceed -XX:MaxDirectMemorySize
+    public void maxOffHeapSize(long bytes) {
+        maxOffHeapSize = bytes;
+    }
+
     String cacheName(Class<?> cacheClass) {
         return ASCII.toLowerCase(cacheClass.getSimpleName());
     }
@@ -112,6 +156,8 @@ public class CacheConfig extends Config {
         context.collector.metrics.add(new PoolMetrics(redis.pool));
         redisCacheStore = new RedisCacheStore(redis);
         this.redis = redis;
+        redisHost = host;
+        redisPassword = password;
     }
 
     LocalCacheStore localCacheStore() {
@@ -125,15 +171,64 @@ public class CacheConfig extends Config {
         return localCacheStore;
     }
 
+    OffHeapCacheStore offHeapCacheStore() {
+        if (offHeapCacheStore == null) {
+            logger.info("create off heap cache store");
+            var offHeapCacheStore = new OffHeapCacheStore(16 * 1024 * 1024);
+            context.backgroundTask().scheduleWithFixedDelay(offHeapCacheStore::cleanup, Duration.ofMinutes(5));
+            context.collector.metrics.add(new OffHeapCacheMetrics(offHeapCacheStore));
+            this.offHeapCacheStore = offHeapCacheStore;
+        }
+        return offHeapCacheStore;
+    }
+
+    void configureDistributedLoad(CacheImpl<?> cache, Duration maxWaitTime) {
+        if (redisCacheStore == null) throw new Error("distributed load requires redis cache store");
+        cache.distributedLoad(redisCacheStore, maxWaitTime);
+    }
+
+    Executor refreshExecutor() {
+        if (refreshExecutor == null) {
+            refreshExecutor = createRefreshExecutor();
+        }
+        return refreshExecutor;
+    }
+
+    Executor createRefreshExecutor() {
+        var executor = new ExecutorImpl(Runtime.getRuntime().availableProcessors(), "cache", context.logManager, context.shutdownHook.shutdownTimeoutInNano);
+        context.shutdownHook.add(ShutdownHook.STAGE_2, timeout -> executor.shutdown());
+        context.shutdownHook.add(ShutdownHook.STAGE_3, executor::awaitTermination);
+        return executor;
+    }
+
     CacheStore redisLocalCacheStore() {
         if (redisLocalCacheStore == null) {
             logger.info("create redis local cache store");
             LocalCacheStore localCache = localCacheStore();
+            if (clientTracking) {
+                redisLocalCacheStore = trackingLocalCacheStore(localCache);
+                return redisLocalCacheStore;
+            }
             var thread = new RedisSubscribeThread("cache-invalidator", redis, new InvalidateLocalCacheMessageListener(localCache), RedisLocalCacheStore.CHANNEL_INVALIDATE_CACHE);
             context.startupHook.start.add(thread::start);
             context.shutdownHook.add(ShutdownHook.STAGE_6, timeout -> thread.close());
-            redisLocalCacheStore = new RedisLocalCacheStore(localCache, redisCacheStore, redis);
+            var publisher = new InvalidateLocalCacheMessagePublisher(redis, Duration.ofMillis(10));
+            context.startupHook.start.add(publisher::start);
+            context.shutdownHook.add(ShutdownHook.STAGE_5, publisher::close);   // publish remaining keys before redis is closed
+            redisLocalCacheStore = new RedisLocalCacheStore(localCache, redisCacheStore, publisher);
         }
         return redisLocalCacheStore;
     }
+
+    private CacheStore trackingLocalCacheStore(LocalCacheStore localCache) {
+        var cacheStore = new RedisTrackingLocalCacheStore(localCache);
+        var redis = new RedisImpl("redis-cache-tracking");
+        redis.host(redisHost);
+        redis.password(redisPassword);
+        redis.timeout(Duration.ofSeconds(1));
+        redis.clientTracking(cacheStore);
+        context.shutdownHook.add(ShutdownHook.STAGE_6, timeout -> redis.close());
+        cacheStore.redisCache = new RedisCacheStore(redis);
+        return cacheStore;
+    }
 }
@@ -1,17 +1,22 @@
 package core.framework.module;
 
+import core.framework.cache.CacheCodec;
+import core.framework.cache.Weigher;
 import core.framework.internal.cache.CacheImpl;
 import core.framework.internal.cache.RedisCacheStore;
 import core.framework.internal.cache.RedisLocalCacheStore;
+import core.framework.internal.cache.RedisTrackingLocalCacheStore;
+
+import java.time.Duration;
 
 /**
  * @author neo
  */
-public class CacheStoreConfig {
-    private final CacheImpl<?> cache;
+public class CacheStoreConfig<T> {
+    private final CacheImpl<T> cache;
     private final CacheConfig config;
 
-    CacheStoreConfig(CacheImpl<?> cache, CacheConfig config) {
+    CacheStoreConfig(CacheImpl<T> cache, CacheConfig config) {
         this.cache = cache;
         this.config = config;
     }
@@ -25,8 +30,59 @@ public class CacheStoreConfig {
     // for rarely changed data, or tolerate stale data,
     // in microservice env, only way to refresh is expiration or restart service
     public void localOnly() {
-        if (cache.cacheStore instanceof RedisCacheStore || cache.cacheStore instanceof RedisLocalCacheStore) {
+        if (cache.cacheStore instanceof RedisCacheStore || cache.cacheStore instanceof RedisLocalCacheStore || cache.cacheStore instanceof RedisTrackingLocalCacheStore) {
             cache.cacheStore = config.localCacheStore();
         }
     }
+
+    // keep encoded value in direct memory of this jvm instead of heap, e.g. large read-mostly reference data, not to add to gc pause,
+    // same as localOnly(), value is decoded on every read, so it trades cpu for gc
+    public void offHeap() {
+        cache.cacheStore = config.offHeapCacheStore();
+    }
+
+    // concurrent misses of same key within jvm wait for one loading, waiting thread loads by itself after max wait time, default is 15s,
+    // e.g. use shorter time for latency sensitive caller
+    public void maxLoadWaitTime(Duration maxLoadWaitTime) {
+        if (maxLoadWaitTime.toMillis() <= 0) throw new Error("max load wait time must be greater than 0, value=" + maxLoadWaitTime);
+        cache.maxLoadWaitTime = maxLoadWaitTime;
+    }
+
+    // for redis cache, only one node loads missing key by taking short lease in redis, other nodes poll redis for the value, and load by itself after max wait time,
+    // e.g. hot key expires with many nodes, only applies to get(key, loader)
+    public void distributedLoad(Duration maxWaitTime) {
+        config.configureDistributedLoad(cache, maxWaitTime);
+    }
+
+    // limit heap usage of this cache in local cache store, weight is estimated by json length unless weigher is specified
+    public void maxLocalWeight(long bytes) {
+        cache.maxLocalWeight(bytes);
+    }
+
+    // estimate heap size of value in bytes, e.g. for cache with large collections or byte arrays where json length is not accurate
+    public void weigher(Weigher<T> weigher) {
+        cache.weigher(weigher);
+    }
+
+    // encode value in redis by codec instead of json, e.g. compact binary format for large objects, value decoded by codec is not validated,
+    // existing json values are still readable, values written by codec are treated as invalid by previous versions and reloaded
+    public void codec(CacheCodec<T> codec) {
+        cache.codec(codec);
+    }
+
+    // compress value in redis if encoded size is larger than threshold, previous versions treat compressed value as invalid and reload, so enable after all services upgraded
+    public void compress(int thresholdInBytes) {
+        cache.compress(thresholdInBytes);
+    }
+
+    // read within last ratio of duration returns current value and reloads in background, e.g. 0.2 means last 20% of duration,
+    // loader runs in another thread as separated action, so it must not depend on current request
+    public void refreshAhead(double ratio) {
+        cache.refreshAhead(ratio, config.refreshExecutor());
+    }
+
+    // keep expired value in store for max stale time, and return it if loader throws exception
+    public void staleOnError(Duration maxStaleTime) {
+        cache.staleOnError(maxStaleTime);
+    }
 }
@@ -4,6 +4,7 @@ import core.framework.db.Database;
 import core.framework.db.IsolationLevel;
 import core.framework.db.Repository;
 import core.framework.internal.db.DatabaseImpl;
+import core.framework.internal.db.StatementCacheMetrics;
 import core.framework.internal.module.Config;
 import core.framework.internal.module.ModuleContext;
 import core.framework.internal.module.ShutdownHook;
@@ -26,6 +27,7 @@ public class DBConfig extends Config {
     private ModuleContext context;
     private String url;
     private boolean entityAdded;
+    private boolean statementCacheEnabled;
 
     @Override
     protected void initialize(ModuleContext context, String name) {
@@ -57,6 +59,18 @@ public class DBConfig extends Config {
         return url;
     }
 
+    // reads of action marked by Database.readFromReplica(true) go to replicas, e.g. replicas("jdbc:mysql://db-replica-0/db", "jdbc:mysql://db-replica-1/db")
+    public void replicas(String... urls) {
+        if (url == null) throw new Error("db url must be configured first, name=" + name);
+        setReplicas(urls);
+    }
+
+    void setReplicas(String... urls) {
+        database.replicas(urls);
+        context.backgroundTask().scheduleWithFixedDelay(database.replicaPool::refresh, Duration.ofMinutes(10));
+        context.collector.metrics.add(new PoolMetrics(database.replicaPool));
+    }
+
     public void user(String user) {
         database.user = user;
     }
@@ -69,6 +83,20 @@ public class DBConfig extends Config {
         database.pool.size(minSize, maxSize);
     }
 
+    public void replicaPoolSize(int minSize, int maxSize) {
+        if (database.replicaPool == null) throw new Error("db replicas must be configured first, name=" + name);
+        database.replicaPool.size(minSize, maxSize);
+    }
+
+    // cache prepared statements per connection and reuse across queries, with mysql, statements are prepared on server side, e.g. statementCacheSize(50)
+    public void statementCacheSize(int size) {
+        database.statementCacheSize(size);
+        if (!statementCacheEnabled) {
+            context.collector.metrics.add(new StatementCacheMetrics(database));
+            statementCacheEnabled = true;
+        }
+    }
+
     public void isolationLevel(IsolationLevel level) {
         database.isolationLevel = level;
     }
@@ -1,11 +1,18 @@
 package core.framework.module;
 
+import core.framework.internal.inject.InjectValidator;
 import core.framework.internal.module.Config;
 import core.framework.internal.module.ModuleContext;
 import core.framework.internal.module.ShutdownHook;
 import core.framework.internal.redis.RedisImpl;
+import core.framework.internal.redis.RedisListListener;
+import core.framework.internal.redis.RedisStreamListener;
 import core.framework.internal.resource.PoolMetrics;
+import core.framework.redis.BulkStreamHandler;
+import core.framework.redis.ListHandler;
+import core.framework.redis.ReadPolicy;
 import core.framework.redis.Redis;
+import core.framework.redis.StreamHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,6 +27,8 @@ public class RedisConfig extends Config {
     private Redis redis;
     private String name;
     private String host;
+    private RedisStreamListener streamListener;
+    private RedisListListener listListener;
 
     @Override
     protected void initialize(ModuleContext context, String name) {
@@ -38,7 +47,7 @@ public class RedisConfig extends Config {
         logger.info("create redis client, name={}", name);
         var redis = new RedisImpl("redis" + (name == null ? "" : "-" + name));
         context.shutdownHook.add(ShutdownHook.STAGE_6, timeout -> redis.close());
-        context.backgroundTask().scheduleWithFixedDelay(redis.pool::refresh, Duration.ofMinutes(5));
+        context.backgroundTask().scheduleWithFixedDelay(redis::refreshPool, Duration.ofMinutes(5));
         context.collector.metrics.add(new PoolMetrics(redis.pool));
         return redis;
     }
@@ -54,6 +63,39 @@ public class RedisConfig extends Config {
         context.probe.hostURIs.add(host);
     }
 
+    // hosts are seed nodes of redis cluster, e.g. cluster("redis-0:6379", "redis-1:6379")
+    public void cluster(String... hosts) {
+        if (hosts.length == 0) throw new Error("cluster hosts must not be empty");
+        setCluster(hosts);
+        this.host = hosts[0];
+    }
+
+    void setCluster(String... hosts) {
+        RedisImpl redis = (RedisImpl) this.redis;
+        redis.cluster(hosts);
+        for (String host : hosts) {
+            context.probe.hostURIs.add(host);
+        }
+    }
+
+    // read only operations go to replicas, default read policy is PREFER_REPLICA, e.g. replicas("redis-replica-0:6379", "redis-replica-1:6379")
+    public void replicas(String... hosts) {
+        setReplicas(hosts);
+    }
+
+    void setReplicas(String... hosts) {
+        RedisImpl redis = (RedisImpl) this.redis;
+        redis.replicas(hosts);
+        context.collector.metrics.add(new PoolMetrics(redis.replicaPool));
+        for (String host : hosts) {
+            context.probe.hostURIs.add(host);
+        }
+    }
+
+    public void readPolicy(ReadPolicy policy) {
+        ((RedisImpl) redis).readPolicy(policy);
+    }
+
     public void password(String password) {
         RedisImpl redis = (RedisImpl) this.redis;
         redis.password(password);
@@ -63,6 +105,18 @@ public class RedisConfig extends Config {
         ((RedisImpl) redis).pool.size(minSize, maxSize);
     }
 
+    // replica pool is same size as primary pool by default
+    public void replicaPoolSize(int minSize, int maxSize) {
+        RedisImpl redis = (RedisImpl) this.redis;
+        if (redis.replicaPool == null) throw new Error("redis replicas must be configured first, name=" + name);
+        redis.replicaPool.size(minSize, maxSize);
+    }
+
+    // use few shared connections for all callers instead of one connection per concurrent caller
+    public void multiplex(int connections) {
+        ((RedisImpl) redis).multiplex(connections);
+    }
+
     public void slowOperationThreshold(Duration threshold) {
         ((RedisImpl) redis).slowOperationThreshold(threshold);
     }
@@ -71,6 +125,97 @@ public class RedisConfig extends Config {
         ((RedisImpl) redis).timeout(timeout);
     }
 
+    public void subscribe(String stream, StreamHandler handler) {
+        subscribe(stream, handler, null);
+    }
+
+    public void subscribe(String stream, BulkStreamHandler handler) {
+        subscribe(stream, null, handler);
+    }
+
+    private void subscribe(String stream, StreamHandler handler, BulkStreamHandler bulkHandler) {
+        if (handler == null && bulkHandler == null) throw new Error("handler must not be null");
+        logger.info("subscribe, stream={}, handlerClass={}, name={}", stream, handler != null ? handler.getClass().getCanonicalName() : bulkHandler.getClass().getCanonicalName(), name);
+        new InjectValidator(handler != null ? handler : bulkHandler).validate();
+        streamListener().subscribe(stream, handler, bulkHandler);
+    }
+
+    private RedisStreamListener streamListener() {
+        if (streamListener == null) {
+            streamListener = createStreamListener();
+        }
+        return streamListener;
+    }
+
+    RedisStreamListener createStreamListener() {
+        var listener = new RedisStreamListener((RedisImpl) redis, name, context.logManager, context.shutdownHook.shutdownTimeoutInNano);
+        context.startupHook.start.add(listener::start);
+        context.shutdownHook.add(ShutdownHook.STAGE_0, timeout -> listener.shutdown());
+        context.shutdownHook.add(ShutdownHook.STAGE_1, listener::awaitTermination);
+        return listener;
+    }
+
+    // by default stream listener use AppName as consumer group, every entry is delivered to one consumer of group
+    public void streamGroup(String group) {
+        streamListener().group = group;
+    }
+
+    public void streamPoolSize(int poolSize) {
+        streamListener().poolSize = poolSize;
+    }
+
+    // max entries of each batch, and max time to wait for new entries
+    public void streamPoll(int maxRecords, Duration maxWaitTime) {
+        if (maxRecords <= 0) throw new Error("max poll records must be greater than 0, value=" + maxRecords);
+        if (maxWaitTime == null || maxWaitTime.toMillis() <= 0) throw new Error("max wait time must be greater than 0, value=" + maxWaitTime);
+        RedisStreamListener listener = streamListener();
+        listener.maxPollRecords = maxRecords;
+        listener.maxWaitTime = maxWaitTime;
+    }
+
+    // entries not acked within claim idle time will be redelivered to other consumers of group
+    public void streamClaimIdleTime(Duration claimIdleTime) {
+        streamListener().claimIdleTime = claimIdleTime;
+    }
+
+    // claimed entries delivered more than maxDeliveryCount times are moved to "${stream}:failed" stream
+    public void streamMaxDeliveryCount(int maxDeliveryCount) {
+        streamListener().maxDeliveryCount = maxDeliveryCount;
+    }
+
+    // pop values by BLPOP with dedicated connections, each value is handled in one action
+    public void consume(String list, ListHandler handler) {
+        consume(list, handler, false);
+    }
+
+    // reliable mode pops by BLMOVE and keeps value in processing list until handled, requires redis 6.2+
+    public void consume(String list, ListHandler handler, boolean reliable) {
+        if (handler == null) throw new Error("handler must not be null");
+        logger.info("consume, list={}, handlerClass={}, reliable={}, name={}", list, handler.getClass().getCanonicalName(), reliable, name);
+        new InjectValidator(handler).validate();
+        listListener().consume(list, handler, reliable);
+    }
+
+    private RedisListListener listListener() {
+        if (listListener == null) {
+            listListener = createListListener();
+        }
+        return listListener;
+    }
+
+    RedisListListener createListListener() {
+        var listener = new RedisListListener((RedisImpl) redis, name, context.logManager, context.shutdownHook.shutdownTimeoutInNano);
+        context.startupHook.start.add(listener::start);
+        context.shutdownHook.add(ShutdownHook.STAGE_0, timeout -> listener.shutdown());
+        context.shutdownHook.add(ShutdownHook.STAGE_1, listener::awaitTermination);
+        return listener;
+    }
+
+    // number of consumer threads per list
+    public void listPoolSize(int poolSize) {
+        listListener().poolSize = poolSize;
+    }
+
     public Redis client() {
         return redis;
     }
@@ -0,0 +1,11 @@
+package core.framework.redis;
+
+import java.util.List;
+
+/**
+ * @author neo
+ */
+@FunctionalInterface
+public interface BulkStreamHandler {
+    void handle(List<StreamEntry> entries) throws Exception;
+}
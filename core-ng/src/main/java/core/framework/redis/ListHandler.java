@@ -0,0 +1,9 @@
+package core.framework.redis;
+
+/**
+ * @author neo
+ */
+@FunctionalInterface
+public interface ListHandler {
+    void handle(String value) throws Exception;
+}
@@ -0,0 +1,10 @@
+package core.framework.redis;
+
+/**
+ * @author neo
+ */
+public enum ReadPolicy {
+    PRIMARY,            // all reads go to primary
+    PREFER_REPLICA,     // reads go to replicas, fall back to primary if failed to connect to replica
+    REPLICA_ONLY        // reads only go to replicas
+}
@@ -45,4 +45,11 @@ public interface Redis {
     RedisAdmin admin();
 
     RedisHyperLogLog hyperLogLog();
+
+    RedisStream stream();
+
+    RedisPipeline pipeline();
+
+    // create script once and reuse, e.g. as field of service
+    RedisScript script(String script);
 }
@@ -0,0 +1,46 @@
+package core.framework.redis;
+
+import javax.annotation.Nullable;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * queue multiple commands and send them to redis within one round trip,
+ * the returned supplier can only be read after execute()
+ *
+ * @author neo
+ */
+public interface RedisPipeline {
+    Supplier<String> get(String key);
+
+    default Supplier<Boolean> set(String key, String value) {
+        return set(key, value, null, false);
+    }
+
+    default Supplier<Boolean> set(String key, String value, Duration expiration) {
+        return set(key, value, expiration, false);
+    }
+
+    Supplier<Boolean> set(String key, String value, @Nullable Duration expiration, boolean onlyIfAbsent);
+
+    void expire(String key, Duration duration);
+
+    Supplier<Long> del(String... keys);
+
+    Supplier<Long> increaseBy(String key, long increment);
+
+    Supplier<String> hashGet(String key, String field);
+
+    Supplier<Map<String, String>> hashGetAll(String key);
+
+    void hashSet(String key, String field, String value);
+
+    void hashMultiSet(String key, Map<String, String> values);
+
+    Supplier<Integer> sortedSetAdd(String key, Map<String, Long> values, boolean onlyIfAbsent);
+
+    Supplier<Map<String, Long>> sortedSetRange(String key, long start, long stop);
+
+    void execute();
+}
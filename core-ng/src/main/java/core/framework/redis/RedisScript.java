@@ -0,0 +1,20 @@
+package core.framework.redis;
+
+import javax.annotation.Nullable;
+import java.util.List;
+
+/**
+ * lua script runs atomically within one round trip, script is sent by EVALSHA, and only sent in full if redis has not cached it,
+ * e.g. redis.script("local value = redis.call('INCRBY', KEYS[1], ARGV[1]) if value == tonumber(ARGV[1]) then redis.call('PEXPIRE', KEYS[1], ARGV[2]) end return value")
+ *
+ * @author neo
+ */
+public interface RedisScript {
+    @Nullable
+    String evalString(List<String> keys, String... arguments);
+
+    @Nullable
+    Long evalLong(List<String> keys, String... arguments);     // lua true is converted to 1, false is converted to null
+
+    List<String> evalList(List<String> keys, String... arguments);
+}
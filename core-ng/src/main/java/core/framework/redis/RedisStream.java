@@ -0,0 +1,31 @@
+package core.framework.redis;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * entries read by consumer group stay pending until ack, pending entries of dead consumers can be taken over by autoClaim,
+ * refer to https://redis.io/topics/streams-intro
+ *
+ * @author neo
+ */
+public interface RedisStream {
+    default String add(String stream, Map<String, String> fields) {
+        return add(stream, fields, 0);
+    }
+
+    // return generated id, trim stream to approximately maxLength if maxLength > 0
+    String add(String stream, Map<String, String> fields, long maxLength);
+
+    // create group to read new entries only, stream will be created if not exists, do nothing if group already exists
+    void createGroup(String stream, String group);
+
+    // read entries never delivered to other consumers of group
+    List<StreamEntry> readGroup(String stream, String group, String consumer, int count);
+
+    long ack(String stream, String group, String... ids);
+
+    // transfer pending entries idle longer than minIdleTime to consumer, return transferred entries, requires redis 6.2
+    List<StreamEntry> autoClaim(String stream, String group, String consumer, Duration minIdleTime, int count);
+}
@@ -0,0 +1,16 @@
+package core.framework.redis;
+
+import java.util.Map;
+
+/**
+ * @author neo
+ */
+public final class StreamEntry {
+    public final String id;     // in format of "${timestamp}-${sequence}"
+    public final Map<String, String> fields;
+
+    public StreamEntry(String id, Map<String, String> fields) {
+        this.id = id;
+        this.fields = fields;
+    }
+}
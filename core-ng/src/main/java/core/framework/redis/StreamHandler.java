@@ -0,0 +1,11 @@
+package core.framework.redis;
+
+import java.util.Map;
+
+/**
+ * @author neo
+ */
+@FunctionalInterface
+public interface StreamHandler {
+    void handle(String id, Map<String, String> fields) throws Exception;
+}
@@ -1,5 +1,7 @@
 package core.framework.internal.cache;
 
+import core.framework.async.Executor;
+import core.framework.async.Task;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -7,11 +9,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -20,6 +24,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -30,6 +35,10 @@ import static org.mockito.Mockito.when;
 class CacheImplTest {
     @Mock
     CacheStore cacheStore;
+    @Mock
+    Executor executor;
+    @Mock
+    RedisCacheStore leaseStore;
     private CacheImpl<TestCache> cache;
 
     @BeforeEach
@@ -45,6 +54,7 @@ class CacheImplTest {
 
         TestCache result = cache.get("key", key -> null);
         assertThat(result).isSameAs(value);
+        assertThat(cache.stats().hits.sum()).isEqualTo(1);
     }
 
     @Test
@@ -55,6 +65,133 @@ class CacheImplTest {
         assertThat(value.stringField).isEqualTo("value");
 
         verify(cacheStore).put("name:key", value, Duration.ofHours(1), cache.context);
+        assertThat(cache.stats().misses.sum()).isEqualTo(1);
+        assertThat(cache.stats().loads.sum()).isEqualTo(1);
+    }
+
+    @Test
+    void getWithDistributedLoad() {
+        cache.distributedLoad(leaseStore, Duration.ofSeconds(1));
+        when(cacheStore.get("name:key", cache.context)).thenReturn(null);
+        when(leaseStore.acquireLease("name:key", Duration.ofSeconds(1))).thenReturn("token");
+
+        TestCache value = cache.get("key", key -> cacheItem("value"));
+        assertThat(value.stringField).isEqualTo("value");
+
+        verify(cacheStore).put("name:key", value, Duration.ofHours(1), cache.context);
+        verify(leaseStore).releaseLease("name:key", "token");
+    }
+
+    @Test
+    void getWhenLeasedByOtherNode() {
+        cache.distributedLoad(leaseStore, Duration.ofSeconds(1));
+        var value = cacheItem("value");
+        when(cacheStore.get("name:key", cache.context)).thenReturn(null).thenReturn(value);
+        when(leaseStore.acquireLease("name:key", Duration.ofSeconds(1))).thenReturn(null);
+
+        TestCache result = cache.get("key", key -> null);
+        assertThat(result).isSameAs(value);
+
+        verify(cacheStore, never()).put(any(), any(), any(), any());
+        verify(leaseStore, never()).releaseLease(any(), any());
+    }
+
+    @Test
+    void getWhenLoadingByOtherThread() {
+        var value = cacheItem("value");
+        cache.loadings.put("name:key", CompletableFuture.completedFuture(value));
+
+        TestCache result = cache.get("key", key -> null);
+        assertThat(result).isSameAs(value);
+        verify(cacheStore, never()).put(any(), any(), any(), any());
+    }
+
+    @Test
+    void getWhenLoadingByOtherThreadFailed() {
+        cache.loadings.put("name:key", CompletableFuture.failedFuture(new IllegalStateException("failed to load")));
+
+        assertThatThrownBy(() -> cache.get("key", key -> null))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("failed to load");
+    }
+
+    @Test
+    void getWhenLoadingByOtherThreadTimeout() {
+        cache.maxLoadWaitTime = Duration.ofMillis(10);
+        cache.loadings.put("name:key", new CompletableFuture<>());
+
+        TestCache value = cache.get("key", key -> cacheItem("value"));
+        assertThat(value.stringField).isEqualTo("value");
+        verify(cacheStore).put("name:key", value, Duration.ofHours(1), cache.context);
+    }
+
+    @Test
+    void getRecursively() {
+        assertThatThrownBy(() -> cache.get("key", key -> cache.get("key", key2 -> cacheItem("value"))))
+                .isInstanceOf(Error.class)
+                .hasMessageContaining("recursively");
+
+        assertThat(cache.loadings).isEmpty();
+    }
+
+    @Test
+    void getWhenLoaderFailed() {
+        assertThatThrownBy(() -> cache.get("key", key -> {
+            throw new IllegalStateException("failed to load");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cache.loadings).isEmpty();
+    }
+
+    @Test
+    void getWithRefreshAhead() {
+        cache.refreshAhead(0.2, executor);
+        var value = cacheItem("value");
+        when(cacheStore.get("name:key", cache.context)).thenReturn(value);
+        when(cacheStore.expirationTime("name:key")).thenReturn(new long[]{Duration.ofMinutes(5).toMillis()});
+
+        assertThat(cache.get("key", key -> cacheItem("new"))).isSameAs(value);
+        assertThat(cache.get("key", key -> cacheItem("new"))).isSameAs(value);
+        assertThat(cache.refreshings).containsOnly("name:key");
+        verify(executor, times(1)).submit(eq("cache/refresh/name"), any(Task.class));
+    }
+
+    @Test
+    void getWithoutRefreshAhead() {
+        cache.refreshAhead(0.2, executor);
+        var value = cacheItem("value");
+        when(cacheStore.get("name:key", cache.context)).thenReturn(value);
+        when(cacheStore.expirationTime("name:key")).thenReturn(new long[]{Duration.ofMinutes(30).toMillis()});
+
+        assertThat(cache.get("key", key -> cacheItem("new"))).isSameAs(value);
+        assertThat(cache.refreshings).isEmpty();
+        verify(executor, never()).submit(any(), any(Task.class));
+    }
+
+    @Test
+    void getWithStaleValue() {
+        cache.staleOnError(Duration.ofMinutes(10));
+        when(cacheStore.get("name:key", cache.context)).thenReturn(cacheItem("stale"));
+        when(cacheStore.expirationTime("name:key")).thenReturn(new long[]{Duration.ofMinutes(5).toMillis()});   // expired, only kept for stale on error
+
+        TestCache value = cache.get("key", key -> cacheItem("value"));
+        assertThat(value.stringField).isEqualTo("value");
+        verify(cacheStore).put("name:key", value, Duration.ofMinutes(70), cache.context);
+    }
+
+    @Test
+    void getWithStaleOnError() {
+        cache.staleOnError(Duration.ofMinutes(10));
+        var staleValue = cacheItem("stale");
+        when(cacheStore.get("name:key", cache.context)).thenReturn(staleValue);
+        when(cacheStore.expirationTime("name:key")).thenReturn(new long[]{Duration.ofMinutes(5).toMillis()});
+
+        TestCache value = cache.get("key", key -> {
+            throw new IllegalStateException("failed to load");
+        });
+        assertThat(value).isSameAs(staleValue);
+        assertThat(cache.loadings).isEmpty();
+        verify(cacheStore, never()).put(any(), any(), any(), any());
     }
 
     @Test
@@ -68,6 +205,15 @@ class CacheImplTest {
         assertThat(cache.get("notExistedKey")).isEmpty();
     }
 
+    @Test
+    void getWithStaleValueWithoutLoader() {
+        cache.staleOnError(Duration.ofMinutes(10));
+        when(cacheStore.get("name:key", cache.context)).thenReturn(cacheItem("stale"));
+        when(cacheStore.expirationTime("name:key")).thenReturn(new long[]{Duration.ofMinutes(5).toMillis()});
+
+        assertThat(cache.get("key")).isEmpty();
+    }
+
     @Test
     void loaderReturnsNull() {
         assertThatThrownBy(() -> cache.get("key", key -> null))
@@ -91,6 +237,19 @@ class CacheImplTest {
         verify(cacheStore).putAll(argThat(argument -> argument.size() == 1 && "v2".equals(argument.get(0).value.stringField)), eq(Duration.ofHours(1)), eq(cache.context));
     }
 
+    @Test
+    void getAllWhenLoadingByOtherThread() {
+        when(cacheStore.getAll(new String[]{"name:key1", "name:key2"}, cache.context)).thenReturn(Map.of());
+        cache.loadings.put("name:key1", CompletableFuture.completedFuture(cacheItem("v1")));
+
+        Map<String, TestCache> results = cache.getAll(Arrays.asList("key1", "key2"), key -> cacheItem("v2"));
+        assertThat(results.get("key1").stringField).isEqualTo("v1");
+        assertThat(results.get("key2").stringField).isEqualTo("v2");
+        assertThat(cache.loadings).containsOnlyKeys("name:key1");
+
+        verify(cacheStore).putAll(argThat(argument -> argument.size() == 1 && "v2".equals(argument.get(0).value.stringField)), eq(Duration.ofHours(1)), eq(cache.context));
+    }
+
     @Test
     void getAllWhenHit() {
         var values = Map.of("name:key1", cacheItem("v1"),
@@ -103,6 +262,50 @@ class CacheImplTest {
         verify(cacheStore, never()).putAll(any(), any(), any());
     }
 
+    @Test
+    void bulkGetAllWhenMiss() {
+        when(cacheStore.getAll(new String[]{"name:key1", "name:key2", "name:key3", "name:key2"}, cache.context)).thenReturn(Map.of("name:key1", cacheItem("v1")));
+
+        List<List<String>> loadedKeys = new ArrayList<>();
+        Map<String, TestCache> results = cache.bulkGetAll(Arrays.asList("key1", "key2", "key3", "key2"), keys -> {
+            loadedKeys.add(keys);
+            return Map.of("key2", cacheItem("v2"), "key3", cacheItem("v3"));
+        });
+        assertThat(loadedKeys).containsExactly(List.of("key2", "key3"));
+        assertThat(results).containsOnlyKeys("key1", "key2", "key3");
+        assertThat(results.get("key3").stringField).isEqualTo("v3");
+        assertThat(cache.loadings).isEmpty();
+
+        verify(cacheStore).putAll(argThat(argument -> argument.size() == 2), eq(Duration.ofHours(1)), eq(cache.context));
+    }
+
+    @Test
+    void bulkGetAllWithMissingValue() {
+        when(cacheStore.getAll(new String[]{"name:key1", "name:key2"}, cache.context)).thenReturn(Map.of());
+
+        assertThatThrownBy(() -> cache.bulkGetAll(Arrays.asList("key1", "key2"), keys -> Map.of("key1", cacheItem("v1"))))
+                .isInstanceOf(Error.class)
+                .hasMessageContaining("value must not be null, key=key2");
+        assertThat(cache.loadings).isEmpty();
+    }
+
+    @Test
+    void getAllWithStaleOnError() {
+        cache.staleOnError(Duration.ofMinutes(10));
+        var values = Map.of("name:key1", cacheItem("v1"),
+                "name:key2", cacheItem("stale"));
+        when(cacheStore.getAll(new String[]{"name:key1", "name:key2"}, cache.context)).thenReturn(values);
+        when(cacheStore.expirationTime("name:key1", "name:key2")).thenReturn(new long[]{Duration.ofMinutes(30).toMillis(), Duration.ofMinutes(5).toMillis()});
+
+        Map<String, TestCache> results = cache.getAll(Arrays.asList("key1", "key2"), key -> {
+            throw new IllegalStateException("failed to load");
+        });
+        assertThat(results.get("key1").stringField).isEqualTo("v1");
+        assertThat(results.get("key2").stringField).isEqualTo("stale");
+        assertThat(cache.loadings).isEmpty();
+        verify(cacheStore, never()).putAll(any(), any(), any());
+    }
+
     @Test
     void put() {
         TestCache item = cacheItem("v1");
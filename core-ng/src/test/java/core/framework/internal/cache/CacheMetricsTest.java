@@ -0,0 +1,41 @@
+package core.framework.internal.cache;
+
+import core.framework.internal.stat.Stats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author neo
+ */
+class CacheMetricsTest {
+    private CacheMetrics metrics;
+    private CacheImpl<TestCache> cache;
+
+    @BeforeEach
+    void createCacheMetrics() {
+        cache = new CacheImpl<>("test", TestCache.class, Duration.ofHours(1));
+        metrics = new CacheMetrics(Map.of("test", cache));
+    }
+
+    @Test
+    void collect() {
+        cache.stats().hits.add(2);
+        cache.stats().load(100);
+        var stats = new Stats();
+        metrics.collect(stats);
+
+        assertThat(stats.stats)
+                .containsEntry("cache_test_hits", 2.0d)
+                .containsEntry("cache_test_loads", 1.0d)
+                .containsEntry("cache_test_load_max_elapsed", 100.0d)
+                .containsEntry("cache_test_evictions", 0.0d);
+
+        metrics.collect(stats);
+        assertThat(stats.stats).containsEntry("cache_test_load_max_elapsed", 0.0d);
+    }
+}
@@ -0,0 +1,53 @@
+package core.framework.internal.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author neo
+ */
+class FrequencySketchTest {
+    private FrequencySketch sketch;
+
+    @BeforeEach
+    void createFrequencySketch() {
+        sketch = new FrequencySketch(100);
+    }
+
+    @Test
+    void increment() {
+        assertThat(sketch.frequency("key".hashCode())).isZero();
+
+        sketch.increment("key".hashCode());
+        sketch.increment("key".hashCode());
+        assertThat(sketch.frequency("key".hashCode())).isEqualTo(2);
+
+        for (int i = 0; i < 20; i++) {
+            sketch.increment("key".hashCode());
+        }
+        assertThat(sketch.frequency("key".hashCode())).isEqualTo(15);
+    }
+
+    @Test
+    void reset() {
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("key".hashCode());
+        }
+        sketch.reset();
+
+        assertThat(sketch.frequency("key".hashCode())).isEqualTo(5);
+    }
+
+    @Test
+    void resetAfterSampleSize() {
+        for (int i = 0; i < 10; i++) {
+            sketch.increment("key".hashCode());
+        }
+        for (int i = 0; i < 990; i++) {     // sample size is 10 * maxSize
+            sketch.increment(i);
+        }
+        assertThat(sketch.frequency("key".hashCode())).isLessThan(10);
+    }
+}
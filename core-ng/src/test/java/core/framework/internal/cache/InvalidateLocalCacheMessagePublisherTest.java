@@ -0,0 +1,73 @@
+package core.framework.internal.cache;
+
+import core.framework.internal.redis.RedisImpl;
+import core.framework.internal.redis.RedisPubSub;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.UncheckedIOException;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static core.framework.internal.cache.RedisLocalCacheStore.CHANNEL_INVALIDATE_CACHE;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author neo
+ */
+@ExtendWith(MockitoExtension.class)
+class InvalidateLocalCacheMessagePublisherTest {
+    @Mock
+    RedisImpl redis;
+    @Mock
+    RedisPubSub redisPubSub;
+    private InvalidateLocalCacheMessagePublisher publisher;
+
+    @BeforeEach
+    void createInvalidateLocalCacheMessagePublisher() {
+        publisher = new InvalidateLocalCacheMessagePublisher(redis, Duration.ofMillis(10));
+        when(redis.pubSub()).thenReturn(redisPubSub);
+    }
+
+    @Test
+    void send() {
+        Set<String> keys = IntStream.range(0, InvalidateLocalCacheMessagePublisher.MAX_KEYS_PER_MESSAGE + 1).mapToObj(i -> "key" + i).collect(Collectors.toCollection(LinkedHashSet::new));
+        publisher.send(keys);
+
+        verify(redisPubSub, times(2)).publish(eq(CHANNEL_INVALIDATE_CACHE), any());
+    }
+
+    @Test
+    void sendWithFailure() {
+        doThrow(new UncheckedIOException(new UnknownHostException("cache"))).when(redisPubSub).publish(eq(CHANNEL_INVALIDATE_CACHE), any());
+
+        publisher.send(Set.of("key1"));
+    }
+
+    @Test
+    void publish() throws InterruptedException {
+        publisher.start();
+        publisher.publish(List.of("key1", "key2"));
+        publisher.publish(List.of("key2", "key3"));
+        publisher.close(1000);
+
+        // keys within window are coalesced and deduplicated
+        verify(redisPubSub, timeout(1000)).publish(eq(CHANNEL_INVALIDATE_CACHE), argThat(message -> new String(message, StandardCharsets.UTF_8).contains("[\"key1\",\"key2\",\"key3\"]")));
+    }
+}
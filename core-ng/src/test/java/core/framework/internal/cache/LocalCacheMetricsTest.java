@@ -23,6 +23,7 @@ class LocalCacheMetricsTest {
         metrics.collect(stats);
 
         assertThat(stats.stats)
-                .containsEntry("cache_size", 0.0d);
+                .containsEntry("cache_size", 0.0d)
+                .containsEntry("cache_weight", 0.0d);
     }
 }
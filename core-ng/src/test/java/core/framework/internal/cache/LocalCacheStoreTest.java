@@ -14,83 +14,193 @@ import static org.assertj.core.api.Assertions.assertThat;
  */
 class LocalCacheStoreTest {
     private LocalCacheStore cacheStore;
+    private CacheContext<TestCache> context;
 
     @BeforeEach
     void createLocalCacheStore() {
         cacheStore = new LocalCacheStore();
+        context = new CacheContext<>(TestCache.class, Duration.ofHours(1));
     }
 
     @Test
     void getAll() {
-        Map<String, TestCache> values = cacheStore.getAll(new String[]{"key1", "key2"}, null);
+        Map<String, TestCache> values = cacheStore.getAll(new String[]{"key1", "key2"}, context);
         assertThat(values).isEmpty();
 
         var value = new TestCache();
-        cacheStore.put("key1", value, Duration.ofMinutes(1), null);
-        values = cacheStore.getAll(new String[]{"key1", "key2"}, null);
+        cacheStore.put("key1", value, Duration.ofMinutes(1), context);
+        values = cacheStore.getAll(new String[]{"key1", "key2"}, context);
         assertThat(values).hasSize(1).containsEntry("key1", value);
     }
 
     @Test
     void get() {
         var value = new TestCache();
-        cacheStore.put("key1", value, Duration.ofMinutes(1), null);
+        cacheStore.put("key1", value, Duration.ofMinutes(1), context);
 
-        TestCache retrievedValue = cacheStore.get("key1", null);
+        TestCache retrievedValue = cacheStore.get("key1", context);
         assertThat(retrievedValue).isSameAs(value);
 
-        LocalCacheStore.CacheItem<?> item = cacheStore.caches.get("key1");
-        assertThat(item.hits).isEqualTo(1);
+        assertThat(cacheStore.frequency("key1")).isEqualTo(2);     // put and get
 
-        cacheStore.get("key1", null);
-        assertThat(item.hits).isEqualTo(2);
+        cacheStore.get("key1", context);
+        assertThat(cacheStore.frequency("key1")).isEqualTo(3);
     }
 
     @Test
     void getWithExpiredKey() {
         var value = new TestCache();
-        cacheStore.put("key1", value, Duration.ZERO, null);
+        cacheStore.put("key1", value, Duration.ZERO, context);
 
-        TestCache retrievedValue = cacheStore.get("key1", null);
+        TestCache retrievedValue = cacheStore.get("key1", context);
         assertThat(retrievedValue).isNull();
     }
 
+    @Test
+    void expirationTime() {
+        cacheStore.put("key1", new TestCache(), Duration.ofMinutes(1), context);
+
+        long[] expirationTimes = cacheStore.expirationTime("key1", "key2");
+        assertThat(expirationTimes[0]).isGreaterThan(0).isLessThanOrEqualTo(Duration.ofMinutes(1).toMillis());
+        assertThat(expirationTimes[1]).isEqualTo(-2);
+    }
+
     @Test
     void cleanup() {
-        cacheStore.put("key1", new TestCache(), Duration.ZERO, null);
-        cacheStore.put("key2", new TestCache(), Duration.ofMinutes(1), null);
+        cacheStore.put("key1", new TestCache(), Duration.ZERO, context);
+        cacheStore.put("key2", new TestCache(), Duration.ofMinutes(1), context);
         cacheStore.cleanup();
 
         assertThat(cacheStore.caches).hasSize(1);
     }
 
     @Test
-    void cleanupWithEviction() {
-        cacheStore.maxSize = 1;
-        cacheStore.put("k1", new TestCache(), Duration.ofHours(1), null);
-        cacheStore.put("k2", new TestCache(), Duration.ofHours(1), null);
-        cacheStore.put("k3", new TestCache(), Duration.ofHours(1), null);
-        cacheStore.get("k1", null);
-        cacheStore.get("k2", null);
-        cacheStore.get("k2", null);
+    void evictOnWrite() {
+        cacheStore.maxSize(2);
+        cacheStore.put("k1", new TestCache(), Duration.ofHours(1), context);
+        cacheStore.get("k1", context);
+        cacheStore.get("k1", context);
+        cacheStore.put("k2", new TestCache(), Duration.ofHours(1), context);
+        cacheStore.put("k3", new TestCache(), Duration.ofHours(1), context);
+        // k2 is evicted from window, and compete with k1 in probation, k1 is more frequently used
+        assertThat(cacheStore.caches).containsOnlyKeys("k1", "k3");
+
+        cacheStore.get("k3", context);
+        cacheStore.get("k3", context);
+        cacheStore.get("k3", context);
+        cacheStore.put("k4", new TestCache(), Duration.ofHours(1), context);
+        // k3 is evicted from window, and k3 is more frequently used than k1
+        assertThat(cacheStore.caches).containsOnlyKeys("k3", "k4");
+    }
 
-        cacheStore.cleanup();
-        assertThat(cacheStore.caches).containsOnlyKeys("k2");
+    @Test
+    void maxSize() {
+        for (int i = 0; i < 10; i++) {
+            cacheStore.put("key" + i, new TestCache(), Duration.ofHours(1), context);
+        }
+        cacheStore.maxSize(5);
+
+        assertThat(cacheStore.caches).hasSize(5);
+    }
+
+    @Test
+    void maxWeight() {
+        context.weigher = value -> 100;
+        for (int i = 0; i < 10; i++) {
+            cacheStore.put("key" + i, new TestCache(), Duration.ofHours(1), context);
+        }
+        assertThat(cacheStore.weight()).isEqualTo(1000);
+        assertThat(context.localWeight).hasValue(1000);
+
+        cacheStore.maxWeight(500);
+        assertThat(cacheStore.caches).hasSize(5);
+        assertThat(cacheStore.weight()).isEqualTo(500);
+        assertThat(context.localWeight).hasValue(500);
+    }
+
+    @Test
+    void maxLocalWeight() {
+        var otherContext = new CacheContext<>(TestCache.class, Duration.ofHours(1));
+        context.weigher = value -> 100;
+        context.maxLocalWeight = 200;
+        cacheStore.put("other", new TestCache(), Duration.ofHours(1), otherContext);
+        cacheStore.put("key1", new TestCache(), Duration.ofHours(1), context);
+        cacheStore.put("key2", new TestCache(), Duration.ofHours(1), context);
+        cacheStore.put("key3", new TestCache(), Duration.ofHours(1), context);
+
+        // only least recently used item of same cache is evicted
+        assertThat(cacheStore.caches).containsOnlyKeys("other", "key2", "key3");
+        assertThat(context.localWeight).hasValue(200);
+        assertThat(otherContext.localWeight).hasValue(cacheStore.weight() - 200);
+    }
+
+    @Test
+    void maxLocalWeightWithAccessOrder() {
+        var otherContext = new CacheContext<>(TestCache.class, Duration.ofHours(1));
+        context.weigher = value -> 100;
+        context.maxLocalWeight = 200;
+        cacheStore.put("key1", new TestCache(), Duration.ofHours(1), context);
+        cacheStore.put("other", new TestCache(), Duration.ofHours(1), otherContext);
+        cacheStore.put("key2", new TestCache(), Duration.ofHours(1), context);
+        cacheStore.get("key1", context);
+        cacheStore.put("key3", new TestCache(), Duration.ofHours(1), context);
+
+        assertThat(cacheStore.caches).containsOnlyKeys("key1", "other", "key3");
+        assertThat(context.localWeight).hasValue(200);
+    }
+
+    @Test
+    void weight() {
+        context.maxLocalWeight = 1_000_000;
+        var value = new TestCache();
+        value.stringField = "value";
+        cacheStore.put("key1", value, Duration.ofHours(1), context);
+        assertThat(context.localWeight).hasValue(context.writer.toJSON(value).length);
+
+        cacheStore.put("key1", value, Duration.ofHours(1), context);
+        assertThat(context.localWeight).hasValue(context.writer.toJSON(value).length);
+
+        cacheStore.delete("key1");
+        assertThat(context.localWeight).hasValue(0);
+        assertThat(cacheStore.weight()).isZero();
+    }
+
+    @Test
+    void weightWithoutLimit() {
+        var value = new TestCache();
+        value.stringField = "value";
+        cacheStore.put("key1", value, Duration.ofHours(1), context);
+        cacheStore.putAll(List.of(new CacheStore.Entry<>("key2", value)), Duration.ofHours(1), context);
+
+        assertThat(context.localWeight).hasValue(0);
+        assertThat(cacheStore.weight()).isZero();
+    }
+
+    @Test
+    void putWithExistingKey() {
+        cacheStore.maxSize(1);
+        var value = new TestCache();
+        cacheStore.put("key1", new TestCache(), Duration.ofHours(1), context);
+        cacheStore.put("key1", value, Duration.ofHours(1), context);
+
+        assertThat(cacheStore.caches).hasSize(1);
+        TestCache retrievedValue = cacheStore.get("key1", context);
+        assertThat(retrievedValue).isSameAs(value);
     }
 
     @Test
     void putAll() {
         var values = List.of(new CacheStore.Entry<>("key1", new TestCache()),
                 new CacheStore.Entry<>("key2", new TestCache()));
-        cacheStore.putAll(values, Duration.ofMinutes(1), null);
+        cacheStore.putAll(values, Duration.ofMinutes(1), context);
 
         assertThat(cacheStore.caches).hasSize(2);
     }
 
     @Test
     void delete() {
-        cacheStore.put("key1", new TestCache(), Duration.ofMinutes(1), null);
-        cacheStore.put("key2", new TestCache(), Duration.ofMinutes(1), null);
+        cacheStore.put("key1", new TestCache(), Duration.ofMinutes(1), context);
+        cacheStore.put("key2", new TestCache(), Duration.ofMinutes(1), context);
 
         assertThat(cacheStore.delete("key1", "key2")).isTrue();
         assertThat(cacheStore.caches).isEmpty();
@@ -100,8 +210,10 @@ class LocalCacheStoreTest {
 
     @Test
     void clear() {
+        cacheStore.put("key1", new TestCache(), Duration.ofMinutes(1), context);
         cacheStore.clear();
 
         assertThat(cacheStore.caches).isEmpty();
+        assertThat(context.localWeight).hasValue(0);
     }
 }
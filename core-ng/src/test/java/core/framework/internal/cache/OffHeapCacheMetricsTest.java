@@ -0,0 +1,30 @@
+package core.framework.internal.cache;
+
+import core.framework.internal.stat.Stats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author neo
+ */
+class OffHeapCacheMetricsTest {
+    private OffHeapCacheMetrics metrics;
+
+    @BeforeEach
+    void createOffHeapCacheMetrics() {
+        metrics = new OffHeapCacheMetrics(new OffHeapCacheStore(1024));
+    }
+
+    @Test
+    void collect() {
+        var stats = new Stats();
+        metrics.collect(stats);
+
+        assertThat(stats.stats)
+                .containsEntry("cache_off_heap_size", 0.0d)
+                .containsEntry("cache_off_heap_used", 0.0d)
+                .containsEntry("cache_off_heap_allocated", 0.0d);
+    }
+}
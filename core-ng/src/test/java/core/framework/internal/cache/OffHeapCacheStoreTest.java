@@ -0,0 +1,131 @@
+package core.framework.internal.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author neo
+ */
+class OffHeapCacheStoreTest {
+    private OffHeapCacheStore cacheStore;
+    private CacheContext<TestCache> context;
+    private int valueLength;
+
+    @BeforeEach
+    void createOffHeapCacheStore() {
+        context = new CacheContext<>(TestCache.class, Duration.ofHours(1));
+        valueLength = context.writer.toJSON(value("v0")).length;
+        cacheStore = new OffHeapCacheStore(valueLength * 2);  // 2 values per segment
+        cacheStore.maxSize(valueLength * 4);
+    }
+
+    @Test
+    void get() {
+        cacheStore.put("key1", value("v1"), Duration.ofMinutes(1), context);
+
+        TestCache retrievedValue = cacheStore.get("key1", context);
+        assertThat(retrievedValue.stringField).isEqualTo("v1");
+        assertThat(cacheStore.<TestCache>get("key2", context)).isNull();
+    }
+
+    @Test
+    void getWithExpiredKey() {
+        cacheStore.put("key1", value("v1"), Duration.ZERO, context);
+
+        assertThat(cacheStore.<TestCache>get("key1", context)).isNull();
+    }
+
+    @Test
+    void getAll() {
+        cacheStore.putAll(List.of(new CacheStore.Entry<>("key1", value("v1")), new CacheStore.Entry<>("key2", value("v2"))), Duration.ofMinutes(1), context);
+
+        Map<String, TestCache> values = cacheStore.getAll(new String[]{"key1", "key2", "key3"}, context);
+        assertThat(values).hasSize(2);
+        assertThat(values.get("key2").stringField).isEqualTo("v2");
+        assertThat(cacheStore.size()).isEqualTo(2);
+        assertThat(cacheStore.usedBytes()).isEqualTo(valueLength * 2L);
+    }
+
+    @Test
+    void putWithExistingKey() {
+        cacheStore.put("key1", value("v1"), Duration.ofMinutes(1), context);
+        cacheStore.put("key1", value("v2"), Duration.ofMinutes(1), context);
+
+        assertThat(cacheStore.<TestCache>get("key1", context).stringField).isEqualTo("v2");
+        assertThat(cacheStore.usedBytes()).isEqualTo(valueLength);
+    }
+
+    @Test
+    void putWithTooLargeValue() {
+        cacheStore.put("key1", value("v1"), Duration.ofMinutes(1), context);
+        cacheStore.put("key1", value("v1".repeat(valueLength)), Duration.ofMinutes(1), context);
+
+        assertThat(cacheStore.<TestCache>get("key1", context)).isNull();
+    }
+
+    @Test
+    void recycleSegment() {
+        cacheStore.put("key1", value("v1"), Duration.ofMinutes(1), context);
+        cacheStore.put("key2", value("v2"), Duration.ofMinutes(1), context);
+        cacheStore.put("key3", value("v3"), Duration.ofMinutes(1), context);
+        cacheStore.put("key1", value("v4"), Duration.ofMinutes(1), context);    // key1 is moved to 2nd segment
+        assertThat(cacheStore.allocatedBytes()).isEqualTo(valueLength * 4L);
+
+        cacheStore.put("key5", value("v5"), Duration.ofMinutes(1), context);    // recycle 1st segment
+
+        assertThat(cacheStore.<TestCache>get("key1", context).stringField).isEqualTo("v4");
+        assertThat(cacheStore.<TestCache>get("key2", context)).isNull();
+        assertThat(cacheStore.<TestCache>get("key5", context).stringField).isEqualTo("v5");
+        assertThat(cacheStore.size()).isEqualTo(3);
+        assertThat(cacheStore.usedBytes()).isEqualTo(valueLength * 3L);
+    }
+
+    @Test
+    void delete() {
+        cacheStore.put("key1", value("v1"), Duration.ofMinutes(1), context);
+
+        assertThat(cacheStore.delete("key1", "key2")).isTrue();
+        assertThat(cacheStore.delete("key1")).isFalse();
+        assertThat(cacheStore.<TestCache>get("key1", context)).isNull();
+        assertThat(cacheStore.usedBytes()).isZero();
+    }
+
+    @Test
+    void expirationTime() {
+        cacheStore.put("key1", value("v1"), Duration.ofMinutes(1), context);
+
+        long[] expirationTimes = cacheStore.expirationTime("key1", "key2");
+        assertThat(expirationTimes[0]).isGreaterThan(0).isLessThanOrEqualTo(Duration.ofMinutes(1).toMillis());
+        assertThat(expirationTimes[1]).isEqualTo(-2);
+    }
+
+    @Test
+    void cleanup() {
+        cacheStore.put("key1", value("v1"), Duration.ZERO, context);
+        cacheStore.put("key2", value("v2"), Duration.ofMinutes(1), context);
+        cacheStore.cleanup();
+
+        assertThat(cacheStore.size()).isEqualTo(1);
+        assertThat(cacheStore.usedBytes()).isEqualTo(valueLength);
+    }
+
+    @Test
+    void maxSize() {
+        assertThatThrownBy(() -> cacheStore.maxSize(valueLength))
+            .isInstanceOf(Error.class)
+            .hasMessageContaining("max size must not be less than segment size");
+    }
+
+    private TestCache value(String stringField) {
+        var value = new TestCache();
+        value.stringField = stringField;
+        return value;
+    }
+}
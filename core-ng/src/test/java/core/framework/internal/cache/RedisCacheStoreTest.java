@@ -1,7 +1,10 @@
 package core.framework.internal.cache;
 
+import core.framework.cache.CacheCodec;
+import core.framework.internal.redis.BlobStringDecoder;
 import core.framework.internal.redis.RedisException;
 import core.framework.internal.redis.RedisImpl;
+import core.framework.redis.RedisScript;
 import core.framework.util.Strings;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,12 +12,16 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
@@ -27,15 +34,52 @@ import static org.mockito.Mockito.when;
 class RedisCacheStoreTest {
     @Mock
     RedisImpl redis;
+    @Mock
+    RedisScript releaseLeaseScript;
     private CacheContext<TestCache> context;
     private RedisCacheStore cacheStore;
 
     @BeforeEach
     void createRedisCacheStore() {
-        context = new CacheContext<>(TestCache.class);
+        when(redis.script(anyString())).thenReturn(releaseLeaseScript);
+        context = new CacheContext<>(TestCache.class, Duration.ofHours(1));
         cacheStore = new RedisCacheStore(redis);
     }
 
+    @Test
+    void acquireLease() {
+        when(redis.set(eq("lease:key"), anyString(), eq(Duration.ofSeconds(1)), eq(true))).thenReturn(Boolean.TRUE);
+        String token = cacheStore.acquireLease("key", Duration.ofSeconds(1));
+        assertThat(token).isNotNull();
+        verify(redis).set("lease:key", token, Duration.ofSeconds(1), true);
+
+        assertThat(cacheStore.acquireLease("key", Duration.ofSeconds(1))).isNotEqualTo(token);   // token is unique per acquire
+    }
+
+    @Test
+    void acquireLeaseHeldByOtherNode() {
+        when(redis.set(eq("lease:key"), anyString(), eq(Duration.ofSeconds(1)), eq(true))).thenReturn(Boolean.FALSE);
+        assertThat(cacheStore.acquireLease("key", Duration.ofSeconds(1))).isNull();
+    }
+
+    @Test
+    void acquireLeaseWithFailure() {
+        when(redis.set(eq("lease:key"), anyString(), eq(Duration.ofSeconds(1)), eq(true))).thenThrow(new RedisException("unexpected"));
+        assertThat(cacheStore.acquireLease("key", Duration.ofSeconds(1))).isNotNull();     // load by itself if redis is not accessible
+    }
+
+    @Test
+    void releaseLease() {
+        cacheStore.releaseLease("key", "token");
+        verify(releaseLeaseScript).evalLong(List.of("lease:key"), "token");     // compare and delete, not to delete lease taken by other node after expired
+    }
+
+    @Test
+    void releaseLeaseWithFailure() {
+        when(releaseLeaseScript.evalLong(List.of("lease:key"), "token")).thenThrow(new RedisException("unexpected"));
+        cacheStore.releaseLease("key", "token");
+    }
+
     @Test
     void get() {
         when(redis.getBytes("key")).thenReturn(Strings.bytes("{\"stringField\":\"value\"}"));
@@ -63,7 +107,7 @@ class RedisCacheStoreTest {
     @Test
     void getAll() {
         Map<String, byte[]> values = Map.of("key", Strings.bytes("{\"stringField\":\"value\"}"));
-        when(redis.multiGetBytes("key")).thenReturn(values);
+        multiGet(values, "key");
         Map<String, TestCache> results = cacheStore.getAll(new String[]{"key"}, context);
         assertThat(results).hasSize(1);
         assertThat(results.get("key").stringField).isEqualTo("value");
@@ -74,7 +118,7 @@ class RedisCacheStoreTest {
         Map<String, byte[]> values = Map.of("key1", Strings.bytes("{\"stringField\":\"value\"}"),
                 "key2", Strings.bytes("{}"),
                 "key3", Strings.bytes("{\"listField\": 1}"));
-        when(redis.multiGetBytes("key1", "key2", "key3")).thenReturn(values);
+        multiGet(values, "key1", "key2", "key3");
         Map<String, TestCache> results = cacheStore.getAll(new String[]{"key1", "key2", "key3"}, context);
         assertThat(results).hasSize(1);
         assertThat(results.get("key1").stringField).isEqualTo("value");
@@ -82,10 +126,33 @@ class RedisCacheStoreTest {
 
     @Test
     void getAllWithFailure() {
-        when(redis.multiGetBytes("key")).thenThrow(new RedisException("unexpected"));
+        when(redis.multiGet(eq(new String[]{"key"}), any())).thenThrow(new RedisException("unexpected"));
         assertThat(cacheStore.getAll(new String[]{"key"}, context)).isEmpty();
     }
 
+    @Test
+    void getAllWithExpirationTimeWithFailure() {
+        when(redis.multiGetWithExpirationTime(eq(new String[]{"key"}), any())).thenThrow(new RedisException("unexpected"));
+        assertThat(cacheStore.getAllWithExpirationTime(new String[]{"key"}, context)).isEmpty();
+    }
+
+    // pass values as slice of larger buffer like redis reply buffer
+    private void multiGet(Map<String, byte[]> values, String... keys) {
+        when(redis.multiGet(eq(keys), any())).thenAnswer(invocation -> {
+            BlobStringDecoder<?> decoder = invocation.getArgument(1);
+            Map<String, Object> results = new HashMap<>();
+            for (String key : keys) {
+                byte[] value = values.get(key);
+                if (value == null) continue;
+                byte[] buffer = new byte[value.length + 4];
+                System.arraycopy(value, 0, buffer, 2, value.length);
+                Object result = decoder.decode(buffer, 2, value.length);
+                if (result != null) results.put(key, result);
+            }
+            return results;
+        });
+    }
+
     @Test
     void put() {
         Duration expiration = Duration.ofHours(1);
@@ -94,6 +161,69 @@ class RedisCacheStoreTest {
         verify(redis).set("key", context.writer.toJSON(value), expiration, false);
     }
 
+    @Test
+    void serializeWithCompression() {
+        context.compressionThreshold = 10;
+        var value = new TestCache();
+        value.stringField = "value".repeat(100);
+        byte[] bytes = cacheStore.serialize(value, context);
+        assertThat(bytes[0]).isEqualTo(RedisCacheStore.FORMAT_MARKER);
+        assertThat(bytes[1]).isEqualTo(RedisCacheStore.FLAG_COMPRESSED);
+        assertThat(bytes.length).isLessThan(context.writer.toJSON(value).length);
+
+        when(redis.getBytes("key")).thenReturn(bytes);
+        assertThat(cacheStore.get("key", context).stringField).isEqualTo(value.stringField);
+    }
+
+    @Test
+    void serializeWithoutCompression() {
+        context.compressionThreshold = 1000;
+        var value = new TestCache();
+        value.stringField = "value";
+        assertThat(cacheStore.serialize(value, context)).isEqualTo(context.writer.toJSON(value));
+    }
+
+    @Test
+    void serializeWithCodec() {
+        context.codec = new CacheCodec<>() {
+            @Override
+            public byte[] encode(TestCache value) {
+                return Strings.bytes(value.stringField);
+            }
+
+            @Override
+            public TestCache decode(byte[] bytes, int offset, int length) {
+                var value = new TestCache();
+                value.stringField = new String(bytes, offset, length, StandardCharsets.UTF_8);
+                return value;
+            }
+        };
+        var value = new TestCache();
+        value.stringField = "value";
+        byte[] bytes = cacheStore.serialize(value, context);
+        assertThat(bytes).containsExactly(RedisCacheStore.FORMAT_MARKER, RedisCacheStore.FLAG_CODEC, 'v', 'a', 'l', 'u', 'e');
+
+        when(redis.getBytes("key")).thenReturn(bytes);
+        assertThat(cacheStore.get("key", context).stringField).isEqualTo("value");
+
+        context.codec = null;   // e.g. rolled back to json
+        assertThat(cacheStore.get("key", context)).isNull();
+    }
+
+    @Test
+    void getWithInvalidCompressedValue() {
+        // uncompressed length is 10, followed by literal of 20 bytes which exceeds input
+        when(redis.getBytes("key")).thenReturn(new byte[]{RedisCacheStore.FORMAT_MARKER, RedisCacheStore.FLAG_COMPRESSED, 10, 76, 1, 2});
+        assertThat(cacheStore.get("key", context)).isNull();
+    }
+
+    @Test
+    void getWithOversizedCompressedValue() {
+        // uncompressed length is 1G in varint, must not allocate by length from value
+        when(redis.getBytes("key")).thenReturn(new byte[]{RedisCacheStore.FORMAT_MARKER, RedisCacheStore.FLAG_COMPRESSED, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x04, 1, 2});
+        assertThat(cacheStore.get("key", context)).isNull();
+    }
+
     @Test
     void putWithFailure() {
         var value = new TestCache();
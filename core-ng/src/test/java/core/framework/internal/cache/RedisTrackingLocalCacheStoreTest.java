@@ -0,0 +1,208 @@
+package core.framework.internal.cache;
+
+import core.framework.internal.redis.RedisTrackingListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author neo
+ */
+@ExtendWith(MockitoExtension.class)
+class RedisTrackingLocalCacheStoreTest {
+    @Mock
+    CacheStore redisCacheStore;
+    private LocalCacheStore localCacheStore;
+    private RedisTrackingLocalCacheStore cacheStore;
+    private CacheContext<TestCache> context;
+
+    @BeforeEach
+    void createRedisTrackingLocalCacheStore() {
+        localCacheStore = new LocalCacheStore();
+        cacheStore = new RedisTrackingLocalCacheStore(localCacheStore);
+        cacheStore.redisCache = redisCacheStore;
+        context = new CacheContext<>(TestCache.class, Duration.ofHours(1));
+    }
+
+    @Test
+    void getWithRemoteHit() {
+        var value = new TestCache();
+        when(redisCacheStore.get("key", context)).thenReturn(value);
+
+        assertThat(cacheStore.get("key", context)).isSameAs(value);
+        assertThat(localCacheStore.get("key", context)).isSameAs(value);
+        assertThat(cacheStore.get("key", context)).isSameAs(value);
+    }
+
+    @Test
+    void getWithInvalidationDuringRead() {
+        var value = new TestCache();
+        when(redisCacheStore.get("key", context)).thenAnswer(invocation -> {
+            cacheStore.onInvalidate(new String[]{"key"});
+            return value;
+        });
+
+        assertThat(cacheStore.get("key", context)).isSameAs(value);
+        assertThat(localCacheStore.get("key", context)).isNull();
+    }
+
+    @Test
+    void getAll() {
+        var value1 = new TestCache();
+        var value2 = new TestCache();
+        localCacheStore.put("key1", value1, Duration.ofHours(1), context);
+        when(redisCacheStore.getAll(new String[]{"key2", "key3"}, context)).thenReturn(Map.of("key2", value2));
+
+        Map<String, TestCache> values = cacheStore.getAll(new String[]{"key1", "key2", "key3"}, context);
+        assertThat(values).containsOnlyKeys("key1", "key2");
+        assertThat(localCacheStore.get("key2", context)).isSameAs(value2);
+    }
+
+    @Test
+    void put() {
+        localCacheStore.put("key", new TestCache(), Duration.ofHours(1), context);
+        var value = new TestCache();
+        cacheStore.put("key", value, Duration.ofHours(1), context);
+
+        assertThat(localCacheStore.get("key", context)).isNull();
+        verify(redisCacheStore).put("key", value, Duration.ofHours(1), context);
+    }
+
+    @Test
+    void putAll() {
+        localCacheStore.put("key", new TestCache(), Duration.ofHours(1), context);
+        List<CacheStore.Entry<TestCache>> values = List.of(new CacheStore.Entry<>("key", new TestCache()));
+        cacheStore.putAll(values, Duration.ofHours(1), context);
+
+        assertThat(localCacheStore.get("key", context)).isNull();
+        verify(redisCacheStore).putAll(values, Duration.ofHours(1), context);
+    }
+
+    @Test
+    void putThenUpdateByOtherClient() {
+        var redis = new TrackingRedis();
+        var store1 = new RedisTrackingLocalCacheStore(new LocalCacheStore());
+        store1.redisCache = redis.client(store1);
+        var store2 = new RedisTrackingLocalCacheStore(new LocalCacheStore());
+        store2.redisCache = redis.client(store2);
+
+        store1.put("key", cache("v1"), Duration.ofHours(1), context);
+        assertThat(store1.get("key", context).stringField).isEqualTo("v1");     // read from redis, key is tracked by client1
+
+        store2.put("key", cache("v2"), Duration.ofHours(1), context);
+        assertThat(store1.get("key", context).stringField).isEqualTo("v2");
+    }
+
+    private TestCache cache(String value) {
+        var cache = new TestCache();
+        cache.stringField = value;
+        return cache;
+    }
+
+    // simulates redis client tracking in default mode, only notifies client which read the key
+    static class TrackingRedis {
+        final Map<String, Object> values = new HashMap<>();
+        final Map<String, Set<RedisTrackingListener>> trackedKeys = new HashMap<>();
+
+        CacheStore client(RedisTrackingListener listener) {
+            return new CacheStore() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <T> T get(String key, CacheContext<T> context) {
+                    trackedKeys.computeIfAbsent(key, k -> new HashSet<>()).add(listener);
+                    return (T) values.get(key);
+                }
+
+                @Override
+                public <T> Map<String, T> getAll(String[] keys, CacheContext<T> context) {
+                    Map<String, T> results = new HashMap<>();
+                    for (String key : keys) {
+                        T value = get(key, context);
+                        if (value != null) results.put(key, value);
+                    }
+                    return results;
+                }
+
+                @Override
+                public <T> void put(String key, T value, Duration expiration, CacheContext<T> context) {
+                    values.put(key, value);
+                    invalidate(key);
+                }
+
+                @Override
+                public <T> void putAll(List<Entry<T>> values, Duration expiration, CacheContext<T> context) {
+                    for (Entry<T> entry : values) {
+                        put(entry.key, entry.value, expiration, context);
+                    }
+                }
+
+                @Override
+                public boolean delete(String... keys) {
+                    boolean deleted = false;
+                    for (String key : keys) {
+                        deleted |= values.remove(key) != null;
+                        invalidate(key);
+                    }
+                    return deleted;
+                }
+
+                @Override
+                public long[] expirationTime(String... keys) {
+                    return new long[keys.length];
+                }
+            };
+        }
+
+        void invalidate(String key) {
+            Set<RedisTrackingListener> listeners = trackedKeys.remove(key);
+            if (listeners == null) return;
+            for (RedisTrackingListener listener : listeners) {
+                listener.onInvalidate(new String[]{key});
+            }
+        }
+    }
+
+    @Test
+    void delete() {
+        localCacheStore.put("key", new TestCache(), Duration.ofHours(1), context);
+        when(redisCacheStore.delete("key")).thenReturn(true);
+
+        assertThat(cacheStore.delete("key")).isTrue();
+        assertThat(localCacheStore.get("key", context)).isNull();
+    }
+
+    @Test
+    void onInvalidate() {
+        localCacheStore.put("key1", new TestCache(), Duration.ofHours(1), context);
+        localCacheStore.put("key2", new TestCache(), Duration.ofHours(1), context);
+
+        cacheStore.onInvalidate(new String[]{"key1"});
+        assertThat(localCacheStore.get("key1", context)).isNull();
+        assertThat(localCacheStore.get("key2", context)).isNotNull();
+    }
+
+    @Test
+    void onInvalidateAll() {
+        when(redisCacheStore.get("key1", context)).thenReturn(new TestCache());
+        cacheStore.get("key1", context);
+        var localContext = new CacheContext<>(TestCache.class, Duration.ofHours(1));     // other local only cache shares local cache store
+        localCacheStore.put("key2", new TestCache(), Duration.ofHours(1), localContext);
+
+        cacheStore.onInvalidate(null);
+        assertThat(localCacheStore.caches).containsOnlyKeys("key2");
+        assertThat(context.localWeight).hasValue(0);
+    }
+}
@@ -1,5 +1,6 @@
 package core.framework.internal.db;
 
+import core.framework.db.Database;
 import core.framework.db.Transaction;
 import core.framework.db.UncheckedSQLException;
 import core.framework.internal.log.ActionLog;
@@ -14,6 +15,7 @@ import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
@@ -33,6 +35,7 @@ class DatabaseImplTest {
         database = new DatabaseImpl("db");
         database.url("jdbc:hsqldb:mem:.;sql.syntax_mys=true");
         database.view(EntityView.class);
+        database.replicas("jdbc:hsqldb:mem:replica;sql.syntax_mys=true");
         database.maxOperations = 10;
 
         database.execute("CREATE TABLE database_test (id INT PRIMARY KEY, string_field VARCHAR(20), enum_field VARCHAR(10), date_field DATE, date_time_field TIMESTAMP)");
@@ -70,6 +73,19 @@ class DatabaseImplTest {
         assertThat(views.get(1).enumField).isEqualTo(TestEnum.V2);
     }
 
+    @Test
+    void forEachWithView() {
+        insertRow(1, "string1", TestEnum.V1);
+        insertRow(2, "string2", TestEnum.V2);
+
+        List<EntityView> views = new ArrayList<>();
+        database.forEach("SELECT string_field as string_label, enum_field as enum_label FROM database_test ORDER BY id", EntityView.class, views::add);
+
+        assertThat(views).hasSize(2);
+        assertThat(views.get(0).stringField).isEqualTo("string1");
+        assertThat(views.get(1).enumField).isEqualTo(TestEnum.V2);
+    }
+
     @Test
     void selectEmptyWithView() {
         List<EntityView> views = database.select("SELECT string_field as string_label, enum_field as enum_label FROM database_test where id = -1", EntityView.class);
@@ -253,6 +269,50 @@ class DatabaseImplTest {
         logManager.end("end");
     }
 
+    @Test
+    void readFromReplica() {
+        var replica = new DatabaseImpl("replica");
+        replica.url("jdbc:hsqldb:mem:replica;sql.syntax_mys=true");
+        replica.execute("CREATE TABLE replica_test (id INT PRIMARY KEY)");
+
+        var logManager = new LogManager();
+        logManager.begin("begin", null);
+        try {
+            Database.readFromReplica(true);
+            // replica_test only exists in replica
+            assertThat(database.selectOne("SELECT count(1) FROM replica_test", Integer.class)).hasValue(0);
+            try (Transaction transaction = database.beginTransaction()) {
+                assertThatThrownBy(() -> database.selectOne("SELECT count(1) FROM replica_test", Integer.class))
+                        .isInstanceOf(UncheckedSQLException.class);
+                transaction.commit();
+            }
+            Database.readFromReplica(false);
+            assertThatThrownBy(() -> database.select("SELECT id FROM replica_test", Integer.class))
+                    .isInstanceOf(UncheckedSQLException.class);
+        } finally {
+            logManager.end("end");
+            replica.execute("DROP TABLE replica_test");
+            replica.close();
+        }
+    }
+
+    @Test
+    void statementCache() {
+        var cachedDatabase = new DatabaseImpl("db-statement-cache");
+        cachedDatabase.url("jdbc:hsqldb:mem:.;sql.syntax_mys=true");
+        cachedDatabase.statementCacheSize(10);
+        try {
+            cachedDatabase.execute("INSERT INTO database_test (id, string_field) VALUES (?, ?)", 1, "string1");
+            cachedDatabase.execute("INSERT INTO database_test (id, string_field) VALUES (?, ?)", 2, "string2");
+            assertThat(cachedDatabase.select("SELECT string_field FROM database_test ORDER BY id", String.class)).containsExactly("string1", "string2");
+
+            assertThat(cachedDatabase.operation.statementMisses.sum()).isEqualTo(2);
+            assertThat(cachedDatabase.operation.statementHits.sum()).isEqualTo(1);
+        } finally {
+            cachedDatabase.close();
+        }
+    }
+
     private void insertRow(int id, String stringField, TestEnum enumField) {
         database.execute("INSERT INTO database_test (id, string_field, enum_field) VALUES (?, ?, ?)", id, stringField, enumField);
     }
@@ -306,6 +306,66 @@ class RepositoryImplAssignedIdEntityTest {
         assertThat(results.get(4).intField).isEqualTo(324);
     }
 
+    @Test
+    void forEach() {
+        List<AssignedIdEntity> entities = Lists.newArrayList();
+        for (int i = 500; i < 550; i++) {
+            AssignedIdEntity entity = entity(String.valueOf(i), "value" + i, i);
+            entities.add(entity);
+        }
+        repository.batchInsert(entities);
+
+        Query<AssignedIdEntity> query = repository.select();
+        query.where("int_field >= ?", 500);
+        query.orderBy("int_field");
+        List<AssignedIdEntity> results = Lists.newArrayList();
+        query.forEach(results::add);
+
+        assertThat(results).hasSize(50);
+        assertThat(results.get(0).intField).isEqualTo(500);
+        assertThat(results.get(49).intField).isEqualTo(549);
+    }
+
+    @Test
+    void after() {
+        List<AssignedIdEntity> entities = Lists.newArrayList();
+        for (int i = 600; i < 610; i++) {
+            entities.add(entity(String.valueOf(i), "value" + i, i));
+        }
+        repository.batchInsert(entities);
+
+        Query<AssignedIdEntity> query = repository.select();
+        query.after("604");
+        query.limit(3);
+        List<AssignedIdEntity> results = query.fetch();
+
+        assertThat(results.stream().map(entity -> entity.id).collect(Collectors.toList())).containsExactly("605", "606", "607");
+    }
+
+    @Test
+    void chunks() {
+        List<AssignedIdEntity> entities = Lists.newArrayList();
+        for (int i = 700; i < 750; i++) {
+            entities.add(entity(String.valueOf(i), "value" + i, i % 10));     // int_field has duplicate values
+        }
+        repository.batchInsert(entities);
+
+        Query<AssignedIdEntity> query = repository.select();
+        query.keyset("int_field");
+        List<Integer> sizes = Lists.newArrayList();
+        List<AssignedIdEntity> results = Lists.newArrayList();
+        for (List<AssignedIdEntity> chunk : query.chunks(20)) {
+            sizes.add(chunk.size());
+            results.addAll(chunk);
+        }
+
+        assertThat(sizes).containsExactly(20, 20, 10);
+        assertThat(results.stream().map(entity -> entity.id).distinct().count()).isEqualTo(50);
+        assertThat(results.get(0).id).isEqualTo("700");
+        assertThat(results.get(5).id).isEqualTo("701");     // ordered by int_field then id
+        assertThat(results.get(49).id).isEqualTo("749");
+    }
+
     @Test
     void count() {
         List<AssignedIdEntity> entities = Lists.newArrayList();
@@ -6,6 +6,7 @@ import org.junit.jupiter.api.Test;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * @author neo
@@ -29,6 +30,23 @@ class SelectQueryTest {
         assertThat(sql).isEqualTo("SELECT id, string_field, int_field, big_decimal_field, date_field, zoned_date_time_field FROM assigned_id_entity WHERE string_field = ? ORDER BY int_field ASC LIMIT ?,?");
     }
 
+    @Test
+    void keyset() {
+        assertThat(selectQuery.primaryKeyset.sort).isEqualTo("id");
+        assertThat(selectQuery.primaryKeyset.condition).isEqualTo("id > ?");
+
+        Keyset keyset = selectQuery.keyset("int_field");
+        assertThat(keyset.sort).isEqualTo("int_field, id");
+        assertThat(keyset.condition).isEqualTo("(int_field, id) > (?, ?)");
+
+        assertThatThrownBy(() -> selectQuery.keyset("id"))
+                .isInstanceOf(Error.class)
+                .hasMessageContaining("keyset column must not be primary key");
+        assertThatThrownBy(() -> selectQuery.keyset("invalid_field"))
+                .isInstanceOf(Error.class)
+                .hasMessageContaining("keyset column must be column of entity");
+    }
+
     @Test
     void fetchParams() {
         Object[] params = selectQuery.fetchParams(List.of("value"), null, 100);
@@ -0,0 +1,34 @@
+package core.framework.internal.db;
+
+import core.framework.internal.stat.Stats;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author neo
+ */
+class StatementCacheMetricsTest {
+    private DatabaseImpl database;
+    private StatementCacheMetrics metrics;
+
+    @BeforeEach
+    void createStatementCacheMetrics() {
+        database = new DatabaseImpl("db");
+        metrics = new StatementCacheMetrics(database);
+    }
+
+    @Test
+    void collect() {
+        database.operation.statementHits.add(3);
+        database.operation.statementMisses.increment();
+
+        var stats = new Stats();
+        metrics.collect(stats);
+
+        assertThat(stats.stats)
+                .containsEntry("pool_db_statement_hits", 3.0d)
+                .containsEntry("pool_db_statement_misses", 1.0d);
+    }
+}
@@ -0,0 +1,54 @@
+package core.framework.internal.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author neo
+ */
+class StatementCacheTest {
+    private StatementCache cache;
+
+    @BeforeEach
+    void createStatementCache() {
+        cache = new StatementCache(2);
+    }
+
+    @Test
+    void key() {
+        assertThat(StatementCache.key("INSERT INTO test (id) VALUES (?)", null)).isEqualTo("INSERT INTO test (id) VALUES (?)");
+        assertThat(StatementCache.key("INSERT INTO test (id) VALUES (?)", "id")).isNotEqualTo("INSERT INTO test (id) VALUES (?)");
+    }
+
+    @Test
+    void evict() {
+        PreparedStatement statement1 = mock(PreparedStatement.class);
+        cache.put("sql1", statement1);
+        cache.put("sql2", mock(PreparedStatement.class));
+        assertThat(cache.get("sql2")).isNotNull();
+        assertThat(cache.get("sql1")).isSameAs(statement1);     // sql2 becomes eldest
+
+        cache.put("sql3", mock(PreparedStatement.class));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.get("sql2")).isNull();
+        assertThat(cache.get("sql1")).isSameAs(statement1);
+    }
+
+    @Test
+    void closeEvictedStatement() throws SQLException {
+        PreparedStatement statement1 = mock(PreparedStatement.class);
+        cache.put("sql1", statement1);
+        cache.put("sql2", mock(PreparedStatement.class));
+        cache.put("sql3", mock(PreparedStatement.class));
+
+        verify(statement1).close();
+    }
+}
@@ -11,9 +11,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 
 import static core.framework.internal.redis.RedisEncodings.decode;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -48,6 +50,12 @@ abstract class AbstractRedisOperationTest {
         assertThat(decode(request.toByteArray())).isEqualTo(data);
     }
 
+    void assertResponseConsumed() {
+        assertThatThrownBy(() -> poolItem.resource.inputStream.readByte())
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("end of stream");
+    }
+
     void response(String data) {
         poolItem.resource.inputStream = new RedisInputStream(new ByteArrayInputStream(Strings.bytes(data)));
     }
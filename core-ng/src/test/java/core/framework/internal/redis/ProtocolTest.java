@@ -70,6 +70,16 @@ class ProtocolTest {
         assertThat(response).isNull();
     }
 
+    @Test
+    void readRESP3() throws IOException {
+        var stream = new RedisInputStream(new ByteArrayInputStream(Strings.bytes("_\r\n%1\r\n+proto\r\n:3\r\n#t\r\n>2\r\n$10\r\ninvalidate\r\n_\r\n")));
+        assertThat(Protocol.read(stream)).isNull();
+        assertThat((Object[]) Protocol.read(stream)).containsExactly("proto", 3L);
+        assertThat(Protocol.read(stream)).isEqualTo(Boolean.TRUE);
+        Protocol.Push push = (Protocol.Push) Protocol.read(stream);
+        assertThat(push.values).containsExactly(encode("invalidate"), null);
+    }
+
     @Test
     void readEmptyString() throws IOException {
         var stream = new ByteArrayInputStream(Strings.bytes("$0\r\n\r\n"));
@@ -0,0 +1,135 @@
+package core.framework.internal.redis;
+
+import core.framework.internal.resource.Pool;
+import core.framework.util.Strings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static core.framework.internal.redis.Protocol.Command.GET;
+import static core.framework.internal.redis.RedisEncodings.decode;
+import static core.framework.internal.redis.RedisEncodings.encode;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author neo
+ */
+class RedisClusterTest {
+    private RedisCluster cluster;
+    private Map<String, ByteArrayOutputStream> requests;
+
+    @BeforeEach
+    void createRedisCluster() {
+        Pool<RedisConnection> handlePool = new Pool<>(() -> null, "redis");
+        handlePool.size(2, 20);
+        cluster = new RedisCluster(new RedisConnectionFactory(), handlePool, "redis", List.of());
+        requests = new HashMap<>();
+    }
+    @Test
+    void slot() {
+        assertThat(RedisCluster.slot(encode("123456789"))).isEqualTo(12739);
+        assertThat(RedisCluster.slot(encode("foo"))).isEqualTo(12182);
+        assertThat(RedisCluster.slot(encode("bar"))).isEqualTo(5061);
+    }
+
+    @Test
+    void slotWithHashTag() {
+        assertThat(RedisCluster.slot(encode("{user1000}.following"))).isEqualTo(RedisCluster.slot(encode("user1000")));
+        assertThat(RedisCluster.slot(encode("{user1000}.followers"))).isEqualTo(RedisCluster.slot(encode("user1000")));
+        assertThat(RedisCluster.slot(encode("foo{}{bar}"))).isEqualTo(RedisCluster.crc16(encode("foo{}{bar}"), 0, 10) & (RedisCluster.SLOT_SIZE - 1));
+        assertThat(RedisCluster.slot(encode("foo{{bar}}"))).isEqualTo(RedisCluster.slot(encode("{bar")));
+    }
+
+    @Test
+    void groupBySlot() {
+        List<String[]> groups = RedisCluster.groupBySlot("{a}1", "foo", "{a}2", "bar");
+        assertThat(groups).hasSize(3);
+        assertThat(groups.get(0)).containsExactly("{a}1", "{a}2");
+        assertThat(groups.get(1)).containsExactly("foo");
+        assertThat(groups.get(2)).containsExactly("bar");
+    }
+
+    @Test
+    void nodePoolSize() {
+        RedisCluster.Node node = cluster.node(new RedisHost("127.0.0.1:7000"));
+        assertThat(node.pool.minSize()).isEqualTo(2);
+        assertThat(node.pool.maxSize()).isEqualTo(20);
+    }
+
+    @Test
+    void executeMultiSlotPipeline() throws IOException {
+        RedisCluster.Node node1 = node("127.0.0.1:7000", "$2\r\nv2\r\n");
+        RedisCluster.Node node2 = node("127.0.0.1:7001", "$2\r\nv1\r\n$2\r\nv3\r\n");
+        var slots = new RedisCluster.Node[RedisCluster.SLOT_SIZE];
+        Arrays.fill(slots, 0, 8192, node1);     // slot of "bar" is 5061
+        Arrays.fill(slots, 8192, RedisCluster.SLOT_SIZE, node2);    // slot of "foo" is 12182
+        cluster.slots = slots;
+
+        Object[] replies = cluster.execute(List.of(get("foo"), get("bar"), get("{foo}1")));
+
+        assertThat(replies).hasSize(3);
+        assertThat(decode((byte[]) replies[0])).isEqualTo("v1");
+        assertThat(decode((byte[]) replies[1])).isEqualTo("v2");
+        assertThat(decode((byte[]) replies[2])).isEqualTo("v3");
+        assertThat(request("127.0.0.1:7000")).isEqualTo("*2\r\n$3\r\nGET\r\n$3\r\nbar\r\n");
+        assertThat(request("127.0.0.1:7001")).isEqualTo("*2\r\n$3\r\nGET\r\n$3\r\nfoo\r\n*2\r\n$3\r\nGET\r\n$6\r\n{foo}1\r\n");
+    }
+
+    @Test
+    void executeWithAskRedirect() throws IOException {
+        RedisCluster.Node node1 = node("127.0.0.1:7000", "-ASK 12182 127.0.0.1:7001\r\n");
+        node("127.0.0.1:7001", "+OK\r\n$2\r\nv1\r\n");
+        var slots = new RedisCluster.Node[RedisCluster.SLOT_SIZE];
+        Arrays.fill(slots, node1);
+        cluster.slots = slots;
+
+        Object[] replies = cluster.execute(List.of(get("foo")));
+
+        assertThat(decode((byte[]) replies[0])).isEqualTo("v1");
+        assertThat(request("127.0.0.1:7001")).isEqualTo("*1\r\n$6\r\nASKING\r\n*2\r\n$3\r\nGET\r\n$3\r\nfoo\r\n");
+        assertThat(cluster.slots).isSameAs(slots);  // ASK is one time redirection during slot migration, not to refresh slots
+    }
+
+    @Test
+    void executeWithMovedRedirect() throws IOException {
+        RedisCluster.Node node1 = node("127.0.0.1:7000", "-MOVED 12182 127.0.0.1:7001\r\n");
+        cluster.nodes.remove("127.0.0.1:7000");     // only keep node2 to load slots from, to make refresh deterministic
+        RedisCluster.Node node2 = node("127.0.0.1:7001", "*1\r\n*3\r\n:0\r\n:16383\r\n*3\r\n$9\r\n127.0.0.1\r\n:7001\r\n$2\r\nid\r\n"
+            + "$2\r\nv1\r\n");
+        var slots = new RedisCluster.Node[RedisCluster.SLOT_SIZE];
+        Arrays.fill(slots, node1);
+        cluster.slots = slots;
+
+        Object[] replies = cluster.execute(List.of(get("foo")));
+
+        assertThat(decode((byte[]) replies[0])).isEqualTo("v1");
+        assertThat(request("127.0.0.1:7001")).isEqualTo("*2\r\n$7\r\nCLUSTER\r\n$5\r\nSLOTS\r\n*2\r\n$3\r\nGET\r\n$3\r\nfoo\r\n");
+        assertThat(cluster.slots[RedisCluster.slot(encode("foo"))]).isSameAs(node2);
+    }
+
+    private RedisCluster.Node node(String host, String response) {
+        var request = new ByteArrayOutputStream();
+        requests.put(host, request);
+        var connection = new RedisConnection();
+        connection.outputStream = new RedisOutputStream(request, 512);
+        connection.inputStream = new RedisInputStream(new ByteArrayInputStream(Strings.bytes(response)));
+        var node = new RedisCluster.Node(new RedisHost(host), new Pool<>(() -> connection, host));
+        cluster.nodes.put(host, node);
+        return node;
+    }
+
+    private byte[][] get(String key) {
+        return new byte[][]{GET, encode(key)};
+    }
+
+    private String request(String host) {
+        return decode(requests.get(host).toByteArray());
+    }
+}
@@ -1,9 +1,13 @@
 package core.framework.internal.redis;
 
+import core.framework.internal.resource.Pool;
+import core.framework.redis.ReadPolicy;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
 import java.time.Duration;
+import java.util.function.Supplier;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
@@ -46,4 +50,57 @@ class RedisImplTest {
             .isInstanceOf(Error.class)
             .hasMessageContaining("expiration time must be longer than 0ms");
     }
+
+    @Test
+    void readPool() {
+        assertThat(redis.readPool()).isSameAs(redis.pool);
+
+        assertThatThrownBy(() -> redis.readPolicy(ReadPolicy.REPLICA_ONLY))
+            .isInstanceOf(Error.class)
+            .hasMessageContaining("replicas are not configured");
+
+        redis.replicas("replica-0", "replica-1");
+        assertThat(redis.readPool()).isSameAs(redis.replicaPool);
+
+        redis.readPolicy(ReadPolicy.PRIMARY);
+        assertThat(redis.readPool()).isSameAs(redis.pool);
+    }
+
+    @Test
+    void readFromPrimaryIfReplicaFailed() {
+        var primaryConnection = new RedisConnection();
+        var replicaConnection = new RedisConnection();
+        redis.pool = new Pool<>(() -> primaryConnection, "redis");
+        redis.replicas("replica-0");
+        redis.replicaPool = new Pool<>(() -> replicaConnection, "redis-replica");
+
+        String value = redis.read(connection -> {
+            if (connection == replicaConnection) throw new IOException("connection reset");
+            return "value";
+        });
+        assertThat(value).isEqualTo("value");
+        assertThat(redis.readPool()).isSameAs(redis.pool);
+    }
+
+    @Test
+    void replicaPoolSize() {
+        redis.pool.size(10, 20);
+        redis.replicas("replica-0");
+
+        assertThat(redis.replicaPool.minSize()).isEqualTo(10);
+        assertThat(redis.replicaPool.maxSize()).isEqualTo(20);
+    }
+
+    @Test
+    void pipeline() {
+        Supplier<String> value = redis.pipeline().get("key");
+
+        assertThatThrownBy(value::get)
+            .isInstanceOf(Error.class)
+            .hasMessageContaining("pipeline is not executed");
+
+        assertThatThrownBy(() -> redis.pipeline().execute())
+            .isInstanceOf(Error.class)
+            .hasMessageContaining("pipeline must not be empty");
+    }
 }
@@ -5,6 +5,9 @@ import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -19,4 +22,18 @@ class RedisInputStreamTest {
 
         assertEquals("line1\rline2", message);
     }
+
+    @Test
+    void readBlobString() throws IOException {
+        String small = "x".repeat(8000);
+        String large = "y".repeat(20000);
+        var stream = new RedisInputStream(new ByteArrayInputStream(Strings.bytes(small + "\r\n" + small + "\r\n" + large + "\r\n")));
+        List<String> values = new ArrayList<>();
+        BlobStringConsumer consumer = (index, bytes, offset, length) -> values.add(new String(bytes, offset, length, StandardCharsets.UTF_8));
+        stream.readBlobString(0, small.length(), consumer);
+        stream.readBlobString(1, small.length(), consumer);     // crosses buffer boundary
+        stream.readBlobString(2, large.length(), consumer);     // larger than buffer
+
+        assertEquals(List.of(small, small, large), values);
+    }
 }
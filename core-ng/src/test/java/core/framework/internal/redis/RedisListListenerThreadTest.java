@@ -0,0 +1,150 @@
+package core.framework.internal.redis;
+
+import core.framework.internal.log.LogManager;
+import core.framework.redis.ListHandler;
+import core.framework.util.Strings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.function.Consumer;
+
+import static core.framework.internal.redis.RedisEncodings.decode;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author neo
+ */
+@ExtendWith(MockitoExtension.class)
+class RedisListListenerThreadTest {
+    @Mock
+    ListHandler handler;
+    @Mock
+    RedisImpl redis;
+    private RedisListListener listener;
+    private RedisConnection connection;
+    private ByteArrayOutputStream request;
+
+    @BeforeEach
+    void createRedisListListener() {
+        listener = new RedisListListener(redis, null, new LogManager(), 300_000L);
+        listener.consume("list", handler, false);
+
+        request = new ByteArrayOutputStream();
+        connection = new RedisConnection();
+        connection.outputStream = new RedisOutputStream(request, 512);
+    }
+
+    @Test
+    void pop() throws IOException {
+        var thread = new RedisListListenerThread("listener-thread-1", "list", null, listener);
+        response("*2\r\n$4\r\nlist\r\n$5\r\nvalue\r\n");
+
+        assertThat(thread.pop(connection, 2)).isEqualTo("value");
+        assertRequestEquals("*3\r\n$5\r\nBLPOP\r\n$4\r\nlist\r\n$1\r\n2\r\n");
+    }
+
+    @Test
+    void popWithTimeout() throws IOException {
+        var thread = new RedisListListenerThread("listener-thread-1", "list", null, listener);
+        response("*-1\r\n");
+
+        assertThat(thread.pop(connection, 2)).isNull();
+    }
+
+    @Test
+    void popWithProcessingList() throws IOException {
+        var thread = new RedisListListenerThread("listener-thread-1", "list", "list:processing", listener);
+        response("$5\r\nvalue\r\n");
+
+        assertThat(thread.pop(connection, 2)).isEqualTo("value");
+        assertRequestEquals("*6\r\n$6\r\nBLMOVE\r\n$4\r\nlist\r\n$15\r\nlist:processing\r\n$4\r\nLEFT\r\n$5\r\nRIGHT\r\n$1\r\n2\r\n");
+    }
+
+    @Test
+    void handleWithProcessingList() throws Exception {
+        var thread = new RedisListListenerThread("listener-thread-1", "list", "list:processing", listener);
+        response(":1\r\n");
+        thread.handle(connection, "value");
+
+        verify(handler).handle("value");
+        assertRequestEquals("*4\r\n$4\r\nLREM\r\n$15\r\nlist:processing\r\n$2\r\n-1\r\n$5\r\nvalue\r\n");
+    }
+
+    @Test
+    void handleWithRemoveError() {
+        var thread = new RedisListListenerThread("listener-thread-1", "list", "list:processing", listener);
+        response("");
+
+        assertThatThrownBy(() -> thread.handle(connection, "value"))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("failed to remove value from processing list");
+    }
+
+    @Test
+    void handleWithError() throws Exception {
+        var thread = new RedisListListenerThread("listener-thread-1", "list", "list:processing", listener);
+        doThrow(new Error("failed to handle")).when(handler).handle("value");
+        response(":1\r\n:1\r\n");
+        thread.handle(connection, "value");
+
+        assertRequestEquals("*3\r\n$5\r\nRPUSH\r\n$11\r\nlist:failed\r\n$5\r\nvalue\r\n"
+            + "*4\r\n$4\r\nLREM\r\n$15\r\nlist:processing\r\n$2\r\n-1\r\n$5\r\nvalue\r\n");
+    }
+
+    @Test
+    void handleWithErrorWithoutProcessingList() throws Exception {
+        var thread = new RedisListListenerThread("listener-thread-1", "list", null, listener);
+        doThrow(new Error("failed to handle")).when(handler).handle("value");
+        thread.handle(connection, "value");
+
+        assertThat(request.toByteArray()).isEmpty();
+    }
+
+    @Test
+    void reap() throws IOException {
+        var thread = new RedisListListenerThread("listener-thread-1", "list", "list:processing:host1-0", listener);
+        doAnswer(invocation -> {
+            Consumer<String> consumer = invocation.getArgument(1);
+            consumer.accept("list:processing:host1-0");
+            consumer.accept("list:processing:host2-0");
+            return null;
+        }).when(redis).forEach(eq("list:processing:*"), any());
+        response("$17\r\nlistener-thread-1\r\n$-1\r\n$5\r\nvalue\r\n$-1\r\n");   // host2 has no heartbeat, move its value back to list
+        thread.reap(connection);
+
+        assertRequestEquals("*2\r\n$3\r\nGET\r\n$22\r\nlist:heartbeat:host1-0\r\n"
+            + "*2\r\n$3\r\nGET\r\n$22\r\nlist:heartbeat:host2-0\r\n"
+            + "*5\r\n$5\r\nLMOVE\r\n$23\r\nlist:processing:host2-0\r\n$4\r\nlist\r\n$5\r\nRIGHT\r\n$4\r\nLEFT\r\n"
+            + "*5\r\n$5\r\nLMOVE\r\n$23\r\nlist:processing:host2-0\r\n$4\r\nlist\r\n$5\r\nRIGHT\r\n$4\r\nLEFT\r\n");
+    }
+
+    @Test
+    void processingList() {
+        assertThat(listener.processingList("list", 1)).startsWith("list:processing:").endsWith("-1");
+    }
+
+    @Test
+    void heartbeatKey() {
+        assertThat(listener.heartbeatKey("list", "list:processing:host1-0")).isEqualTo("list:heartbeat:host1-0");
+    }
+
+    private void response(String data) {
+        connection.inputStream = new RedisInputStream(new ByteArrayInputStream(Strings.bytes(data)));
+    }
+
+    private void assertRequestEquals(String data) {
+        assertThat(decode(request.toByteArray())).isEqualTo(data);
+    }
+}
@@ -0,0 +1,114 @@
+package core.framework.internal.redis;
+
+import core.framework.util.Strings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static core.framework.internal.redis.Protocol.Command.GET;
+import static core.framework.internal.redis.Protocol.Command.INCRBY;
+import static core.framework.internal.redis.RedisEncodings.decode;
+import static core.framework.internal.redis.RedisEncodings.encode;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author neo
+ */
+class RedisMultiplexerTest {
+    private RedisMultiplexer multiplexer;
+    private SharedRedisConnection sharedConnection;
+    private ByteArrayOutputStream request;
+    private PipedOutputStream response;
+    private List<String[]> invalidations;
+
+    @BeforeEach
+    void createRedisMultiplexer() throws IOException {
+        multiplexer = new RedisMultiplexer(new RedisConnectionFactory(), "redis", 1);
+        request = new ByteArrayOutputStream();
+        response = new PipedOutputStream();
+        var connection = new RedisConnection();
+        connection.outputStream = new RedisOutputStream(request, 512);
+        connection.inputStream = new RedisInputStream(new PipedInputStream(response));
+        invalidations = new CopyOnWriteArrayList<>();
+        sharedConnection = new SharedRedisConnection("redis-multiplexer-0", connection, invalidations::add);
+        sharedConnection.start();
+        multiplexer.connections.set(0, sharedConnection);
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        multiplexer.close();
+        response.close();
+    }
+
+    @Test
+    void dispatchReplies() throws IOException {
+        RedisConnection connection1 = multiplexer.connection();
+        RedisConnection connection2 = multiplexer.connection();
+        connection1.writeKeyCommand(GET, "k1");
+        connection2.writeKeyArgumentCommand(INCRBY, "k2", encode(1));
+        response("$2\r\nv1\r\n-ERR value is not an integer or out of range\r\n");
+
+        assertThatThrownBy(connection2::readLong)
+            .isInstanceOf(RedisException.class)
+            .hasMessageContaining("ERR value is not an integer");
+        assertThat(decode(connection1.readBlobString())).isEqualTo("v1");
+        assertThat(decode(request.toByteArray())).isEqualTo("*2\r\n$3\r\nGET\r\n$2\r\nk1\r\n*3\r\n$6\r\nINCRBY\r\n$2\r\nk2\r\n$1\r\n1\r\n");
+    }
+
+    @Test
+    void dispatchPush() throws IOException {
+        RedisConnection connection = multiplexer.connection();
+        connection.writeKeyCommand(GET, "k1");
+        response(">2\r\n$10\r\ninvalidate\r\n*1\r\n$2\r\nk2\r\n$2\r\nv1\r\n");
+
+        assertThat(decode(connection.readBlobString())).isEqualTo("v1");
+        assertThat(invalidations).hasSize(1);
+        assertThat(invalidations.get(0)).containsExactly("k2");
+    }
+
+    @Test
+    void createSharedConnectionWithTimeout() throws IOException {
+        try (var server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {   // accepts connection but never replies
+            var connectionFactory = new RedisConnectionFactory();
+            connectionFactory.host = new RedisHost("127.0.0.1:" + server.getLocalPort());
+            connectionFactory.timeoutInMs = 100;
+            var unreachableMultiplexer = new RedisMultiplexer(connectionFactory, "redis", 1);
+            unreachableMultiplexer.trackingListener = keys -> {
+            };
+
+            assertThatThrownBy(unreachableMultiplexer::sharedConnection)
+                .isInstanceOf(UncheckedIOException.class);
+            unreachableMultiplexer.close();
+        }
+    }
+
+    @Test
+    void readTimeout() throws IOException {
+        var connection = new MultiplexedRedisConnection(multiplexer, 10);
+        connection.writeKeyCommand(GET, "k1");
+
+        assertThatThrownBy(connection::read)
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("timed out");
+        assertThat(sharedConnection.closed()).isTrue();
+        assertThat(invalidations).hasSize(1);
+        assertThat(invalidations.get(0)).isNull();
+    }
+
+    private void response(String data) throws IOException {
+        response.write(Strings.bytes(data));
+        response.flush();
+    }
+}
@@ -84,6 +84,15 @@ class RedisOperationTest extends AbstractRedisOperationTest {
         assertRequestEquals("*4\r\n$4\r\nMGET\r\n$2\r\nk1\r\n$2\r\nk2\r\n$2\r\nk3\r\n");
     }
 
+    @Test
+    void multiGetWithDecoder() {
+        response("*3\r\n$2\r\nv1\r\n$-1\r\n$3\r\nv33\r\n");
+        Map<String, Integer> values = redis.multiGet(new String[]{"k1", "k2", "k3"}, (bytes, offset, length) -> length);
+
+        assertThat(values).containsOnly(entry("k1", 2), entry("k3", 3));
+        assertRequestEquals("*4\r\n$4\r\nMGET\r\n$2\r\nk1\r\n$2\r\nk2\r\n$2\r\nk3\r\n");
+    }
+
     @Test
     void multiSet() {
         response("+OK\r\n");
@@ -0,0 +1,25 @@
+package core.framework.internal.redis;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.UncheckedIOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author neo
+ */
+class RedisReplicaConnectionFactoryTest {
+    @Test
+    void failedRecently() {
+        var connectionFactory = new RedisConnectionFactory();
+        connectionFactory.timeoutInMs = 100;
+        var factory = new RedisReplicaConnectionFactory(connectionFactory, List.of(new RedisHost("localhost:1")));
+        assertThat(factory.failedRecently()).isFalse();
+
+        assertThatThrownBy(factory::get).isInstanceOf(UncheckedIOException.class);
+        assertThat(factory.failedRecently()).isTrue();
+    }
+}
@@ -0,0 +1,39 @@
+package core.framework.internal.redis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author neo
+ */
+class RedisScriptOperationTest extends AbstractRedisOperationTest {
+    @Test
+    void evalString() {
+        response("$2\r\nv1\r\n");
+        String value = redis.script("return ARGV[1]").evalString(List.of("k1"), "v1");
+
+        assertThat(value).isEqualTo("v1");
+        assertRequestEquals("*5\r\n$7\r\nEVALSHA\r\n$40\r\n098e0f0d1448c0a81dafe820f66d460eb09263da\r\n$1\r\n1\r\n$2\r\nk1\r\n$2\r\nv1\r\n");
+    }
+
+    @Test
+    void evalLongWithNoScript() {
+        response("-NOSCRIPT No matching script. Please use EVAL.\r\n:1\r\n");
+        Long value = redis.script("return ARGV[1]").evalLong(List.of(), "1");
+
+        assertThat(value).isEqualTo(1);
+        assertRequestEquals("*4\r\n$7\r\nEVALSHA\r\n$40\r\n098e0f0d1448c0a81dafe820f66d460eb09263da\r\n$1\r\n0\r\n$1\r\n1\r\n"
+            + "*4\r\n$4\r\nEVAL\r\n$14\r\nreturn ARGV[1]\r\n$1\r\n0\r\n$1\r\n1\r\n");
+    }
+
+    @Test
+    void evalList() {
+        response("*2\r\n$2\r\nv1\r\n$2\r\nv2\r\n");
+        List<String> values = redis.script("return ARGV[1]").evalList(List.of("k1"));
+
+        assertThat(values).containsExactly("v1", "v2");
+    }
+}
@@ -0,0 +1,115 @@
+package core.framework.internal.redis;
+
+import core.framework.internal.log.LogManager;
+import core.framework.redis.BulkStreamHandler;
+import core.framework.redis.StreamEntry;
+import core.framework.redis.StreamHandler;
+import core.framework.util.Strings;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static core.framework.internal.redis.RedisEncodings.decode;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+
+/**
+ * @author neo
+ */
+@ExtendWith(MockitoExtension.class)
+class RedisStreamListenerThreadTest {
+    @Mock
+    StreamHandler handler;
+    @Mock
+    BulkStreamHandler bulkHandler;
+    private RedisStreamListenerThread thread;
+    private LogManager logManager;
+    private RedisConnection connection;
+    private ByteArrayOutputStream request;
+
+    @BeforeEach
+    void createRedisStreamListenerThread() {
+        logManager = new LogManager();
+        var listener = new RedisStreamListener(null, null, logManager, 300_000L);
+        listener.group = "group";
+        thread = new RedisStreamListenerThread("listener-thread-1", "consumer-1", listener);
+
+        request = new ByteArrayOutputStream();
+        connection = new RedisConnection();
+        connection.outputStream = new RedisOutputStream(request, 512);
+        connection.inputStream = new RedisInputStream(new ByteArrayInputStream(Strings.bytes(":1\r\n")));
+    }
+
+    @Test
+    void handle() throws Exception {
+        var entry = new StreamEntry("1-0", Map.of("f1", "v1"));
+        thread.handle(connection, "stream", handler, entry);
+
+        verify(handler).handle(entry.id, entry.fields);
+        assertThat(decode(request.toByteArray())).isEqualTo("*4\r\n$4\r\nXACK\r\n$6\r\nstream\r\n$5\r\ngroup\r\n$3\r\n1-0\r\n");
+    }
+
+    @Test
+    void handleWithError() throws Exception {
+        var entry = new StreamEntry("1-0", Map.of("f1", "v1"));
+        doThrow(new Error("failed to handle")).when(handler).handle(entry.id, entry.fields);
+        thread.handle(connection, "stream", handler, entry);
+
+        assertThat(request.toByteArray()).isEmpty();    // failed entry must not be acked
+    }
+
+    @Test
+    void handleWithAckError() {
+        connection.inputStream = new RedisInputStream(new ByteArrayInputStream(new byte[0]));
+        var entry = new StreamEntry("1-0", Map.of("f1", "v1"));
+
+        assertThatThrownBy(() -> thread.handle(connection, "stream", handler, entry))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("failed to ack entry");
+    }
+
+    @Test
+    void moveFailedEntries() throws IOException {
+        connection.inputStream = new RedisInputStream(new ByteArrayInputStream(Strings.bytes("*2\r\n*4\r\n$3\r\n1-0\r\n$10\r\nconsumer-1\r\n:0\r\n:6\r\n*4\r\n$3\r\n1-1\r\n$10\r\nconsumer-1\r\n:0\r\n:2\r\n"
+            + "$3\r\n2-0\r\n:1\r\n")));
+        List<StreamEntry> entries = List.of(new StreamEntry("1-0", Map.of("f1", "v1")), new StreamEntry("1-1", Map.of("f1", "v2")));
+
+        assertThat(thread.moveFailedEntries(connection, "stream", entries)).containsExactly(entries.get(1));
+        assertThat(decode(request.toByteArray())).isEqualTo("*7\r\n$8\r\nXPENDING\r\n$6\r\nstream\r\n$5\r\ngroup\r\n$3\r\n1-0\r\n$3\r\n1-1\r\n$3\r\n102\r\n$10\r\nconsumer-1\r\n"
+            + "*5\r\n$4\r\nXADD\r\n$13\r\nstream:failed\r\n$1\r\n*\r\n$2\r\nf1\r\n$2\r\nv1\r\n"
+            + "*4\r\n$4\r\nXACK\r\n$6\r\nstream\r\n$5\r\ngroup\r\n$3\r\n1-0\r\n");
+    }
+
+    @Test
+    void handleBulk() throws Exception {
+        List<StreamEntry> entries = List.of(new StreamEntry("1-0", Map.of("f1", "v1")), new StreamEntry("1-1", Map.of("f1", "v2")));
+        thread.handleBulk(connection, "stream", bulkHandler, entries);
+
+        verify(bulkHandler).handle(entries);
+        assertThat(decode(request.toByteArray())).isEqualTo("*5\r\n$4\r\nXACK\r\n$6\r\nstream\r\n$5\r\ngroup\r\n$3\r\n1-0\r\n$3\r\n1-1\r\n");
+    }
+
+    @Test
+    void timestamp() {
+        assertThat(thread.timestamp("1526919030474-55")).isEqualTo(1526919030474L);
+    }
+
+    @Test
+    void checkConsumerDelay() {
+        var actionLog = logManager.begin(null, null);
+        thread.checkConsumerDelay(actionLog, actionLog.date.minusSeconds(5).toEpochMilli(), Duration.ofSeconds(3).toNanos());
+        assertThat(actionLog.stats).containsEntry("consumer_delay", (double) Duration.ofSeconds(5).toNanos());
+        assertThat(actionLog.errorCode()).isEqualTo("LONG_CONSUMER_DELAY");
+    }
+}
@@ -3,6 +3,7 @@ package core.framework.internal.web.session;
 import core.framework.internal.redis.RedisException;
 import core.framework.redis.Redis;
 import core.framework.redis.RedisHash;
+import core.framework.redis.RedisPipeline;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -18,6 +19,7 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -30,6 +32,8 @@ class RedisSessionStoreTest {
     Redis redis;
     @Mock
     RedisHash redisHash;
+    @Mock
+    RedisPipeline pipeline;
     private RedisSessionStore store;
 
     @BeforeEach
@@ -48,8 +52,8 @@ class RedisSessionStoreTest {
     @Test
     void getAndRefreshWithRedisDown() {
         // redis shutdown in the middle
-        when(redis.hash()).thenReturn(redisHash);
-        when(redisHash.getAll(anyString())).thenThrow(new UncheckedIOException(new IOException("unexpected end of stream")));
+        when(redis.pipeline()).thenReturn(pipeline);
+        doThrow(new UncheckedIOException(new IOException("unexpected end of stream"))).when(pipeline).execute();
 
         assertThatThrownBy(() -> store.getAndRefresh("sessionId", "localhost", Duration.ofMinutes(30)))
             .isInstanceOf(UncheckedIOException.class);
@@ -58,8 +62,8 @@ class RedisSessionStoreTest {
     @Test
     void getAndRefreshWithInvalidRedisData() {
         // session value in redis is invalid
-        when(redis.hash()).thenReturn(redisHash);
-        when(redisHash.getAll(anyString())).thenThrow(new RedisException("WRONGTYPE Operation against a key holding the wrong kind of value"));
+        when(redis.pipeline()).thenReturn(pipeline);
+        doThrow(new RedisException("WRONGTYPE Operation against a key holding the wrong kind of value")).when(pipeline).execute();
         assertThat(store.getAndRefresh("sessionId", "localhost", Duration.ofMinutes(30))).isNull();
     }
 
@@ -68,12 +72,12 @@ class RedisSessionStoreTest {
         var timeout = Duration.ofSeconds(30);
         var values = Map.of("USER_ID", "1");
 
-        when(redis.hash()).thenReturn(redisHash);
-        when(redisHash.getAll(anyString())).thenReturn(values);
-
-        store.getAndRefresh("sessionId", "localhost", timeout);
+        when(redis.pipeline()).thenReturn(pipeline);
+        when(pipeline.hashGetAll(anyString())).thenReturn(() -> values);
 
-        verify(redis).expire(anyString(), eq(timeout));
+        assertThat(store.getAndRefresh("sessionId", "localhost", timeout)).isEqualTo(values);
+        verify(pipeline).expire(anyString(), eq(timeout));
+        verify(pipeline).execute();
     }
 
     @Test
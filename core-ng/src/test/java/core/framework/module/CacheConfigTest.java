@@ -50,7 +50,7 @@ class CacheConfigTest {
     void addWithLocal() {
         config.local();
 
-        CacheStoreConfig cacheStoreConfig = config.add(TestCache.class, Duration.ofHours(1));
+        CacheStoreConfig<TestCache> cacheStoreConfig = config.add(TestCache.class, Duration.ofHours(1));
         CacheImpl<?> cache = config.caches.get("testcache");
         assertThat(cache.cacheStore).isInstanceOf(LocalCacheStore.class);
 
@@ -65,7 +65,7 @@ class CacheConfigTest {
     void addWithRedis() {
         config.redis("localhost");
 
-        CacheStoreConfig cacheStoreConfig = config.add(TestCache.class, Duration.ofHours(1));
+        CacheStoreConfig<TestCache> cacheStoreConfig = config.add(TestCache.class, Duration.ofHours(1));
         CacheImpl<?> cache = config.caches.get("testcache");
         assertThat(cache.cacheStore).isInstanceOf(RedisCacheStore.class);
 
@@ -27,4 +27,16 @@ class DBConfigTest {
         assertThatThrownBy(() -> config.validate())
                 .hasMessageContaining("db is configured but no repository/view added");
     }
+
+    @Test
+    void replicas() {
+        assertThatThrownBy(() -> config.replicas("jdbc:hsqldb:mem:replica"))
+                .hasMessageContaining("db url must be configured first");
+        assertThatThrownBy(() -> config.replicaPoolSize(1, 1))
+                .hasMessageContaining("db replicas must be configured first");
+
+        config.url("jdbc:hsqldb:mem:.");
+        assertThatThrownBy(() -> config.replicas("jdbc:mysql://localhost/test"))
+                .hasMessageContaining("replica url must use same driver as primary");
+    }
 }
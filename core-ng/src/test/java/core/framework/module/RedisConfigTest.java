@@ -1,6 +1,7 @@
 package core.framework.module;
 
 import core.framework.internal.module.ModuleContext;
+import core.framework.internal.redis.RedisImpl;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -37,4 +38,14 @@ class RedisConfigTest {
 
         config.validate();
     }
+
+    @Test
+    void replicaPoolSize() {
+        assertThatThrownBy(() -> config.replicaPoolSize(1, 1))
+                .hasMessageContaining("redis replicas must be configured first");
+
+        config.replicas("replica-0");
+        config.replicaPoolSize(1, 10);
+        assertThat(((RedisImpl) config.client()).replicaPool.maxSize()).isEqualTo(10);
+    }
 }
@@ -1,14 +1,16 @@
 public class RowMapper$AutoIncrementIdEntity implements core.framework.internal.db.RowMapper {
     private final core.framework.internal.db.DBEnumMapper enumFieldMappings = new core.framework.internal.db.DBEnumMapper(core.framework.internal.db.TestEnum.class);
+    private final String[] columns = new String[]{"id", "string_field", "double_field", "enum_field", "date_time_field", "zoned_date_time_field"};
 
     public Object map(core.framework.internal.db.ResultSetWrapper resultSet) {
+        int[] slots = resultSet.slots(columns);
         core.framework.internal.db.AutoIncrementIdEntity entity = new core.framework.internal.db.AutoIncrementIdEntity();
-        entity.id = resultSet.getInt("id");
-        entity.stringField = resultSet.getString("string_field");
-        entity.doubleField = resultSet.getDouble("double_field");
-        entity.enumField = (core.framework.internal.db.TestEnum)enumFieldMappings.getEnum(resultSet.getString("enum_field"));
-        entity.dateTimeField = resultSet.getLocalDateTime("date_time_field");
-        entity.zonedDateTimeField = resultSet.getZonedDateTime("zoned_date_time_field");
+        entity.id = resultSet.getInt(slots[0]);
+        entity.stringField = resultSet.getString(slots[1]);
+        entity.doubleField = resultSet.getDouble(slots[2]);
+        entity.enumField = (core.framework.internal.db.TestEnum)enumFieldMappings.getEnum(resultSet.getString(slots[3]));
+        entity.dateTimeField = resultSet.getLocalDateTime(slots[4]);
+        entity.zonedDateTimeField = resultSet.getZonedDateTime(slots[5]);
         return entity;
     }
 